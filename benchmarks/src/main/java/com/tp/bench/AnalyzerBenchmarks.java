@@ -0,0 +1,48 @@
+package com.tp.bench;
+
+import com.tp.ParserAnalyzer;
+import com.tp.analysis.CouplingService;
+import com.tp.analysis.DendrogramNode;
+import com.tp.analysis.HierarchicalClustering;
+import com.tp.analysis.ModuleIdentifier;
+import com.tp.model.CallGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemins critiques JDT : parsing, couplage, clustering, identification des modules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnalyzerBenchmarks {
+
+    @Benchmark
+    public CallGraph parserAnalyze(AnalyzerState state) throws Exception {
+        ParserAnalyzer analyzer = new ParserAnalyzer(state.sourceRoot.toString());
+        analyzer.analyze();
+        return analyzer.getCompactCallGraph();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> countInterClassCalls(AnalyzerState state) {
+        return new CouplingService().countInterClassCalls(state.callGraph);
+    }
+
+    @Benchmark
+    public DendrogramNode performClustering(AnalyzerState state) {
+        return new HierarchicalClustering(state.coupling).performClustering();
+    }
+
+    @Benchmark
+    public List<ModuleIdentifier.Module> identifyModules(AnalyzerState state) {
+        ModuleIdentifier identifier = new ModuleIdentifier(
+            state.dendrogram, state.dendrogram.getClassCount(), 0.01, state.coupling);
+        return identifier.identifyModules();
+    }
+}
@@ -0,0 +1,52 @@
+package com.tp.bench;
+
+import com.tp.ParserAnalyzer;
+import com.tp.analysis.CouplingMatrix;
+import com.tp.analysis.CouplingService;
+import com.tp.analysis.DendrogramNode;
+import com.tp.analysis.HierarchicalClustering;
+import com.tp.model.CallGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Projet synthétique analysé une fois par essai : chaque benchmark part des
+ * résultats de l'étape précédente (graphe d'appel, couplage, dendrogramme).
+ */
+@State(Scope.Benchmark)
+public class AnalyzerState {
+
+    static final long SEED = 42L;
+
+    @Param({"100", "1000", "10000"})
+    public int classCount;
+
+    Path sourceRoot;
+    CallGraph callGraph;
+    Map<String, Map<String, Integer>> counts;
+    Map<String, Map<String, Double>> weights;
+    int totalCalls;
+    CouplingMatrix coupling;
+    DendrogramNode dendrogram;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sourceRoot = SyntheticProject.generate(classCount, SEED);
+        ParserAnalyzer analyzer = new ParserAnalyzer(sourceRoot.toString());
+        analyzer.analyze();
+        callGraph = analyzer.getCompactCallGraph();
+        CouplingService couplingService = new CouplingService();
+        counts = couplingService.countInterClassCalls(callGraph);
+        totalCalls = CouplingService.totalInterClassEdges(counts);
+        weights = CouplingService.normalizeToCouplingWeights(counts, totalCalls);
+        coupling = couplingService.getCoupling();
+        dendrogram = new HierarchicalClustering(coupling).performClustering();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticProject.delete(sourceRoot);
+    }
+}
@@ -0,0 +1,57 @@
+package com.tp.bench;
+
+import com.tp.analysis.GraphGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports de GraphGenerator (DOT, JSON, CSV, résumé texte) vers des fichiers temporaires.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmarks {
+
+    private static final double MIN_WEIGHT = 0.0;
+
+    private GraphGenerator generator;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp(AnalyzerState state) throws IOException {
+        generator = new GraphGenerator(state.coupling);
+        outputDir = Files.createTempDirectory("export-bench-");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticProject.delete(outputDir);
+    }
+
+    @Benchmark
+    public void dot() throws IOException {
+        generator.generateDotGraph(outputDir.resolve("graph.dot").toString(), MIN_WEIGHT, 50);
+    }
+
+    @Benchmark
+    public void json() throws IOException {
+        generator.generateJsonGraph(outputDir.resolve("graph.json").toString(), MIN_WEIGHT);
+    }
+
+    @Benchmark
+    public void csv() throws IOException {
+        generator.generateCsvReport(outputDir.resolve("report.csv").toString(), MIN_WEIGHT);
+    }
+
+    @Benchmark
+    public String textSummary() {
+        return generator.generateTextSummary(MIN_WEIGHT);
+    }
+}
@@ -0,0 +1,54 @@
+package com.tp.bench;
+
+import com.tp.ParserAnalyzer;
+import com.tp.spoon.SpoonCouplingService;
+import com.tp.spoon.SpoonModelSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Couplage Spoon, construction du modèle comprise (la session partagée est invalidée
+ * avant chaque appel). Limité à 1000 classes : le modèle Spoon de 10 000 classes
+ * dépasse la mémoire d'un poste courant.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpoonBenchmarks {
+
+    @Param({"100", "1000"})
+    public int classCount;
+
+    private Path sourceRoot;
+    private ParserAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sourceRoot = SyntheticProject.generate(classCount, AnalyzerState.SEED);
+        analyzer = new ParserAnalyzer(sourceRoot.toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void invalidateModel() {
+        SpoonModelSession.forSource(sourceRoot.toString()).invalidate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SpoonModelSession.clearAll();
+        SyntheticProject.delete(sourceRoot);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> calculateCouplingMatrix() {
+        SpoonCouplingService service = new SpoonCouplingService(analyzer);
+        service.calculateCouplingMatrix();
+        return service.getCouplingMatrix();
+    }
+}
@@ -0,0 +1,62 @@
+package com.tp.bench;
+
+import com.tp.synthetic.SyntheticProjectGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Projet Java synthétique pour les benchmarks, produit par {@link SyntheticProjectGenerator} :
+ * classCount classes réparties en packages d'environ 50 classes, 5 méthodes par classe,
+ * 2 appels par méthode dont 30 % vers un autre package. Déterministe pour une graine donnée.
+ */
+final class SyntheticProject {
+
+    private static final int CLASSES_PER_PACKAGE = 50;
+    private static final int METHODS_PER_CLASS = 5;
+    private static final int CALLS_PER_METHOD = 2;
+    private static final double CROSS_PACKAGE_RATIO = 0.3;
+
+    private SyntheticProject() {}
+
+    /**
+     * Écrit le projet dans un répertoire temporaire et retourne sa racine.
+     */
+    static Path generate(int classCount, long seed) throws IOException {
+        Path root = Files.createTempDirectory("synthetic-" + classCount + "-");
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+        generator.setClassCount(classCount);
+        generator.setMethodsPerClass(METHODS_PER_CLASS);
+        generator.setFanOut(SyntheticProjectGenerator.FanOut.FIXED);
+        generator.setMeanFanOut(CALLS_PER_METHOD);
+        generator.setPackageDepth(1);
+        generator.setPackageBranching(Math.max(1, (classCount + CLASSES_PER_PACKAGE - 1) / CLASSES_PER_PACKAGE));
+        generator.setCrossPackageRatio(CROSS_PACKAGE_RATIO);
+        generator.setRootPackage("bench");
+        generator.setSeed(seed);
+        generator.generate(root);
+        return root;
+    }
+
+    /**
+     * Supprime le projet généré.
+     */
+    static void delete(Path root) {
+        if (root == null || !Files.exists(root)) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,11 +2,10 @@ package com.tp;
 
 import com.tp.analysis.CouplingService;
 import com.tp.analysis.GraphGenerator;
+import com.tp.model.CallGraph;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 public class Analyzer {
   public static void main(String[] args) throws Exception {
@@ -23,8 +22,9 @@ public class Analyzer {
     // pa.printCallGraph();
 
     // Exo 1 — Couplage entre classes
-    Map<String, Set<String>> callGraph = pa.getCallGraph();
-    var counts = CouplingService.countInterClassCalls(callGraph);
+    CallGraph callGraph = pa.getCompactCallGraph();
+    CouplingService couplingService = new CouplingService();
+    var counts = couplingService.countInterClassCalls(callGraph);
     int total = CouplingService.totalInterClassEdges(counts);
     var weights = CouplingService.normalizeToCouplingWeights(counts, total);
 
@@ -46,7 +46,7 @@ public class Analyzer {
 
     // Génération du graphe de couplage pondéré
     System.out.println("\n=== GÉNÉRATION DU GRAPHE DE COUPLAGE ===");
-    GraphGenerator graphGen = new GraphGenerator(weights, counts, total);
+    GraphGenerator graphGen = new GraphGenerator(couplingService.getCoupling());
     
     // Paramètres configurables
     double minWeight = 0.001; // Seuil minimum de poids (0.1%)
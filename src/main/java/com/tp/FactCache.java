@@ -0,0 +1,190 @@
+package com.tp;
+
+import java.io.*;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache disque des faits extraits par fichier source (analyse incrémentale).
+ *
+ * Chaque entrée associe le chemin d'un fichier à son empreinte (taille, date de
+ * modification, SHA-256 du contenu) et aux faits extraits lors du dernier parsing.
+ * Si la taille et la date sont inchangées, le fichier est considéré identique ;
+ * sinon l'empreinte SHA-256 tranche (un simple "touch" ne force pas de re-parsing).
+ *
+ * Le cache est invalidé entièrement si la clé d'environnement (mode de parsing,
+ * classpath...) ou le format change.
+ */
+final class FactCache<T extends Serializable> {
+
+  private static final int FORMAT_VERSION = 2;
+
+  // Classes toujours acceptées à la lecture : conteneurs du cache et valeurs élémentaires
+  private static final Set<String> BASE_TYPES = Set.of(
+      Entry.class.getName(), HashMap.class.getName(), Map.Entry.class.getName(), ArrayList.class.getName(),
+      "java.util.CollSer", "java.util.ImmutableCollections$ListN", "java.util.ImmutableCollections$List12",
+      String.class.getName(), Boolean.class.getName(), Integer.class.getName(), Long.class.getName(),
+      Number.class.getName(), Object.class.getName());
+
+  // Limites de la lecture, larges pour un gros projet mais finies
+  private static final long MAX_DEPTH = 64;
+  private static final long MAX_REFERENCES = 50_000_000L;
+
+  private final Path file;
+  private final String environmentKey;
+  private final Set<String> allowedTypes = new HashSet<>(BASE_TYPES);
+  private Map<String, Entry<T>> entries = new HashMap<>();
+
+  /**
+   * @param factTypes classes sérialisées dans les faits (records, métriques...) : à la lecture,
+   *                  seules ces classes, les conteneurs du cache et les valeurs élémentaires
+   *                  sont acceptées ; un fichier qui en référence d'autres est ignoré.
+   */
+  FactCache(Path file, String environmentKey, Class<?>... factTypes) {
+    this.file = file;
+    this.environmentKey = environmentKey;
+    for (Class<?> type : factTypes) allowedTypes.add(type.getName());
+  }
+
+  /**
+   * Charge le cache depuis le disque. Un cache absent, illisible ou
+   * produit dans un autre environnement est ignoré (analyse complète).
+   */
+  @SuppressWarnings("unchecked")
+  void load() {
+    entries = new HashMap<>();
+    if (!Files.isRegularFile(file)) return;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      in.setObjectInputFilter(this::checkType);
+      int version = in.readInt();
+      String key = in.readUTF();
+      if (version != FORMAT_VERSION || !environmentKey.equals(key)) return;
+      entries = (Map<String, Entry<T>>) in.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      System.err.println("Cache d'analyse ignoré (" + file + ") : " + e.getMessage());
+      entries = new HashMap<>();
+    }
+  }
+
+  /**
+   * Filtre de désérialisation : le fichier de cache ne peut instancier que les classes
+   * attendues (tableaux compris), dans des limites de profondeur et de références.
+   */
+  private ObjectInputFilter.Status checkType(ObjectInputFilter.FilterInfo info) {
+    if (info.depth() > MAX_DEPTH || info.references() > MAX_REFERENCES) {
+      return ObjectInputFilter.Status.REJECTED;
+    }
+    Class<?> type = info.serialClass();
+    if (type == null) return ObjectInputFilter.Status.UNDECIDED;
+    while (type.isArray()) type = type.getComponentType();
+    return type.isPrimitive() || allowedTypes.contains(type.getName())
+        ? ObjectInputFilter.Status.ALLOWED
+        : ObjectInputFilter.Status.REJECTED;
+  }
+
+  /**
+   * Écrit le cache de façon atomique (fichier temporaire puis renommage).
+   */
+  void save() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try (ObjectOutputStream out = new ObjectOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(environmentKey);
+      out.writeObject(entries);
+    }
+    try {
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Retourne les faits en cache si le fichier n'a pas changé, sinon null.
+   * Met à jour la date mémorisée quand seul l'horodatage a changé.
+   */
+  T lookup(Path source) throws IOException {
+    Entry<T> entry = entries.get(key(source));
+    if (entry == null) return null;
+    long size = Files.size(source);
+    long lastModified = Files.getLastModifiedTime(source).toMillis();
+    if (entry.size == size && entry.lastModified == lastModified) {
+      return entry.facts;
+    }
+    String hash = hash(source);
+    if (entry.hash.equals(hash)) {
+      entries.put(key(source), new Entry<>(hash, size, lastModified, entry.facts));
+      return entry.facts;
+    }
+    return null;
+  }
+
+  /**
+   * Faits mémorisés pour un fichier, même périmés (null si inconnu).
+   */
+  T previous(Path source) {
+    Entry<T> entry = entries.get(key(source));
+    return entry != null ? entry.facts : null;
+  }
+
+  /**
+   * Enregistre les faits fraîchement extraits d'un fichier.
+   */
+  void put(Path source, T facts) throws IOException {
+    entries.put(key(source), new Entry<>(hash(source), Files.size(source),
+        Files.getLastModifiedTime(source).toMillis(), facts));
+  }
+
+  /**
+   * Retire les fichiers qui n'existent plus et retourne leurs faits.
+   */
+  List<T> removeAllExcept(Collection<Path> sources) {
+    Set<String> keep = new HashSet<>();
+    for (Path source : sources) keep.add(key(source));
+    List<T> removed = new ArrayList<>();
+    for (Iterator<Map.Entry<String, Entry<T>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<String, Entry<T>> e = it.next();
+      if (!keep.contains(e.getKey())) {
+        removed.add(e.getValue().facts);
+        it.remove();
+      }
+    }
+    return removed;
+  }
+
+  private static String key(Path source) {
+    return source.toAbsolutePath().normalize().toString();
+  }
+
+  private static String hash(Path source) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] bytes = digest.digest(Files.readAllBytes(source));
+      return HexFormat.of().formatHex(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 indisponible", e);
+    }
+  }
+
+  private static final class Entry<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String hash;
+    final long size;
+    final long lastModified;
+    final T facts;
+
+    Entry(String hash, long size, long lastModified, T facts) {
+      this.hash = hash;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.facts = facts;
+    }
+  }
+}
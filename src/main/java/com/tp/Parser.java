@@ -2,7 +2,9 @@ package com.tp;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -21,26 +23,32 @@ public class Parser {
     public static final String projectSourcePath =
             "/Users/clstialdsn/eclipse-workspace/company-app/src/main/java";
 
+    /**
+     * Analyse le dossier passé en premier argument (projectSourcePath par défaut).
+     */
     public static void main(String[] args) throws IOException {
-        List<File> javaFiles = listJavaFilesForFolder(new File(projectSourcePath));
+        String sourcePath = args.length > 0 ? args[0] : projectSourcePath;
+        List<Path> javaFiles = SourceReader.listJavaFiles(Paths.get(sourcePath));
 
-        for (File f : javaFiles) {
-            String content = Files.readString(f.toPath());
-            CompilationUnit cu = parse(content.toCharArray());
+        try (SourceReader reader = new SourceReader(javaFiles, StandardCharsets.UTF_8, 4)) {
+            for (int i = 0; i < javaFiles.size(); i++) {
+                CompilationUnit cu = parse(reader.read(i));
 
-            System.out.println("==== Analyzing file: " + f.getName() + " ====");
+                System.out.println("==== Analyzing file: " + javaFiles.get(i).getFileName() + " ====");
 
-            printClasses(cu);
-            printMethods(cu);
-            printVariables(cu);
-            printMethodInvocations(cu);
+                printClasses(cu);
+                printMethods(cu);
+                printVariables(cu);
+                printMethodInvocations(cu);
 
-            System.out.println();
+                System.out.println();
+            }
         }
     }
 
     /**
      * Collecte récursivement tous les fichiers .java d'un dossier.
+     * Conservée pour compatibilité : l'analyse utilise SourceReader.listJavaFiles.
      */
     public static List<File> listJavaFilesForFolder(final File folder) {
         List<File> javaFiles = new ArrayList<>();
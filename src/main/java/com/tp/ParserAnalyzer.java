@@ -1,7 +1,11 @@
 package com.tp;
 
+import com.tp.analysis.PhaseMetrics;
+import com.tp.analysis.ProgressListener;
+import com.tp.model.CallGraph;
 import com.tp.model.ClassMetrics;
 import com.tp.model.MethodMetrics;
+import com.tp.model.SymbolTable;
 import com.tp.visitors.*;
 
 import org.eclipse.jdt.core.JavaCore;
@@ -9,9 +13,18 @@ import org.eclipse.jdt.core.dom.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
-import java.nio.file.Files;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -29,8 +42,16 @@ public class ParserAnalyzer {
   // Stocke les métriques de chaque classe analysée
   private final List<ClassMetrics> classes = new ArrayList<>();
 
-  // Graphe d'appel : méthode appelante (FQN) -> ensemble des méthodes appelées
-  private final Map<String, Set<String>> callGraph = new HashMap<>();
+  // Graphe d'appel : méthode appelante (FQN) -> ensemble des méthodes appelées.
+  // Les noms sont internés en identifiants entiers ; le graphe est construit pendant
+  // la fusion puis figé au format CSR (compactGraph) à la fin de l'analyse ;
+  // le builder (index des nœuds et des arêtes) est alors libéré.
+  private final SymbolTable symbols = new SymbolTable();
+  private CallGraph.Builder graphBuilder = new CallGraph.Builder(symbols);
+  private CallGraph compactGraph;
+
+  // Vue Map du graphe d'appel, construite à la demande (getCallGraph)
+  private Map<String, Set<String>> callGraphView;
 
   // Index project-wide : simple method name -> set of declaring classes (FQN "pkg.Class")
   // Sert à inférer des cibles quand le binding est indisponible.
@@ -38,69 +59,541 @@ public class ParserAnalyzer {
   
   // Toutes les classes analysées (pour l'inférence)
   private final Set<String> allAnalyzedClasses = new HashSet<>();
+
+  // Index des classes analysées par nom court -> FQN, dans l'ordre de fusion des fichiers
+  private final Map<String, List<String>> classesByShortName = new HashMap<>();
   
-  // Map des variables locales : nom de variable -> type complet
-  private final Map<String, String> localVariableTypes = new HashMap<>();
-  
-  // Map des appels sur variables locales : (caller, variable, method) -> type
-  private final Map<String, Map<String, String>> localVariableCalls = new HashMap<>();
-  
-  // Liste des appels sur variables locales à traiter plus tard
-  private final List<LocalVariableCallVisitor.LocalVariableCall> pendingLocalCalls = new ArrayList<>();
+  // Appels sur variables locales et paramètres (typés dans leur portée) à traiter plus tard
+  private final List<PendingLocalCall> pendingLocalCalls = new ArrayList<>();
+
+  // Encodage des sources (UTF-8 par défaut, comme Files.readString)
+  private Charset sourceCharset = StandardCharsets.UTF_8;
+
+  // Nombre de fichiers lus à l'avance des parsers (0 = pas de préchargement)
+  private int prefetchDepth = 8;
+
+  // Nombre de threads de parsing (1 = séquentiel)
+  private int workerCount = 1;
+
+  // Mode batch : un seul ASTParser.createASTs avec environnement (sourcepath + classpath)
+  private boolean batchParsing = false;
+
+  // Entrées de classpath (jars, dossiers de classes) pour la résolution des bindings en mode batch
+  private final List<String> classpath = new ArrayList<>();
+
+  // Mode streaming : les faits de chaque fichier sont fusionnés dès qu'ils sont prêts
+  private boolean streaming = true;
+
+  // Fichier de cache des faits par fichier (null = pas d'analyse incrémentale)
+  private Path cacheFile;
+
+  // Nombre de fichiers parsés lors de la dernière analyse
+  private int parsedFileCount;
+
+  // Options du compilateur partagées par les parsers de l'analyse en cours
+  private Map<String, String> compilerOptions;
+
+  // Étapes et progression de l'analyse (peut l'interrompre par CancellationException)
+  private ProgressListener progressListener = ProgressListener.NONE;
+
+  // Mesures par étape (parsing, fusion, résolution)
+  private PhaseMetrics metrics = PhaseMetrics.NONE;
+
+  // Étape de parsing en cours : les threads de parsing y ajoutent leur CPU et leurs allocations
+  private PhaseMetrics.Scope parsingPhase;
+
+  // Fichiers traités / à traiter pour la progression du parsing
+  private int filesDone;
+  private int filesTotal;
 
   public ParserAnalyzer(String sourcePath) {
     this.sourcePath = sourcePath;
   }
 
+  /**
+   * Graphe d'appel compact (identifiants entiers, adjacence CSR).
+   * Forme à privilégier pour les calculs (couplage, affichage).
+   */
+  public CallGraph getCompactCallGraph() {
+    if (compactGraph == null) {
+      compactGraph = graphBuilder.build();
+    }
+    return compactGraph;
+  }
+
+  /**
+   * Vue "appelant -> appelés" du graphe d'appel avec des noms complets.
+   * Construite à la première demande à partir du graphe compact, puis conservée.
+   */
   public Map<String, Set<String>> getCallGraph() {
-    return callGraph;
+    if (callGraphView == null) {
+      callGraphView = getCompactCallGraph().toMap();
+    }
+    return callGraphView;
   }
   
   public String getSourcePath() {
     return sourcePath;
   }
 
+  /**
+   * Nombre de threads utilisés pour lire, parser et visiter les fichiers.
+   * 1 = analyse séquentielle (comportement historique).
+   */
+  public int getWorkerCount() {
+    return workerCount;
+  }
+
+  /**
+   * Configure le nombre de threads de parsing. Le résultat est identique
+   * quel que soit ce nombre : seuls la lecture, le parsing JDT et la visite
+   * de chaque fichier sont parallélisés, la fusion se fait dans l'ordre des fichiers.
+   */
+  public void setWorkerCount(int workerCount) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("workerCount doit être >= 1 : " + workerCount);
+    }
+    this.workerCount = workerCount;
+  }
+
+  public boolean isBatchParsing() {
+    return batchParsing;
+  }
+
+  /**
+   * Active le parsing batch : tout l'arbre source est transmis à un seul
+   * ASTParser.createASTs avec un sourcepath et un classpath réels, ce qui permet
+   * à JDT de résoudre les bindings une seule fois pour tout le projet.
+   * Dans ce mode, le nombre de threads est ignoré (JDT compile le lot sur un seul thread).
+   */
+  public void setBatchParsing(boolean batchParsing) {
+    this.batchParsing = batchParsing;
+  }
+
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Active le mode streaming (par défaut) : chaque fichier est réduit à ses faits
+   * (classes, méthodes, métriques, appels bruts, sans référence à l'AST) puis fusionné
+   * dès que les fichiers qui le précèdent l'ont été ; l'unité de compilation et les faits
+   * deviennent aussitôt inaccessibles. Le pic mémoire suit alors le graphe et les faits
+   * en attente, pas la taille totale des AST. Désactivé, tous les faits sont conservés
+   * jusqu'à la fin du parsing. Le résultat est identique dans les deux modes.
+   * Avec un cache (setCacheFile), les faits sont toujours conservés pour être enregistrés.
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  public Charset getSourceCharset() {
+    return sourceCharset;
+  }
+
+  /**
+   * Jeu de caractères des fichiers sources (UTF-8 par défaut). Le décodage est strict :
+   * un fichier invalide pour ce jeu de caractères fait échouer l'analyse.
+   */
+  public void setSourceCharset(Charset sourceCharset) {
+    this.sourceCharset = Objects.requireNonNull(sourceCharset);
+  }
+
+  public int getPrefetchDepth() {
+    return prefetchDepth;
+  }
+
+  /**
+   * Nombre de fichiers lus à l'avance par des threads d'entrée-sortie pendant que les
+   * parsers travaillent (8 par défaut, 0 pour désactiver). Utile sur un système de
+   * fichiers réseau ou un cache disque froid. Sans effet en mode batch (JDT lit les fichiers).
+   */
+  public void setPrefetchDepth(int prefetchDepth) {
+    if (prefetchDepth < 0) {
+      throw new IllegalArgumentException("prefetchDepth doit être >= 0 : " + prefetchDepth);
+    }
+    this.prefetchDepth = prefetchDepth;
+  }
+
+  public List<String> getClasspath() {
+    return Collections.unmodifiableList(classpath);
+  }
+
+  /**
+   * Définit les entrées de classpath (jars ou dossiers) utilisées en mode batch
+   * pour résoudre les types des dépendances du projet analysé.
+   */
+  public void setClasspath(List<String> entries) {
+    classpath.clear();
+    classpath.addAll(entries);
+  }
+
+  public Path getCacheFile() {
+    return cacheFile;
+  }
+
+  /**
+   * Active l'analyse incrémentale : les faits extraits de chaque fichier sont
+   * conservés sur disque avec une empreinte du contenu, et seuls les fichiers
+   * modifiés, ajoutés (ou dépendants, en mode batch) sont re-parsés à l'analyse suivante.
+   * Les étapes globales (résolution des appels) sont toujours refaites à partir des faits.
+   * null désactive le cache.
+   */
+  public void setCacheFile(Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Emplacement de cache par défaut pour un projet : ~/.code-analyzer/cache/&lt;empreinte du chemin&gt;.bin
+   */
+  public static Path defaultCacheFile(String sourcePath) {
+    String key = new File(sourcePath).getAbsolutePath();
+    String name = Integer.toHexString(key.hashCode()) + "-" + new File(key).getName() + ".bin";
+    return Paths.get(System.getProperty("user.home"), ".code-analyzer", "cache", name);
+  }
+
+  /**
+   * Nombre de fichiers effectivement parsés lors du dernier analyze()
+   * (les autres proviennent du cache).
+   */
+  public int getParsedFileCount() {
+    return parsedFileCount;
+  }
+
+  /**
+   * Définit l'écouteur des étapes (parsing, résolution) et de la progression
+   * du parsing, fichier par fichier (ProgressListener.NONE par défaut).
+   */
+  public void setProgressListener(ProgressListener progressListener) {
+    this.progressListener = progressListener != null ? progressListener : ProgressListener.NONE;
+  }
+
+  /**
+   * Définit le registre des mesures par étape : "Parsing" (fichiers), "Fusion des faits"
+   * (classes, méthodes) et "Résolution des appels" (méthodes, arêtes). PhaseMetrics.NONE par défaut.
+   */
+  public void setMetrics(PhaseMetrics metrics) {
+    this.metrics = metrics != null ? metrics : PhaseMetrics.NONE;
+  }
+
   /**
    * Point d'entrée de l'analyse : parcourt tous les fichiers .java du projet.
    */
   public void analyze() throws Exception {
-    List<File> files = listJavaFilesForFolder(new File(sourcePath));
-    for (File f : files) {
-      String content = Files.readString(f.toPath());
-      CompilationUnit cu = createCompilationUnit(content.toCharArray());
-      collectMetrics(cu);
+    if (graphBuilder == null) {
+      throw new IllegalStateException("Analyse déjà effectuée : créer un nouveau ParserAnalyzer");
+    }
+    progressListener.phaseStarted("Parsing");
+    // Faits conservés jusqu'à la fin du parsing (null en mode streaming : déjà fusionnés)
+    FileAnalysis[] results = null;
+    try (PhaseMetrics.Scope phase = metrics.start("Parsing")) {
+      parsingPhase = phase;
+      List<File> files = new ArrayList<>();
+      for (Path file : SourceReader.listJavaFiles(Paths.get(sourcePath))) files.add(file.toFile());
+      compilerOptions = createCompilerOptions();
+      filesDone = 0;
+      filesTotal = files.size();
+
+      if (cacheFile == null) {
+        List<Integer> all = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) all.add(i);
+        if (streaming) {
+          OrderedMerge merge = new OrderedMerge();
+          parseFiles(files, all, merge);
+          merge.finish(files.size());
+          phase.count("classes", classes.size()).count("methods", graphBuilder.nodeCount());
+        } else {
+          FileAnalysis[] parsed = new FileAnalysis[files.size()];
+          parseFiles(files, all, (i, facts) -> parsed[i] = facts);
+          results = parsed;
+        }
+        parsedFileCount = all.size();
+      } else {
+        results = new FileAnalysis[files.size()];
+        analyzeIncrementally(files, results);
+      }
+      phase.count("files", files.size()).count("parsed", parsedFileCount);
+    } finally {
+      parsingPhase = null;
+    }
+
+    if (results != null) {
+      try (PhaseMetrics.Scope phase = metrics.start("Fusion des faits")) {
+        for (FileAnalysis result : results) {
+          if (result != null) {
+            mergeFile(result);
+          }
+        }
+        phase.count("classes", classes.size()).count("methods", graphBuilder.nodeCount());
+      }
     }
     
     // Post-traitement : résoudre les appels non résolus
-    resolveUnresolvedCalls();
+    progressListener.phaseStarted("Résolution des appels");
+    try (PhaseMetrics.Scope phase = metrics.start("Résolution des appels")) {
+      resolveUnresolvedCalls();
+
+      // Figer le graphe (la vue Map sera reconstruite à la demande)
+      compactGraph = graphBuilder.build();
+      graphBuilder = null;
+      callGraphView = null;
+      phase.count("methods", compactGraph.nodeCount()).count("edges", compactGraph.edgeCount());
+    }
     
     // Optional debug:
     // debugCallGraph(20);
   }
 
+  /**
+   * Réutilise les faits en cache des fichiers inchangés et ne parse que les autres.
+   * En mode batch, les faits d'un fichier dépendent des déclarations des autres
+   * (bindings) : les fichiers qui appellent une classe ou un nom de méthode déclaré
+   * dans un fichier modifié, ajouté ou supprimé sont aussi re-parsés.
+   */
+  private void analyzeIncrementally(List<File> files, FileAnalysis[] results) throws Exception {
+    FactCache<FileAnalysis> cache = new FactCache<>(cacheFile, cacheEnvironmentKey(),
+        FileAnalysis.class, TypeFacts.class, MethodFacts.class, CallSite.class,
+        LocalVariableTypeVisitor.VariableType.class, ClassMetrics.class, MethodMetrics.class);
+    cache.load();
+
+    List<Path> paths = new ArrayList<>(files.size());
+    for (File f : files) paths.add(f.toPath());
+
+    // Faits périmés : fichiers supprimés ou modifiés
+    List<FileAnalysis> changedFacts = new ArrayList<>(cache.removeAllExcept(paths));
+    List<Integer> toParse = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      FileAnalysis cached = cache.lookup(paths.get(i));
+      if (cached != null) {
+        results[i] = cached;
+        fileDone();
+      } else {
+        toParse.add(i);
+        FileAnalysis previous = cache.previous(paths.get(i));
+        if (previous != null) changedFacts.add(previous);
+      }
+    }
+
+    parseFiles(files, toParse, (i, facts) -> results[i] = facts);
+    for (int i : toParse) changedFacts.add(results[i]);
+
+    if (batchParsing && !changedFacts.isEmpty()) {
+      List<Integer> dependents = findDependents(results, toParse, changedFacts);
+      filesTotal += dependents.size();
+      parseFiles(files, dependents, (i, facts) -> results[i] = facts);
+      toParse.addAll(dependents);
+    }
+
+    for (int i : toParse) {
+      if (results[i] != null) cache.put(paths.get(i), results[i]);
+    }
+    parsedFileCount = toParse.size();
+    try {
+      cache.save();
+    } catch (IOException e) {
+      System.err.println("Impossible d'écrire le cache d'analyse (" + cacheFile + ") : " + e.getMessage());
+    }
+  }
+
+  /**
+   * Indices des fichiers en cache dont les appels visent une classe ou un nom
+   * de méthode déclaré dans les faits modifiés.
+   */
+  private List<Integer> findDependents(FileAnalysis[] results, List<Integer> parsed,
+                                       List<FileAnalysis> changedFacts) {
+    Set<String> changedClasses = new HashSet<>();
+    Set<String> changedMethodNames = new HashSet<>();
+    for (FileAnalysis facts : changedFacts) {
+      if (facts == null) continue;
+      for (TypeFacts type : facts.types()) {
+        changedClasses.add(type.className());
+        for (MethodFacts method : type.methods()) changedMethodNames.add(method.name());
+      }
+    }
+    Set<Integer> alreadyParsed = new HashSet<>(parsed);
+    List<Integer> dependents = new ArrayList<>();
+    for (int i = 0; i < results.length; i++) {
+      if (alreadyParsed.contains(i) || results[i] == null) continue;
+      if (dependsOn(results[i], changedClasses, changedMethodNames)) dependents.add(i);
+    }
+    return dependents;
+  }
+
+  private boolean dependsOn(FileAnalysis facts, Set<String> classNames, Set<String> methodNames) {
+    for (TypeFacts type : facts.types()) {
+      for (MethodFacts method : type.methods()) {
+        for (CallSite call : method.calls()) {
+          if (call.resolved() == null) {
+            if (methodNames.contains(call.name())) return true;
+          } else if (classNames.contains(extractClassName(call.resolved()))) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Clé d'environnement du cache : des faits extraits avec un autre mode
+   * de parsing, un autre encodage ou un autre classpath ne sont pas réutilisables.
+   */
+  private String cacheEnvironmentKey() {
+    return "jls=17;batch=" + batchParsing + ";encoding=" + sourceCharset.name()
+        + ";classpath=" + String.join(File.pathSeparator, classpath);
+  }
+
+  /**
+   * Parse les fichiers d'indices donnés selon le mode configuré
+   * et transmet les faits de chacun à sink, sur le thread de l'analyse.
+   */
+  private void parseFiles(List<File> files, List<Integer> indices, FactSink sink) throws Exception {
+    if (indices.isEmpty()) return;
+    if (batchParsing) {
+      analyzeInBatch(files, indices, sink);
+      return;
+    }
+    List<Path> order = new ArrayList<>(indices.size());
+    for (int i : indices) order.add(files.get(i).toPath());
+    try (SourceReader reader = new SourceReader(order, sourceCharset, prefetchDepth)) {
+      if (workerCount <= 1 || indices.size() <= 1) {
+        for (int k = 0; k < indices.size(); k++) {
+          sink.accept(indices.get(k), analyzeFile(reader, k));
+          fileDone();
+        }
+      } else {
+        analyzeInParallel(reader, indices, sink);
+      }
+    }
+  }
+
+  /**
+   * Lit, parse et visite les fichiers sur un pool de threads.
+   * Chaque tâche produit un FileAnalysis confiné à son thread ; les faits sont
+   * transmis dans l'ordre des indices, comme en séquentiel. Au plus deux fichiers
+   * par thread sont soumis en avance : les faits prêts mais pas encore transmis
+   * restent en nombre borné.
+   */
+  private void analyzeInParallel(SourceReader reader, List<Integer> indices, FactSink sink) throws Exception {
+    int threads = Math.min(workerCount, indices.size());
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      int window = 2 * threads;
+      Deque<Future<FileAnalysis>> inFlight = new ArrayDeque<>(window);
+      int submitted = 0;
+      for (int k = 0; k < indices.size(); k++) {
+        while (submitted < indices.size() && submitted - k < window) {
+          int position = submitted++;
+          inFlight.add(pool.submit(parsingPhase.track(() -> analyzeFile(reader, position))));
+        }
+        try {
+          sink.accept(indices.get(k), inFlight.poll().get());
+          fileDone();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) throw (Exception) cause;
+          if (cause instanceof Error) throw (Error) cause;
+          throw e;
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Parse les fichiers donnés en un seul appel ASTParser.createASTs.
+   * Les bindings sont résolus dans un environnement commun (sourcepath du projet,
+   * classpath fourni et bibliothèque de la JVM courante), y compris vers les
+   * fichiers du sourcepath qui ne font pas partie du lot. Chaque AST est réduit
+   * à ses faits dès sa réception.
+   */
+  private void analyzeInBatch(List<File> files, List<Integer> indices, FactSink sink) {
+    String[] paths = new String[indices.size()];
+    Map<String, Integer> indexByPath = new HashMap<>();
+    for (int k = 0; k < paths.length; k++) {
+      int i = indices.get(k);
+      paths[k] = files.get(i).getAbsolutePath();
+      indexByPath.put(paths[k], i);
+    }
+    String[] sourceRoots = detectSourceRoots().toArray(new String[0]);
+    String[] rootEncodings = new String[sourceRoots.length];
+    Arrays.fill(rootEncodings, sourceCharset.name());
+    String[] fileEncodings = new String[paths.length];
+    Arrays.fill(fileEncodings, sourceCharset.name());
+
+    ASTParser parser = ASTParser.newParser(AST.JLS17);
+    parser.setKind(ASTParser.K_COMPILATION_UNIT);
+    parser.setResolveBindings(true);
+    parser.setBindingsRecovery(true);
+    parser.setCompilerOptions(compilerOptions);
+    parser.setEnvironment(classpath.toArray(new String[0]), sourceRoots, rootEncodings, true);
+
+    parser.createASTs(paths, fileEncodings, new String[0], new FileASTRequestor() {
+      @Override
+      public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+        Integer index = indexByPath.get(sourceFilePath);
+        if (index != null) {
+          sink.accept(index, extractFacts(ast));
+          fileDone();
+        }
+      }
+    }, null);
+  }
+
+  /**
+   * Racines de sources pour le sourcepath JDT : le dossier analysé
+   * et les dossiers conventionnels Maven/Gradle qu'il contient.
+   */
+  private List<String> detectSourceRoots() {
+    List<String> roots = new ArrayList<>();
+    File root = new File(sourcePath);
+    roots.add(root.getAbsolutePath());
+    for (String conventional : new String[] {"src/main/java", "src/test/java", "src"}) {
+      File candidate = new File(root, conventional);
+      if (candidate.isDirectory()) {
+        roots.add(candidate.getAbsolutePath());
+      }
+    }
+    return roots;
+  }
+
+  /**
+   * Signale un fichier traité (parsé ou repris du cache). Appelé depuis le thread de l'analyse.
+   */
+  private void fileDone() {
+    progressListener.progress(++filesDone, filesTotal);
+  }
+
+  /**
+   * Lit (sans String intermédiaire) et parse le fichier d'indice position du lecteur,
+   * puis en extrait les faits. N'accède à aucun état partagé : peut s'exécuter sur n'importe quel thread.
+   */
+  private FileAnalysis analyzeFile(SourceReader reader, int position) throws IOException {
+    CompilationUnit cu = createCompilationUnit(reader.read(position));
+    return extractFacts(cu);
+  }
+
   /**
    * Collecte les métriques (attributs, méthodes, LOC, paramètres)
-   * et construit le graphe d'appel pour chaque classe.
+   * et les invocations brutes de chaque méthode d'une unité de compilation.
+   * Les appels sont résolus par binding quand c'est possible ; l'inférence
+   * par index est différée à la fusion car elle dépend des fichiers précédents.
    */
-  private void collectMetrics(CompilationUnit cu) {
+  private FileAnalysis extractFacts(CompilationUnit cu) {
     PackageDeclaration pkg = cu.getPackage();
     String packageName = (pkg != null) ? pkg.getName().getFullyQualifiedName() : "";
 
     TypeDeclarationVisitor typeVisitor = new TypeDeclarationVisitor();
-    LocalVariableTypeVisitor localVarVisitor = new LocalVariableTypeVisitor();
     cu.accept(typeVisitor);
-    cu.accept(localVarVisitor);
     
-    // Capturer les types des variables locales
-    localVariableTypes.putAll(localVarVisitor.getVariableTypes());
-    
-    // Capturer les appels sur variables locales
-    LocalVariableCallVisitor localCallVisitor = new LocalVariableCallVisitor(localVariableTypes);
+    // Types des variables locales receveuses d'appels, dans leur portée (méthode, bloc...)
+    LocalVariableCallVisitor localCallVisitor = new LocalVariableCallVisitor();
     cu.accept(localCallVisitor);
 
+    List<TypeFacts> types = new ArrayList<>();
     for (TypeDeclaration type : typeVisitor.getTypes()) {
       String className = packageName.isEmpty() ? type.getName().toString() : packageName + "." + type.getName().toString();
-      allAnalyzedClasses.add(className);
       
       ClassMetrics cm = new ClassMetrics(packageName, type.getName().toString());
 
@@ -109,6 +602,7 @@ public class ParserAnalyzer {
       cm.setAttributeCount(attrCount);
 
       // Analyse chaque méthode déclarée
+      List<MethodFacts> methods = new ArrayList<>();
       for (MethodDeclaration method : type.getMethods()) {
         // Calcul des lignes de code (LOC) de la méthode
         int start = cu.getLineNumber(method.getStartPosition());
@@ -119,53 +613,76 @@ public class ParserAnalyzer {
         MethodMetrics mm = new MethodMetrics(method.getName().toString(), loc, params);
         cm.addMethod(mm);
 
+        MethodInvocationVisitor invVisitor = new MethodInvocationVisitor();
+        method.accept(invVisitor);
+
+        List<CallSite> calls = new ArrayList<>();
+        // Invocations normales
+        for (MethodInvocation inv : invVisitor.getMethods()) {
+          String resolved = resolveQualified(inv);
+          calls.add(new CallSite(resolved, inv.getName().toString(), false,
+              resolved == null ? localCallVisitor.getReceiverType(inv) : null));
+        }
+        // Appels à super
+        for (SuperMethodInvocation superInv : invVisitor.getSuperMethods()) {
+          calls.add(new CallSite(resolveQualified(superInv), superInv.getName().toString(), true, null));
+        }
+        methods.add(new MethodFacts(method.getName().toString(), calls));
+      }
+      types.add(new TypeFacts(className, cm, methods));
+    }
+
+    return new FileAnalysis(types);
+  }
+
+  /**
+   * Fusionne les faits d'un fichier dans le graphe d'appel, l'index des méthodes
+   * et la liste des classes. Doit être appelée dans l'ordre des fichiers.
+   */
+  private void mergeFile(FileAnalysis file) {
+    for (TypeFacts type : file.types()) {
+      if (allAnalyzedClasses.add(type.className())) {
+        classesByShortName.computeIfAbsent(getShortClassName(type.className()), k -> new ArrayList<>(1))
+            .add(type.className());
+      }
+      ClassMetrics cm = type.metrics();
+
+      for (MethodFacts method : type.methods()) {
         // Enregistrer la méthode dans l'index (simpleName -> declaring class FQN)
-        String simple = method.getName().toString();
         String declaringClassFqn = cm.getFullName(); // "pkg.Class"
-        methodIndex.computeIfAbsent(simple, k -> new HashSet<>()).add(declaringClassFqn);
+        methodIndex.computeIfAbsent(method.name(), k -> new HashSet<>()).add(declaringClassFqn);
 
         // ================================
         // Construction du graphe d'appel
         // ================================
-        MethodInvocationVisitor invVisitor = new MethodInvocationVisitor();
-        method.accept(invVisitor);
-
         // Appelant fully-qualified: pkg.Class.method
-        String caller = cm.getFullName() + "." + method.getName();
-        callGraph.putIfAbsent(caller, new HashSet<>());
+        String caller = cm.getFullName() + "." + method.name();
+        int callerNode = graphBuilder.addCaller(caller);
 
-        // Invocations normales
-        for (MethodInvocation inv : invVisitor.getMethods()) {
-          String calleeFqn = resolveQualified(inv);
-          if (calleeFqn == null) {
+        for (CallSite call : method.calls()) {
+          String calleeFqn = call.resolved();
+          if (calleeFqn == null && call.isSuper()) {
+            // Pas de bonne inférence fiable ici; garder un marqueur lisible
+            calleeFqn = "super." + call.name();
+          } else if (calleeFqn == null && call.receiver() != null) {
+            // Appel sur variable locale : typé une fois toutes les classes connues
+            pendingLocalCalls.add(new PendingLocalCall(callerNode, call));
+            continue;
+          } else if (calleeFqn == null) {
             // Essayer d'inférer via l'index si le nom est unique dans le projet
-            String inferred = inferByIndex(inv.getName().toString());
+            String inferred = inferByIndex(call.name());
             if (inferred != null) {
               calleeFqn = inferred;
             } else {
               // Laisser le nom simple pour résolution ultérieure
-              calleeFqn = inv.getName().toString();
+              calleeFqn = call.name();
             }
           }
-          callGraph.get(caller).add(calleeFqn);
-        }
-
-        // Appels à super
-        for (SuperMethodInvocation superInv : invVisitor.getSuperMethods()) {
-          String calleeFqn = resolveQualified(superInv);
-          if (calleeFqn == null) {
-            // Pas de bonne inférence fiable ici; garder un marqueur lisible
-            calleeFqn = "super." + superInv.getName();
-          }
-          callGraph.get(caller).add(calleeFqn);
+          graphBuilder.addCall(callerNode, symbols.internMethod(calleeFqn));
         }
       }
       classes.add(cm);
     }
-    
-    // Stocker les appels sur variables locales pour traitement ultérieur
-    // (après que toutes les classes soient analysées)
-    pendingLocalCalls.addAll(localCallVisitor.getLocalCalls());
   }
 
   /**
@@ -174,7 +691,8 @@ public class ParserAnalyzer {
   private String resolveQualified(MethodInvocation inv) {
     IMethodBinding binding = inv.resolveMethodBinding();
     if (binding != null && binding.getDeclaringClass() != null) {
-      String qClass = binding.getDeclaringClass().getQualifiedName();
+      // Effacement : "java.util.List" plutôt que "java.util.List<Employee>"
+      String qClass = binding.getDeclaringClass().getErasure().getQualifiedName();
       if (qClass != null && !qClass.isBlank()) {
         return qClass + "." + binding.getName();
       }
@@ -188,7 +706,8 @@ public class ParserAnalyzer {
   private String resolveQualified(SuperMethodInvocation inv) {
     IMethodBinding binding = inv.resolveMethodBinding();
     if (binding != null && binding.getDeclaringClass() != null) {
-      String qClass = binding.getDeclaringClass().getQualifiedName();
+      // Effacement : "java.util.List" plutôt que "java.util.List<Employee>"
+      String qClass = binding.getDeclaringClass().getErasure().getQualifiedName();
       if (qClass != null && !qClass.isBlank()) {
         return qClass + "." + inv.getName().toString();
       }
@@ -211,43 +730,6 @@ public class ParserAnalyzer {
     return null;
   }
 
-  /**
-   * Infère la classe à partir de l'expression de l'appel de méthode.
-   * Ex: car.getModel() -> utilise le type de la variable car
-   */
-  private String inferFromExpression(MethodInvocation inv) {
-    Expression expression = inv.getExpression();
-    if (expression == null) return null;
-    
-    // Si c'est un SimpleName (ex: car.getModel(), dev.addEmployee())
-    if (expression instanceof SimpleName) {
-      String variableName = ((SimpleName) expression).getIdentifier();
-      
-      // D'abord, vérifier si on connaît le type de cette variable locale
-      if (localVariableTypes.containsKey(variableName)) {
-        String variableType = localVariableTypes.get(variableName);
-        // Résoudre le type complet si nécessaire
-        String fullTypeName = resolveTypeName(variableType);
-        if (fullTypeName != null) {
-          String result = fullTypeName + "." + inv.getName().toString();
-          return result;
-        }
-      }
-      
-      // Fallback : chercher une classe dont le nom court correspond à la variable
-      Set<String> allClasses = new HashSet<>(allAnalyzedClasses);
-      for (String fullClassName : allClasses) {
-        String shortClassName = getShortClassName(fullClassName);
-        // Comparaison insensible à la casse : car -> Car
-        if (shortClassName.equalsIgnoreCase(variableName)) {
-          return fullClassName + "." + inv.getName().toString();
-        }
-      }
-    }
-    
-    return null;
-  }
-  
   /**
    * Extrait le nom court d'une classe à partir de son nom complet.
    */
@@ -259,6 +741,7 @@ public class ParserAnalyzer {
   /**
    * Résout un nom de type simple vers son nom complet.
    * Ex: "Department" -> "com.company.model.Department"
+   * Si plusieurs classes portent ce nom court, la première analysée l'emporte.
    */
   private String resolveTypeName(String typeName) {
     // Si c'est déjà un nom complet, le retourner
@@ -266,27 +749,9 @@ public class ParserAnalyzer {
       return typeName;
     }
     
-    // Chercher dans les classes analysées
-    for (String fullClassName : allAnalyzedClasses) {
-      String shortClassName = getShortClassName(fullClassName);
-      if (shortClassName.equals(typeName)) {
-        return fullClassName;
-      }
-    }
-    
-    // Fallback : chercher dans l'index des méthodes
-    for (String methodName : methodIndex.keySet()) {
-      for (String declaringClass : methodIndex.get(methodName)) {
-        String shortClassName = getShortClassName(declaringClass);
-        if (shortClassName.equals(typeName)) {
-          return declaringClass;
-        }
-      }
-    }
-    
-    // Fallback final : essayer de construire le nom complet
-    // En supposant que le type est dans le même package que la classe courante
-    return null;
+    // Chercher dans l'index des classes analysées
+    List<String> fullClassNames = classesByShortName.get(typeName);
+    return fullClassNames != null ? fullClassNames.get(0) : null;
   }
   
   /**
@@ -305,50 +770,69 @@ public class ParserAnalyzer {
    * Remplace les noms simples par des noms complets quand possible.
    */
   private void resolveUnresolvedCalls() {
-    for (var entry : callGraph.entrySet()) {
-      String caller = entry.getKey();
-      Set<String> callees = entry.getValue();
-      Set<String> resolvedCallees = new HashSet<>();
-      
-      for (String callee : callees) {
+    // Phase 1 : Traiter les appels sur variables locales
+    processLocalVariableCalls();
+
+    // Phase 2 : Résoudre les noms simples restants, une seule fois par nom
+    // (appelé simple -> appelé résolu, ou -1 si non résolu)
+    Map<Integer, Integer> resolvedCallees = new HashMap<>();
+    for (int node = 0; node < graphBuilder.nodeCount(); node++) {
+      int k = 0;
+      while (k < graphBuilder.degree(node)) {
+        int callee = graphBuilder.callee(node, k);
         // Si c'est un nom simple (sans point), essayer de le résoudre
-        if (!callee.contains(".")) {
-          String resolved = resolveSimpleName(callee);
-          if (resolved != null) {
-            resolvedCallees.add(resolved);
-          } else {
-            resolvedCallees.add(callee); // Garder le nom simple si pas de résolution
+        if (symbols.methodClass(callee) == SymbolTable.NO_CLASS) {
+          int resolved = resolvedCallees.computeIfAbsent(callee, c -> {
+            String fullMethodName = resolveSimpleName(symbols.name(symbols.methodName(c)));
+            return fullMethodName != null ? symbols.internMethod(fullMethodName) : -1;
+          });
+          // Garder le nom simple si pas de résolution ; si l'appelé résolu est déjà
+          // présent, l'arête est fusionnée et l'indice k désigne l'appelé suivant
+          if (resolved >= 0 && !graphBuilder.replaceCall(node, k, resolved)) {
+            continue;
           }
-        } else {
-          resolvedCallees.add(callee); // Déjà résolu
         }
+        k++;
       }
-      
-      // Remplacer l'ensemble des appelés
-      entry.setValue(resolvedCallees);
     }
-    
-    // Phase 2 : Traiter les appels sur variables locales
-    processLocalVariableCalls();
   }
   
   /**
-   * Traite les appels sur variables locales après que toutes les classes soient analysées.
+   * Traite les appels sur variables locales après que toutes les classes soient analysées :
+   * la méthode est cherchée dans le type déclaré de la variable. Si ce type n'est pas une
+   * classe du projet, l'appel est traité comme les autres appels non résolus.
    */
   private void processLocalVariableCalls() {
-    for (LocalVariableCallVisitor.LocalVariableCall call : pendingLocalCalls) {
-      // Tous les appels sont maintenant dans Main
-      String callerClass = "com.company.Main";
-      String caller = callerClass + "." + call.getMethod();
+    for (PendingLocalCall pending : pendingLocalCalls) {
+      CallSite call = pending.call();
       
       // Résoudre le type de la variable
-      String variableType = call.getVariableType();
-      String fullTypeName = resolveTypeName(variableType);
-        if (fullTypeName != null) {
-          String fullMethodName = fullTypeName + "." + call.getMethodName();
-          callGraph.computeIfAbsent(caller, k -> new HashSet<>()).add(fullMethodName);
-        }
+      String fullTypeName = resolveLocalVariableType(call.receiver());
+      String calleeFqn;
+      if (fullTypeName != null) {
+        calleeFqn = fullTypeName + "." + call.name();
+      } else {
+        String inferred = inferByIndex(call.name());
+        calleeFqn = inferred != null ? inferred : call.name();
+      }
+      graphBuilder.addCall(pending.callerNode(), symbols.internMethod(calleeFqn));
     }
+    pendingLocalCalls.clear();
+  }
+
+  /**
+   * Classe du projet désignée par le type déclaré d'une variable locale : premier candidat
+   * analysé (import explicite, même package, imports à la demande), sinon recherche par nom
+   * court si le type n'a été ni écrit qualifié ni importé explicitement. null si le type
+   * n'appartient pas au projet (ex: java.util.List).
+   */
+  private String resolveLocalVariableType(LocalVariableTypeVisitor.VariableType type) {
+    for (String candidate : type.candidates()) {
+      if (allAnalyzedClasses.contains(candidate)) {
+        return candidate;
+      }
+    }
+    return type.name().contains(".") ? null : resolveTypeName(type.name());
   }
   
   /**
@@ -363,22 +847,25 @@ public class ParserAnalyzer {
       return null;
     }
     
-    // Chercher dans toutes les classes analysées
-    Set<String> possibleMatches = new HashSet<>();
-    for (String className : allAnalyzedClasses) {
+    // Classes analysées déclarant une méthode de ce nom (index des méthodes)
+    Set<String> declaringClasses = methodIndex.get(simpleName);
+    if (declaringClasses == null) {
+      return null;
+    }
+    String match = null;
+    for (String className : declaringClasses) {
       String fullMethodName = className + "." + simpleName;
       // Vérifier si cette méthode existe dans le graphe d'appel
-      if (callGraph.containsKey(fullMethodName)) {
-        possibleMatches.add(fullMethodName);
+      if (allAnalyzedClasses.contains(className)
+          && graphBuilder.nodeOf(symbols.findMethod(fullMethodName)) >= 0) {
+        // Si la méthode existe dans plusieurs classes, ne pas la résoudre (ambiguë)
+        if (match != null) {
+          return null;
+        }
+        match = fullMethodName;
       }
     }
-    
-    // Si la méthode existe dans plusieurs classes, ne pas la résoudre (ambiguë)
-    if (possibleMatches.size() != 1) {
-      return null;
-    }
-    
-    return possibleMatches.iterator().next();
+    return match;
   }
   
   /**
@@ -404,24 +891,18 @@ public class ParserAnalyzer {
     parser.setSource(content);
     parser.setKind(ASTParser.K_COMPILATION_UNIT);
     parser.setResolveBindings(true); // Essentiel pour les FQNs (quand possible)
-    Map<String, String> options = JavaCore.getOptions();
-    JavaCore.setComplianceOptions(JavaCore.VERSION_17, options);
-    parser.setCompilerOptions(options);
+    parser.setCompilerOptions(compilerOptions);
     return (CompilationUnit) parser.createAST(null);
   }
 
-  private List<File> listJavaFilesForFolder(final File folder) {
-    List<File> javaFiles = new ArrayList<>();
-    File[] files = folder.listFiles();
-    if (files == null) return javaFiles;
-    for (File fileEntry : files) {
-      if (fileEntry.isDirectory()) {
-        javaFiles.addAll(listJavaFilesForFolder(fileEntry));
-      } else if (fileEntry.getName().endsWith(".java")) {
-        javaFiles.add(fileEntry);
-      }
-    }
-    return javaFiles;
+  /**
+   * Options du compilateur (Java 17), calculées une fois par analyse
+   * et partagées en lecture seule par tous les parsers.
+   */
+  private static Map<String, String> createCompilerOptions() {
+    Map<String, String> options = JavaCore.getOptions();
+    JavaCore.setComplianceOptions(JavaCore.VERSION_17, options);
+    return Collections.unmodifiableMap(options);
   }
 
   /**
@@ -515,10 +996,7 @@ public class ParserAnalyzer {
    * Affiche le graphe d'appel (Exercice 2.1).
    */
   public void printCallGraph() {
-    System.out.println("==== CALL GRAPH ====");
-    for (var entry : callGraph.entrySet()) {
-      System.out.println(entry.getKey() + " --> " + entry.getValue());
-    }
+    System.out.print(getCallGraphAsString());
   }
 
   /**
@@ -526,18 +1004,84 @@ public class ParserAnalyzer {
    */
   public String getCallGraphAsString() {
     StringBuilder sb = new StringBuilder("==== CALL GRAPH ====\n");
-    for (var entry : callGraph.entrySet()) {
-      sb.append(entry.getKey()).append(" --> ").append(entry.getValue()).append("\n");
+    CallGraph graph = getCompactCallGraph();
+    SymbolTable table = graph.getSymbols();
+    for (int node = 0; node < graph.nodeCount(); node++) {
+      sb.append(table.methodFullName(graph.caller(node))).append(" --> [");
+      for (int k = 0; k < graph.degree(node); k++) {
+        if (k > 0) sb.append(", ");
+        sb.append(table.methodFullName(graph.callee(node, k)));
+      }
+      sb.append("]\n");
     }
     return sb.toString();
   }
 
+  /**
+   * Destinataire des faits d'un fichier (indice dans la liste des fichiers).
+   */
+  private interface FactSink {
+    void accept(int index, FileAnalysis facts);
+  }
+
+  /**
+   * Fusion au fil de l'eau : les faits sont fusionnés dans l'ordre des fichiers dès
+   * que les précédents l'ont été ; seuls les faits arrivés en avance sont conservés.
+   */
+  private final class OrderedMerge implements FactSink {
+    private final Map<Integer, FileAnalysis> waiting = new HashMap<>();
+    private int next;
+
+    @Override
+    public void accept(int index, FileAnalysis facts) {
+      if (index != next) {
+        waiting.put(index, facts);
+        return;
+      }
+      mergeFile(facts);
+      next++;
+      for (FileAnalysis ready; (ready = waiting.remove(next)) != null; next++) {
+        mergeFile(ready);
+      }
+    }
+
+    /**
+     * Fusionne les faits encore en attente (fichiers que JDT n'a pas transmis en mode batch).
+     */
+    void finish(int fileCount) {
+      for (; next < fileCount; next++) {
+        FileAnalysis ready = waiting.remove(next);
+        if (ready != null) mergeFile(ready);
+      }
+    }
+  }
+
+  // --- Faits extraits d'un fichier (sans référence à l'AST) ---
+
+  /**
+   * Invocation brute : FQN si le binding est résolu, sinon null + nom simple
+   * (et type déclaré du receveur si l'appel porte sur une variable locale ou un paramètre).
+   */
+  private record CallSite(String resolved, String name, boolean isSuper,
+                          LocalVariableTypeVisitor.VariableType receiver) implements Serializable {}
+
+  private record MethodFacts(String name, List<CallSite> calls) implements Serializable {}
+
+  private record TypeFacts(String className, ClassMetrics metrics, List<MethodFacts> methods)
+      implements Serializable {}
+
+  private record FileAnalysis(List<TypeFacts> types) implements Serializable {}
+
+  /** Appel sur variable locale en attente du typage de son receveur. */
+  private record PendingLocalCall(int callerNode, CallSite call) {}
+
   // --- Debug facultatif ---
   @SuppressWarnings("unused")
   private void debugCallGraph(int limit) {
-    int edges = callGraph.values().stream().mapToInt(Set::size).sum();
-    System.out.println("DBG CallGraph nodes=" + callGraph.size() + " edges=" + edges);
-    callGraph.entrySet().stream().limit(limit).forEach(en ->
+    CallGraph graph = getCompactCallGraph();
+    System.out.println("DBG CallGraph nodes=" + graph.nodeCount() + " edges=" + graph.edgeCount()
+        + " symbols=" + symbols.methodCount());
+    getCallGraph().entrySet().stream().limit(limit).forEach(en ->
         System.out.println("DBG " + en.getKey() + " -> " + en.getValue())
     );
   }
@@ -0,0 +1,213 @@
+package com.tp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Lecture des sources Java pour JDT : parcours de l'arborescence et décodage vers le char[]
+ * attendu par ASTParser, sans String ni byte[] intermédiaires.
+ *
+ * Les octets d'un fichier sont lus dans un tampon direct réutilisé (petits fichiers) ou
+ * projetés en mémoire (gros fichiers), décodés dans un CharBuffer propre au thread, puis
+ * copiés une seule fois dans le char[] transmis au parser. Le décodage est strict, comme
+ * Files.readString : une séquence invalide pour le jeu de caractères lève une exception.
+ *
+ * Les fichiers sont lus dans l'ordre donné à la construction ; avec une profondeur de
+ * préchargement non nulle, les fichiers suivants sont lus à l'avance sur des threads
+ * d'entrée-sortie (utile sur un système de fichiers réseau ou un cache froid).
+ * {@link #read(int)} peut être appelée depuis plusieurs threads.
+ */
+final class SourceReader implements AutoCloseable {
+
+  // Au-delà, le fichier est projeté en mémoire plutôt que copié dans un tampon du pool
+  private static final int POOLED_BUFFER_SIZE = 64 * 1024;
+
+  // CharBuffer conservé par thread jusqu'à cette taille (les très gros fichiers n'en gardent pas)
+  private static final int MAX_RETAINED_CHARS = 4 * 1024 * 1024;
+
+  // Threads d'entrée-sortie du préchargement
+  private static final int MAX_IO_THREADS = 4;
+
+  private final List<Path> files;
+  private final Charset charset;
+  private final int prefetchDepth;
+  private final ExecutorService io;
+  private final Map<Integer, Future<Content>> prefetched = new ConcurrentHashMap<>();
+  // Indice suivant à précharger (les indices sont préchargés dans l'ordre)
+  private int nextPrefetch;
+  private final BlockingQueue<ByteBuffer> bufferPool;
+  private final ThreadLocal<Decoding> decoding;
+
+  /**
+   * @param files         fichiers, dans l'ordre où ils seront lus
+   * @param prefetchDepth nombre de fichiers lus à l'avance (0 = aucun préchargement)
+   */
+  SourceReader(List<Path> files, Charset charset, int prefetchDepth) {
+    this.files = files;
+    this.charset = charset;
+    this.prefetchDepth = Math.max(0, prefetchDepth);
+    this.bufferPool = new ArrayBlockingQueue<>(this.prefetchDepth + Runtime.getRuntime().availableProcessors());
+    this.decoding = ThreadLocal.withInitial(Decoding::new);
+    if (this.prefetchDepth > 0 && files.size() > 1) {
+      io = Executors.newFixedThreadPool(Math.min(MAX_IO_THREADS, this.prefetchDepth), runnable -> {
+        Thread thread = new Thread(runnable, "source-prefetch");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      io = null;
+    }
+  }
+
+  /**
+   * Fichiers .java sous root, en profondeur et dans l'ordre du répertoire
+   * (liens symboliques suivis, répertoires illisibles ou en boucle ignorés).
+   */
+  static List<Path> listJavaFiles(Path root) throws IOException {
+    List<Path> javaFiles = new ArrayList<>();
+    if (!Files.isDirectory(root)) return javaFiles;
+    Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isDirectory() && file.getFileName().toString().endsWith(".java")) {
+              javaFiles.add(file);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            return FileVisitResult.CONTINUE;
+          }
+        });
+    return javaFiles;
+  }
+
+  /**
+   * Contenu décodé du fichier d'indice index, et préchargement des suivants.
+   */
+  char[] read(int index) throws IOException {
+    schedulePrefetch(index);
+    Future<Content> ahead = prefetched.remove(index);
+    Content content = ahead != null ? await(ahead) : load(files.get(index), false);
+    try {
+      return decoding.get().decode(content.bytes());
+    } finally {
+      release(content);
+    }
+  }
+
+  private synchronized void schedulePrefetch(int index) {
+    if (io == null) return;
+    nextPrefetch = Math.max(nextPrefetch, index + 1);
+    int last = Math.min(files.size() - 1, index + prefetchDepth);
+    for (; nextPrefetch <= last; nextPrefetch++) {
+      Path file = files.get(nextPrefetch);
+      prefetched.put(nextPrefetch, io.submit(() -> load(file, true)));
+    }
+  }
+
+  private Content await(Future<Content> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Lecture interrompue", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) throw io;
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Lit les octets d'un fichier : tampon direct du pool si le fichier y tient, sinon
+   * projection mémoire (dont les pages sont chargées d'avance si préchargement).
+   */
+  private Content load(Path file, boolean touch) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Fichier source trop volumineux : " + file);
+      }
+      if (size <= POOLED_BUFFER_SIZE) {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) buffer = ByteBuffer.allocateDirect(POOLED_BUFFER_SIZE);
+        buffer.clear();
+        int read = 0;
+        while (read >= 0 && buffer.hasRemaining()) {
+          read = channel.read(buffer);
+        }
+        if (read < 0 || channel.position() >= channel.size()) {
+          buffer.flip();
+          return new Content(buffer, true);
+        }
+        // Fichier agrandi pendant la lecture : projection de sa nouvelle taille
+        bufferPool.offer(buffer);
+        size = channel.size();
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (touch) mapped.load();
+      return new Content(mapped, false);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (io != null) {
+      io.shutdownNow();
+    }
+    for (Future<Content> future : prefetched.values()) {
+      future.cancel(true);
+    }
+    prefetched.clear();
+  }
+
+  /**
+   * Octets d'un fichier ; les tampons du pool y retournent après décodage.
+   */
+  private record Content(ByteBuffer bytes, boolean pooled) {}
+
+  private void release(Content content) {
+    if (content.pooled()) bufferPool.offer(content.bytes());
+  }
+
+  /**
+   * Décodeur et CharBuffer réutilisés par un thread.
+   */
+  private final class Decoding {
+    private final CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private CharBuffer chars = CharBuffer.allocate(POOLED_BUFFER_SIZE);
+
+    char[] decode(ByteBuffer bytes) throws CharacterCodingException {
+      int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+          (long) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+      CharBuffer out = chars.capacity() >= capacity ? chars : CharBuffer.allocate(capacity);
+      out.clear();
+      decoder.reset();
+      CoderResult result = decoder.decode(bytes, out, true);
+      if (!result.isUnderflow()) result.throwException();
+      result = decoder.flush(out);
+      if (!result.isUnderflow()) result.throwException();
+      out.flip();
+      char[] content = new char[out.remaining()];
+      out.get(content);
+      if (out != chars && out.capacity() <= MAX_RETAINED_CHARS) chars = out;
+      return content;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.tp.analysis;
+
+import java.util.*;
+
+/**
+ * Couplage moyen interne de chaque branche d'un dendrogramme, précalculé une fois.
+ *
+ * Le couplage moyen d'une branche est la moyenne des poids sur toutes les paires de ses
+ * classes. Un dendrogramme produit par {@link HierarchicalClustering} porte déjà ces sommes,
+ * cumulées à chaque fusion ({@link DendrogramNode#getAverageInternalCoupling()}) : elles sont
+ * lues directement si elles ont été calculées sur la matrice donnée (même instance).
+ * Sinon (autre matrice, dendrogramme construit sans sommes), elles sont calculées
+ * de bas en haut sur la matrice donnée : la somme interne d'un nœud est celle
+ * de ses deux fils plus la somme des poids entre eux, obtenue en parcourant les lignes
+ * de la {@link CouplingMatrix} des classes du plus petit fils. Les feuilles d'un sous-arbre
+ * occupant un intervalle de l'ordre gauche-droite, l'appartenance à l'autre fils se teste
+ * en O(1). Une coupe du dendrogramme lit ensuite chaque moyenne en O(1), quel que soit
+ * le couplage minimum demandé.
+ */
+public final class BranchCoupling {
+
+    private final CouplingMatrix coupling;
+    private final Map<DendrogramNode, Double> averages = new IdentityHashMap<>();
+
+    /**
+     * @param root     racine du dendrogramme
+     * @param coupling poids de couplage entre classes (null : tous les couplages sont nuls)
+     */
+    public BranchCoupling(DendrogramNode root, CouplingMatrix coupling) {
+        this.coupling = coupling;
+        // Sommes absentes ou calculées sur une autre matrice pour au moins un nœud du dendrogramme
+        if (root != null && coupling != null && !root.hasInternalCoupling(coupling)) {
+            computeAverages(root);
+        }
+    }
+
+    /**
+     * Couplage moyen entre toutes les paires de classes de la branche (0 pour une seule classe).
+     * Une branche étrangère au dendrogramme est calculée paire par paire.
+     */
+    public double average(DendrogramNode branch) {
+        if (coupling == null) return 0.0;
+        if (branch.hasInternalCoupling(coupling)) return branch.getAverageInternalCoupling();
+        Double average = averages.get(branch);
+        return average != null ? average : pairwiseAverage(branch);
+    }
+
+    private void computeAverages(DendrogramNode root) {
+        // Parcours postfixe itératif (le dendrogramme peut être très profond)
+        List<DendrogramNode> postOrder = new ArrayList<>();
+        Deque<DendrogramNode> stack = new ArrayDeque<>();
+        Deque<DendrogramNode> pending = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DendrogramNode node = stack.pop();
+            pending.push(node);
+            if (!node.isLeaf()) {
+                stack.push(node.getLeft());
+                stack.push(node.getRight());
+            }
+        }
+        while (!pending.isEmpty()) postOrder.add(pending.pop());
+
+        // Feuilles dans l'ordre gauche-droite : chaque nœud couvre l'intervalle [first, end)
+        int[] leafClass = new int[postOrder.size()];
+        int[] positionOf = new int[coupling.classCount()];
+        Arrays.fill(positionOf, -1);
+        Map<DendrogramNode, Integer> index = new IdentityHashMap<>();
+        int[] first = new int[postOrder.size()];
+        int[] end = new int[postOrder.size()];
+        double[] sums = new double[postOrder.size()];
+        int leaves = 0;
+        for (int n = 0; n < postOrder.size(); n++) {
+            DendrogramNode node = postOrder.get(n);
+            index.put(node, n);
+            if (node.isLeaf()) {
+                int id = coupling.idOf(node.getClasses().iterator().next());
+                if (id >= 0) positionOf[id] = leaves;
+                leafClass[leaves] = id;
+                first[n] = leaves;
+                end[n] = ++leaves;
+                averages.put(node, 0.0);
+                continue;
+            }
+            int left = index.get(node.getLeft());
+            int right = index.get(node.getRight());
+            first[n] = first[left];
+            end[n] = end[right];
+
+            // Somme des poids entre les deux fils, depuis le plus petit
+            boolean leftSmaller = end[left] - first[left] <= end[right] - first[right];
+            int small = leftSmaller ? left : right;
+            int other = leftSmaller ? right : left;
+            double cross = 0.0;
+            for (int p = first[small]; p < end[small]; p++) {
+                int i = leafClass[p];
+                if (i < 0) continue;
+                for (int k = 0; k < coupling.degree(i); k++) {
+                    int position = positionOf[coupling.neighbor(i, k)];
+                    if (position >= first[other] && position < end[other]) {
+                        cross += coupling.weightAt(i, k);
+                    }
+                }
+            }
+            sums[n] = sums[left] + sums[right] + cross;
+
+            long size = end[n] - first[n];
+            averages.put(node, size < 2 ? 0.0 : sums[n] / (size * (size - 1) / 2));
+        }
+    }
+
+    /**
+     * Moyenne sur toutes les paires de classes de la branche, énumérées une à une.
+     */
+    private double pairwiseAverage(DendrogramNode branch) {
+        Set<String> classes = branch.getClasses();
+        if (classes.size() < 2) return 0.0;
+        int[] ids = new int[classes.size()];
+        int n = 0;
+        for (String className : classes) {
+            ids[n++] = coupling.idOf(className);
+        }
+        double total = 0.0;
+        int pairs = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                total += coupling.weight(ids[i], ids[j]);
+                pairs++;
+            }
+        }
+        return total / pairs;
+    }
+}
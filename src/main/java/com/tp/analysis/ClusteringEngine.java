@@ -0,0 +1,43 @@
+package com.tp.analysis;
+
+import java.util.List;
+
+/**
+ * Moteur de clustering agglomératif (lien moyen) utilisé par {@link HierarchicalClustering}.
+ *
+ * Les clusters sont désignés par leur numéro de création : les feuilles 0..n-1 sont
+ * les identifiants des classes dans la {@link CouplingMatrix}, puis n, n+1... pour chaque fusion. À chaque étape,
+ * la paire de couplage moyen maximal est fusionnée ; à couplage égal, la paire
+ * (plus petit numéro, plus grand numéro) la plus petite dans l'ordre lexicographique l'emporte.
+ */
+interface ClusteringEngine {
+
+    /**
+     * Calcule la suite des fusions (n-1 pour n classes).
+     *
+     * @param matrix poids de couplage entre classes (matrice creuse symétrique)
+     */
+    List<Merge> cluster(CouplingMatrix matrix);
+
+    /**
+     * Fusion des clusters left et right (left &lt; right) au couplage moyen donné ;
+     * le cluster créé reçoit le numéro suivant. crossSum est la somme S(left, right)
+     * des couplages entre leurs classes (coupling = crossSum / (|left|.|right|)).
+     */
+    record Merge(int left, int right, double coupling, double crossSum) {}
+
+    /** Écart relatif en deçà duquel deux couplages moyens sont considérés égaux. */
+    double COUPLING_TOLERANCE = 1e-12;
+
+    /**
+     * Compare deux couplages moyens avec une tolérance relative : des moyennes égales
+     * calculées dans des ordres de sommation différents (quelques ULP d'écart)
+     * sont traitées comme une égalité (départagée par l'ordre de création).
+     */
+    static int compareCoupling(double a, double b) {
+        if (Math.abs(a - b) <= COUPLING_TOLERANCE * Math.max(Math.abs(a), Math.abs(b))) {
+            return 0;
+        }
+        return Double.compare(a, b);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tp.analysis;
+
+/**
+ * Écouteur de progression et de trace du clustering et de l'identification des modules.
+ *
+ * Par défaut les services utilisent {@link #NONE} : aucun message n'est construit ni écrit.
+ * Les messages de trace ne sont construits que si {@link #isTraceEnabled()} est vrai ;
+ * {@link #console()} restitue l'ancien affichage détaillé sur la sortie standard.
+ */
+public interface ClusteringListener {
+
+    /** Écouteur sans effet. */
+    ClusteringListener NONE = new ClusteringListener() {};
+
+    /**
+     * Début d'une étape (clustering, identification des modules...).
+     */
+    default void phaseStarted(String phase) {}
+
+    /**
+     * Progression du clustering : done fusions effectuées sur total.
+     */
+    default void mergeProgress(int done, int total) {}
+
+    /**
+     * Vrai si les messages de trace sont consommés.
+     */
+    default boolean isTraceEnabled() {
+        return false;
+    }
+
+    /**
+     * Message de trace détaillé (n'est appelé que si isTraceEnabled()).
+     */
+    default void trace(String message) {}
+
+    /**
+     * Écouteur qui écrit les étapes et les traces sur la sortie standard.
+     */
+    static ClusteringListener console() {
+        return new ClusteringListener() {
+            @Override
+            public void phaseStarted(String phase) {
+                System.out.println("\n" + phase);
+            }
+
+            @Override
+            public boolean isTraceEnabled() {
+                return true;
+            }
+
+            @Override
+            public void trace(String message) {
+                System.out.println(message);
+            }
+        };
+    }
+}
@@ -8,45 +8,108 @@ import java.util.*;
  */
 public class ClusteringService {
     
-    private final Map<String, Map<String, Integer>> couplingMatrix;
-    private final Map<String, Map<String, Double>> couplingWeights;
+    private final CouplingMatrix coupling;
     private DendrogramNode dendrogram;
+    private BranchCoupling branchCoupling;
+    private ClusteringListener listener = ClusteringListener.NONE;
+    private PhaseMetrics metrics = PhaseMetrics.NONE;
     private List<ModuleIdentifier.Module> modules;
     
     public ClusteringService(Map<String, Map<String, Integer>> couplingMatrix,
                             Map<String, Map<String, Double>> couplingWeights) {
-        this.couplingMatrix = couplingMatrix;
-        this.couplingWeights = couplingWeights;
+        this(CouplingMatrix.fromMaps(couplingMatrix, couplingWeights));
+    }
+    
+    /**
+     * Clustering sur une matrice de couplage déjà construite (partagée avec le couplage et l'export).
+     */
+    public ClusteringService(CouplingMatrix coupling) {
+        this.coupling = coupling;
+    }
+    
+    /**
+     * Définit l'écouteur de progression et de trace, transmis au clustering
+     * et à l'identification des modules (ClusteringListener.NONE par défaut).
+     */
+    public void setListener(ClusteringListener listener) {
+        this.listener = listener != null ? listener : ClusteringListener.NONE;
+    }
+    
+    /**
+     * Définit le registre des mesures : étapes "Clustering" (classes, fusions)
+     * et "Modules" (modules identifiés). PhaseMetrics.NONE par défaut.
+     */
+    public void setMetrics(PhaseMetrics metrics) {
+        this.metrics = metrics != null ? metrics : PhaseMetrics.NONE;
     }
     
     /**
      * Exécute le processus complet de clustering et d'identification des modules.
      */
     public ClusteringResult performCompleteClustering(double minCoupling) {
-        System.out.println("=== DÉBUT PROCESSUS DE CLUSTERING COMPLET ===");
+        if (listener.isTraceEnabled()) {
+            listener.trace("=== DÉBUT PROCESSUS DE CLUSTERING COMPLET ===");
+        }
         
         // Étape 1: Clustering hiérarchique
-        System.out.println("\n1. CLUSTERING HIÉRARCHIQUE");
-        HierarchicalClustering clustering = new HierarchicalClustering(couplingMatrix, couplingWeights);
-        this.dendrogram = clustering.performClustering();
+        listener.phaseStarted("1. CLUSTERING HIÉRARCHIQUE");
+        HierarchicalClustering clustering = new HierarchicalClustering(coupling);
+        clustering.setListener(listener);
+        try (PhaseMetrics.Scope phase = metrics.start("Clustering")) {
+            this.dendrogram = clustering.performClustering();
+            phase.count("classes", dendrogram.getClassCount())
+                 .count("merges", Math.max(0, dendrogram.getClassCount() - 1));
+        }
         
         // Afficher le dendrogramme
-        clustering.printDendrogram(dendrogram);
+        if (listener.isTraceEnabled()) {
+            listener.trace(clustering.formatDendrogram(dendrogram));
+        }
+        
+        // Étapes 2 et 3: Identification des modules et rapport
+        this.branchCoupling = null;
+        ClusteringResult result = cut(minCoupling);
         
+        if (listener.isTraceEnabled()) {
+            listener.trace("\n=== FIN PROCESSUS DE CLUSTERING COMPLET ===");
+        }
+        return result;
+    }
+    
+    /**
+     * Identifie à nouveau les modules avec un autre couplage minimum, sans refaire le clustering :
+     * le dendrogramme, la matrice et les couplages moyens des branches sont réutilisés,
+     * la coupe ne parcourt que les nœuds visités.
+     */
+    public ClusteringResult recut(double minCoupling) {
+        if (dendrogram == null) {
+            throw new IllegalStateException("Aucun clustering effectué. Exécutez d'abord performCompleteClustering().");
+        }
+        return cut(minCoupling);
+    }
+    
+    private ClusteringResult cut(double minCoupling) {
         // Étape 2: Identification des modules
-        System.out.println("\n2. IDENTIFICATION DES MODULES");
+        listener.phaseStarted("2. IDENTIFICATION DES MODULES");
         // Calculer le nombre total de classes à partir du dendrogramme
         int totalClasses = dendrogram.getClassCount();
-        System.out.println("Nombre total de classes détectées: " + totalClasses);
-        ModuleIdentifier moduleIdentifier = new ModuleIdentifier(dendrogram, totalClasses, minCoupling, couplingWeights);
-        this.modules = moduleIdentifier.identifyModules();
+        if (listener.isTraceEnabled()) {
+            listener.trace("Nombre total de classes détectées: " + totalClasses);
+        }
+        try (PhaseMetrics.Scope phase = metrics.start("Modules")) {
+            // Couplages moyens des branches calculés une fois par dendrogramme
+            if (branchCoupling == null) {
+                branchCoupling = new BranchCoupling(dendrogram, coupling);
+            }
+            ModuleIdentifier moduleIdentifier = new ModuleIdentifier(dendrogram, totalClasses, minCoupling, branchCoupling);
+            moduleIdentifier.setListener(listener);
+            this.modules = moduleIdentifier.identifyModules();
+            phase.count("modules", modules.size());
+        }
         
         // Étape 3: Génération du rapport
-        System.out.println("\n3. GÉNÉRATION DU RAPPORT");
-        ClusteringResult result = new ClusteringResult(dendrogram, modules, couplingMatrix, couplingWeights);
-        
-        System.out.println("\n=== FIN PROCESSUS DE CLUSTERING COMPLET ===");
-        return result;
+        listener.phaseStarted("3. GÉNÉRATION DU RAPPORT");
+        return new ClusteringResult(dendrogram, modules, coupling);
     }
     
     /**
@@ -157,22 +220,37 @@ public class ClusteringService {
     public static class ClusteringResult {
         private final DendrogramNode dendrogram;
         private final List<ModuleIdentifier.Module> modules;
-        private final Map<String, Map<String, Integer>> couplingMatrix;
-        private final Map<String, Map<String, Double>> couplingWeights;
+        private final CouplingMatrix coupling;
         
         public ClusteringResult(DendrogramNode dendrogram, 
                               List<ModuleIdentifier.Module> modules,
                               Map<String, Map<String, Integer>> couplingMatrix,
                               Map<String, Map<String, Double>> couplingWeights) {
+            this(dendrogram, modules, CouplingMatrix.fromMaps(couplingMatrix, couplingWeights));
+        }
+        
+        public ClusteringResult(DendrogramNode dendrogram, 
+                              List<ModuleIdentifier.Module> modules,
+                              CouplingMatrix coupling) {
             this.dendrogram = dendrogram;
             this.modules = modules;
-            this.couplingMatrix = couplingMatrix;
-            this.couplingWeights = couplingWeights;
+            this.coupling = coupling;
         }
         
         public DendrogramNode getDendrogram() { return dendrogram; }
         public List<ModuleIdentifier.Module> getModules() { return modules; }
-        public Map<String, Map<String, Integer>> getCouplingMatrix() { return couplingMatrix; }
-        public Map<String, Map<String, Double>> getCouplingWeights() { return couplingWeights; }
+        public CouplingMatrix getCoupling() { return coupling; }
+        
+        /**
+         * Nombres d'appels par paire, dérivés de la matrice (une entrée par paire,
+         * de la classe de plus petit nom vers l'autre). Reconstruits à chaque appel : préférer getCoupling().
+         */
+        public Map<String, Map<String, Integer>> getCouplingMatrix() { return coupling.toCountMap(); }
+        
+        /**
+         * Poids de couplage par paire, dérivés de la matrice (une entrée par paire,
+         * de la classe de plus petit nom vers l'autre). Reconstruits à chaque appel : préférer getCoupling().
+         */
+        public Map<String, Map<String, Double>> getCouplingWeights() { return coupling.toWeightMap(); }
     }
 }
@@ -0,0 +1,307 @@
+package com.tp.analysis;
+
+import java.util.*;
+
+/**
+ * Matrice de couplage creuse, symétrique et immuable entre classes.
+ *
+ * Les classes sont internées en identifiants 0..n-1 ; pour chaque classe, ses voisines
+ * (classes de couplage non nul) sont stockées au format CSR, triées par identifiant :
+ * les voisines de i sont columns[rowStart[i] .. rowStart[i+1]), avec le nombre d'appels
+ * et le poids de chaque paire dans des tableaux primitifs parallèles. Chaque paire figure
+ * dans les deux lignes : le couplage (i, j) se lit en O(log d) par recherche dichotomique,
+ * et la ligne d'une classe se parcourt sans boxing.
+ *
+ * Les maps "source -> cible -> valeur" sont symétrisées en additionnant les deux sens
+ * (JDT ne fournit qu'un sens par paire, Spoon les appels dans chaque sens).
+ */
+public final class CouplingMatrix {
+
+    private final String[] classNames;
+    private final Map<String, Integer> ids;
+    private final int[] rowStart;
+    private final int[] columns;
+    private final int[] counts;
+    private final double[] weights;
+    private final int totalCalls;
+
+    private CouplingMatrix(String[] classNames, Map<String, Integer> ids, int[] rowStart, int[] columns,
+                           int[] counts, double[] weights, int totalCalls) {
+        this.classNames = classNames;
+        this.ids = ids;
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.counts = counts;
+        this.weights = weights;
+        this.totalCalls = totalCalls;
+    }
+
+    /**
+     * Matrice construite à partir des nombres d'appels, les poids étant normalisés
+     * par le nombre total d'appels (comme {@link CouplingService#normalizeToCouplingWeights}).
+     */
+    public static CouplingMatrix fromCounts(Map<String, Map<String, Integer>> couplingCounts) {
+        int total = CouplingService.totalInterClassEdges(couplingCounts);
+        return fromMaps(couplingCounts, CouplingService.normalizeToCouplingWeights(couplingCounts, total));
+    }
+
+    /**
+     * Matrice construite à partir des poids seuls (nombres d'appels nuls).
+     */
+    public static CouplingMatrix fromWeights(Map<String, Map<String, Double>> couplingWeights) {
+        return fromMaps(null, couplingWeights);
+    }
+
+    /**
+     * Matrice construite à partir des nombres d'appels et des poids (l'un des deux peut être null).
+     *
+     * Les identifiants suivent l'ordre d'itération d'un HashSet rempli avec les classes des
+     * nombres d'appels (à défaut des poids), source puis cibles : l'ordre des feuilles du
+     * clustering, et donc le départage de ses égalités, ne dépend pas de la représentation.
+     */
+    public static CouplingMatrix fromMaps(Map<String, Map<String, Integer>> couplingCounts,
+                                          Map<String, Map<String, Double>> couplingWeights) {
+        Map<String, ? extends Map<String, ?>> keys = couplingCounts != null ? couplingCounts : couplingWeights;
+        Set<String> classSet = new HashSet<>();
+        if (keys != null) {
+            for (var source : keys.entrySet()) {
+                classSet.add(source.getKey());
+                classSet.addAll(source.getValue().keySet());
+            }
+        }
+        String[] classNames = classSet.toArray(new String[0]);
+        Map<String, Integer> idOf = new HashMap<>(classNames.length * 2);
+        for (int id = 0; id < classNames.length; id++) idOf.put(classNames[id], id);
+
+        // Entrées orientées (source, cible, appels, poids), ajoutées dans les deux lignes
+        Entries entries = new Entries();
+        int total = 0;
+        if (couplingCounts != null) {
+            for (var source : couplingCounts.entrySet()) {
+                Integer i = idOf.get(source.getKey());
+                for (var target : source.getValue().entrySet()) {
+                    Integer j = idOf.get(target.getKey());
+                    total += target.getValue();
+                    if (i != null && j != null && !i.equals(j)) entries.add(i, j, target.getValue(), 0.0);
+                }
+            }
+        }
+        if (couplingWeights != null) {
+            for (var source : couplingWeights.entrySet()) {
+                Integer i = idOf.get(source.getKey());
+                for (var target : source.getValue().entrySet()) {
+                    Integer j = idOf.get(target.getKey());
+                    if (i != null && j != null && !i.equals(j)) entries.add(i, j, 0, target.getValue());
+                }
+            }
+        }
+        return entries.toMatrix(classNames, idOf, total);
+    }
+
+    /** Nombre de classes. */
+    public int classCount() {
+        return classNames.length;
+    }
+
+    /** Nom de la classe d'identifiant id. */
+    public String className(int id) {
+        return classNames[id];
+    }
+
+    /** Noms des classes, dans l'ordre des identifiants. */
+    public List<String> classNames() {
+        return Collections.unmodifiableList(Arrays.asList(classNames));
+    }
+
+    /** Identifiant de la classe, ou -1 si elle n'a aucun couplage. */
+    public int idOf(String className) {
+        Integer id = ids.get(className);
+        return id != null ? id : -1;
+    }
+
+    /** Nombre total d'appels inter-classes (somme des nombres d'appels d'origine). */
+    public int totalCalls() {
+        return totalCalls;
+    }
+
+    /** Nombre de paires de classes couplées (non ordonnées). */
+    public int pairCount() {
+        return columns.length / 2;
+    }
+
+    /** Nombre de paires de classes couplées de poids au moins minWeight. */
+    public int pairCount(double minWeight) {
+        int pairs = 0;
+        for (int i = 0; i < classCount(); i++) {
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                if (columns[p] > i && weights[p] >= minWeight) pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    /** Nombre de voisines de la classe i. */
+    public int degree(int i) {
+        return rowStart[i + 1] - rowStart[i];
+    }
+
+    /** k-ième voisine de la classe i (identifiants croissants). */
+    public int neighbor(int i, int k) {
+        return columns[rowStart[i] + k];
+    }
+
+    /** Poids du couplage entre i et sa k-ième voisine. */
+    public double weightAt(int i, int k) {
+        return weights[rowStart[i] + k];
+    }
+
+    /** Nombre d'appels entre i et sa k-ième voisine. */
+    public int countAt(int i, int k) {
+        return counts[rowStart[i] + k];
+    }
+
+    /** Poids du couplage entre les classes i et j (0 si non couplées ou identifiant négatif). */
+    public double weight(int i, int j) {
+        int position = find(i, j);
+        return position >= 0 ? weights[position] : 0.0;
+    }
+
+    /** Nombre d'appels entre les classes i et j (0 si non couplées ou identifiant négatif). */
+    public int count(int i, int j) {
+        int position = find(i, j);
+        return position >= 0 ? counts[position] : 0;
+    }
+
+    /** Poids du couplage entre deux classes désignées par leur nom. */
+    public double weight(String class1, String class2) {
+        return weight(idOf(class1), idOf(class2));
+    }
+
+    /** Nombre d'appels entre deux classes désignées par leur nom. */
+    public int count(String class1, String class2) {
+        return count(idOf(class1), idOf(class2));
+    }
+
+    /**
+     * Vue Map des nombres d'appels : une entrée par paire de nombre non nul, de la classe
+     * de plus petit nom vers l'autre. Construite à chaque appel : à mettre en cache par l'appelant.
+     */
+    public Map<String, Map<String, Integer>> toCountMap() {
+        Map<String, Map<String, Integer>> map = new HashMap<>();
+        forEachPair((source, target, p) -> {
+            if (counts[p] != 0) map.computeIfAbsent(source, k -> new HashMap<>()).put(target, counts[p]);
+        });
+        return map;
+    }
+
+    /**
+     * Vue Map des poids : une entrée par paire de poids non nul, de la classe de plus petit nom
+     * vers l'autre. Construite à chaque appel : à mettre en cache par l'appelant.
+     */
+    public Map<String, Map<String, Double>> toWeightMap() {
+        Map<String, Map<String, Double>> map = new HashMap<>();
+        forEachPair((source, target, p) -> {
+            if (weights[p] != 0.0) map.computeIfAbsent(source, k -> new HashMap<>()).put(target, weights[p]);
+        });
+        return map;
+    }
+
+    private interface PairVisitor {
+        void visit(String source, String target, int position);
+    }
+
+    /** Parcourt chaque paire une fois (ligne de la classe de plus petit identifiant). */
+    private void forEachPair(PairVisitor visitor) {
+        for (int i = 0; i < classNames.length; i++) {
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                int j = columns[p];
+                if (j < i) continue;
+                String a = classNames[i];
+                String b = classNames[j];
+                boolean ordered = a.compareTo(b) <= 0;
+                visitor.visit(ordered ? a : b, ordered ? b : a, p);
+            }
+        }
+    }
+
+    private int find(int i, int j) {
+        if (i < 0 || j < 0) return -1;
+        int position = Arrays.binarySearch(columns, rowStart[i], rowStart[i + 1], j);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Entrées orientées accumulées avant la construction du CSR.
+     */
+    private static final class Entries {
+        private int size;
+        private int[] rows = new int[16];
+        private int[] cols = new int[16];
+        private int[] counts = new int[16];
+        private double[] weights = new double[16];
+
+        void add(int i, int j, int count, double weight) {
+            append(i, j, count, weight);
+            append(j, i, count, weight);
+        }
+
+        private void append(int row, int col, int count, double weight) {
+            if (size == rows.length) {
+                int capacity = size * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                cols = Arrays.copyOf(cols, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            counts[size] = count;
+            weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Range les entrées par ligne (tri par comptage), trie chaque ligne par colonne
+         * et additionne les entrées d'une même paire.
+         */
+        CouplingMatrix toMatrix(String[] classNames, Map<String, Integer> ids, int totalCalls) {
+            int n = classNames.length;
+            int[] rowStart = new int[n + 1];
+            for (int e = 0; e < size; e++) rowStart[rows[e] + 1]++;
+            for (int i = 0; i < n; i++) rowStart[i + 1] += rowStart[i];
+            // (colonne << 32) | indice de l'entrée, groupés par ligne
+            long[] byRow = new long[size];
+            int[] fill = Arrays.copyOf(rowStart, n);
+            for (int e = 0; e < size; e++) {
+                byRow[fill[rows[e]]++] = ((long) cols[e] << 32) | e;
+            }
+
+            int[] columns = new int[size];
+            int[] pairCounts = new int[size];
+            double[] pairWeights = new double[size];
+            int pairs = 0;
+            for (int i = 0; i < n; i++) {
+                int start = rowStart[i];
+                int end = rowStart[i + 1];
+                Arrays.sort(byRow, start, end);
+                rowStart[i] = pairs;
+                for (int k = start; k < end; k++) {
+                    int col = (int) (byRow[k] >>> 32);
+                    int e = (int) byRow[k];
+                    if (pairs > rowStart[i] && columns[pairs - 1] == col) {
+                        pairCounts[pairs - 1] += counts[e];
+                        pairWeights[pairs - 1] += weights[e];
+                    } else {
+                        columns[pairs] = col;
+                        pairCounts[pairs] = counts[e];
+                        pairWeights[pairs] = weights[e];
+                        pairs++;
+                    }
+                }
+            }
+            rowStart[n] = pairs;
+            return new CouplingMatrix(classNames, ids, rowStart, Arrays.copyOf(columns, pairs),
+                Arrays.copyOf(pairCounts, pairs), Arrays.copyOf(pairWeights, pairs), totalCalls);
+        }
+    }
+}
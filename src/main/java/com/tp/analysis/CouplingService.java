@@ -1,52 +1,267 @@
 package com.tp.analysis;
 
+import com.tp.model.CallGraph;
+import com.tp.model.SymbolTable;
+
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Service pour calculer les métriques de couplage entre classes
+ * Service pour calculer les métriques de couplage entre classes.
+ *
+ * Une instance correspond à une session d'analyse : les packages détectés et la dernière
+ * matrice calculée lui appartiennent. Plusieurs instances peuvent compter en même temps
+ * (projets différents) en partageant un même ForkJoinPool sans interférer.
  */
 public class CouplingService {
 
-  private static Set<String> projectPackages = new HashSet<>();
+  // Nom court partagé par plusieurs classes du projet
+  private static final int AMBIGUOUS = -1;
+
+  // En dessous de ce nombre d'arêtes, le comptage reste sur le thread appelant
+  private static final int PARALLEL_THRESHOLD = 200_000;
+
+  // Tâches par thread du pool : équilibre les classes aux degrés très différents
+  private static final int TASKS_PER_THREAD = 8;
+
+  // Pool des tâches de comptage, éventuellement partagé entre sessions
+  private final ForkJoinPool pool;
+
+  // Packages détectés et matrice du dernier comptage, publiés une fois complets
+  private volatile PackageTrie projectPackages = new PackageTrie();
+  private volatile Map<String, Map<String, Integer>> couplingMatrix = Map.of();
+  // Matrice creuse symétrique du dernier comptage, construite à la demande
+  private CouplingMatrix coupling;
+
+  /**
+   * Session de couplage utilisant le ForkJoinPool commun.
+   */
+  public CouplingService() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Session de couplage dont les tâches parallèles s'exécutent sur pool.
+   */
+  public CouplingService(ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool, "pool");
+  }
   
   /**
-   * Compte les appels inter-classes à partir du graphe d'appel
+   * Compte les appels inter-classes à partir du graphe d'appel.
+   * Les packages du projet sont ceux des clés : chaque méthode déclarée dans les sources
+   * doit y figurer, même sans appel (comme dans ParserAnalyzer.getCallGraph()).
    */
-  public static Map<String, Map<String, Integer>> countInterClassCalls(
+  public Map<String, Map<String, Integer>> countInterClassCalls(
       Map<String, Set<String>> callGraph) {
+    return countInterClassCalls(CallGraph.fromMap(callGraph));
+  }
+
+  /**
+   * Compte les appels inter-classes à partir du graphe d'appel compact.
+   * La classe de chaque méthode est résolue une seule fois par identifiant de classe,
+   * et l'unicité d'un appel (paire de classes, méthode appelée) est testée sur des entiers.
+   * Sur un grand graphe, les classes appelantes sont réparties entre les threads du
+   * pool de la session ; le résultat est identique au calcul séquentiel.
+   */
+  public Map<String, Map<String, Integer>> countInterClassCalls(CallGraph callGraph) {
+    return countInterClassCalls(callGraph, PhaseMetrics.NONE);
+  }
+
+  /**
+   * Compte les appels inter-classes en mesurant l'étape "Couplage"
+   * (méthodes et arêtes parcourues, paires de classes, appels uniques).
+   * Synchronisé par session : deux sessions distinctes comptent en parallèle.
+   */
+  public synchronized Map<String, Map<String, Integer>> countInterClassCalls(
+      CallGraph callGraph, PhaseMetrics metrics) {
+    try (PhaseMetrics.Scope phase = metrics.start("Couplage")) {
+      Map<String, Map<String, Integer>> counts = countCalls(callGraph, phase);
+      couplingMatrix = counts;
+      coupling = null;
+      phase.count("methods", callGraph.nodeCount())
+           .count("edges", callGraph.edgeCount())
+           .count("classPairs", counts.values().stream().mapToInt(Map::size).sum())
+           .count("calls", totalInterClassEdges(counts));
+      return counts;
+    }
+  }
+
+  private Map<String, Map<String, Integer>> countCalls(CallGraph callGraph, PhaseMetrics.Scope phase) {
+    SymbolTable symbols = callGraph.getSymbols();
+    int[] classOf = resolveClasses(callGraph);
+    PackageTrie packages = detectProjectPackages(callGraph, classOf);
+    projectPackages = packages;
+
+    // Appartenance au projet de chaque classe, calculée une fois avant le travail parallèle
+    boolean[] projectClass = new boolean[symbols.classCount()];
+    for (int id = 0; id < projectClass.length; id++) {
+      projectClass[id] = packages.covers(getPackageName(symbols.className(id)));
+    }
 
+    // Nœuds groupés par classe appelante (CSR) : tous les appels d'une classe
+    // sont traités par une même tâche, l'unicité se teste donc sans état partagé
+    int classCount = symbols.classCount();
+    int[] nodeClass = new int[callGraph.nodeCount()];
+    int[] classStart = new int[classCount + 1];
+    // Position globale de la première arête de chaque nœud (ordre de parcours séquentiel)
+    int[] edgeStart = new int[callGraph.nodeCount()];
+    for (int node = 0, position = 0; node < nodeClass.length; node++) {
+      edgeStart[node] = position;
+      position += callGraph.degree(node);
+      int callerClass = classOfMethod(callGraph.caller(node), symbols, classOf);
+      nodeClass[node] = callerClass >= 0 && projectClass[callerClass] ? callerClass : -1;
+      if (nodeClass[node] >= 0) classStart[nodeClass[node] + 1]++;
+    }
+    for (int c = 0; c < classCount; c++) classStart[c + 1] += classStart[c];
+    int[] nodesByClass = new int[classStart[classCount]];
+    int[] fill = Arrays.copyOf(classStart, classCount);
+    for (int node = 0; node < nodeClass.length; node++) {
+      if (nodeClass[node] >= 0) nodesByClass[fill[nodeClass[node]]++] = node;
+    }
+
+    // Classe appelée (+ 1) à la position de la première arête de chaque appel unique, 0 ailleurs
+    int[] uniqueCallee = new int[callGraph.edgeCount()];
+    int parallelism = pool.getParallelism();
+    CallerClassTask task = new CallerClassTask(callGraph, classOf, projectClass, classStart, nodesByClass,
+        edgeStart, uniqueCallee, 0, classCount, Math.max(1, classCount / (parallelism * TASKS_PER_THREAD)),
+        phase, Thread.currentThread());
+    if (callGraph.edgeCount() < PARALLEL_THRESHOLD || parallelism == 1) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
+
+    // Comptage dans l'ordre des arêtes, comme un parcours séquentiel : les maps reçoivent
+    // les mêmes opérations dans le même ordre, donc le même ordre d'itération (dont dépend
+    // le départage des égalités du clustering), quel que soit le découpage en tâches
     Map<String, Map<String, Integer>> counts = new HashMap<>();
-    detectProjectPackages(callGraph);
-    Set<String> uniqueCalls = new HashSet<>();
-
-    for (var e : callGraph.entrySet()) {
-      String callerClass = classOf(e.getKey(), callGraph);
-      if (!isProjectClass(callerClass)) continue;
-
-      for (String calleeMethod : e.getValue()) {
-        String calleeClass = classOf(calleeMethod, callGraph);
-        if (calleeClass == null) continue;
-        if (!isProjectClass(calleeClass)) continue;
-        if (callerClass.equals(calleeClass)) continue;
-
-        String a = callerClass.compareTo(calleeClass) <= 0 ? callerClass : calleeClass;
-        String b = callerClass.compareTo(calleeClass) <= 0 ? calleeClass : callerClass;
-        
-        String uniqueCall = a + " -> " + b + " -> " + calleeMethod;
-        
-        if (!uniqueCalls.contains(uniqueCall)) {
-          uniqueCalls.add(uniqueCall);
-          counts.computeIfAbsent(a, k -> new HashMap<>())
-                .merge(b, 1, Integer::sum);
-        }
+    for (int node = 0; node < nodeClass.length; node++) {
+      if (nodeClass[node] < 0) continue;
+      String callerName = symbols.className(nodeClass[node]);
+      for (int position = edgeStart[node], end = position + callGraph.degree(node); position < end; position++) {
+        if (uniqueCallee[position] == 0) continue;
+        String calleeName = symbols.className(uniqueCallee[position] - 1);
+        String a = callerName.compareTo(calleeName) <= 0 ? callerName : calleeName;
+        String b = callerName.compareTo(calleeName) <= 0 ? calleeName : callerName;
+        counts.computeIfAbsent(a, x -> new HashMap<>())
+              .merge(b, 1, Integer::sum);
       }
     }
     return counts;
   }
 
+  /**
+   * Tâche fork/join sur une plage de classes appelantes [from, to) : pour chaque classe,
+   * les méthodes appelées distinctes sont obtenues par tri et dédoublonnage sur des entiers,
+   * et la première arête de chaque appel unique vers une autre classe du projet est marquée.
+   * Les tâches écrivent à des positions disjointes (les arêtes de leurs classes).
+   */
+  private static final class CallerClassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final CallGraph callGraph;
+    private final int[] classOf;
+    private final boolean[] projectClass;
+    private final int[] classStart;
+    private final int[] nodesByClass;
+    private final int[] edgeStart;
+    private final int[] uniqueCallee;
+    private final int from;
+    private final int to;
+    private final int grain;
+    private final PhaseMetrics.Scope phase;
+    // Thread de l'étape : son temps CPU y est déjà compté
+    private final Thread owner;
+
+    CallerClassTask(CallGraph callGraph, int[] classOf, boolean[] projectClass, int[] classStart,
+                    int[] nodesByClass, int[] edgeStart, int[] uniqueCallee, int from, int to, int grain,
+                    PhaseMetrics.Scope phase, Thread owner) {
+      this.callGraph = callGraph;
+      this.classOf = classOf;
+      this.projectClass = projectClass;
+      this.classStart = classStart;
+      this.nodesByClass = nodesByClass;
+      this.edgeStart = edgeStart;
+      this.uniqueCallee = uniqueCallee;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+      this.phase = phase;
+      this.owner = owner;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > grain) {
+        int mid = (from + to) >>> 1;
+        invokeAll(
+            new CallerClassTask(callGraph, classOf, projectClass, classStart, nodesByClass, edgeStart,
+                uniqueCallee, from, mid, grain, phase, owner),
+            new CallerClassTask(callGraph, classOf, projectClass, classStart, nodesByClass, edgeStart,
+                uniqueCallee, mid, to, grain, phase, owner));
+        return;
+      }
+      if (Thread.currentThread() == owner) {
+        markUniqueCalls();
+        return;
+      }
+      try {
+        phase.track(() -> {
+          markUniqueCalls();
+          return null;
+        }).call();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private void markUniqueCalls() {
+      SymbolTable symbols = callGraph.getSymbols();
+      // (méthode appelée << 32) | position de l'arête : triés, les appels d'une même
+      // méthode se suivent, le premier étant sur l'arête la plus ancienne
+      long[] calls = new long[16];
+      for (int callerClass = from; callerClass < to; callerClass++) {
+        int start = classStart[callerClass];
+        int end = classStart[callerClass + 1];
+        if (start == end) continue;
+
+        // Méthodes appelées par la classe, toutes méthodes appelantes confondues
+        int size = 0;
+        for (int i = start; i < end; i++) {
+          int node = nodesByClass[i];
+          int degree = callGraph.degree(node);
+          if (size + degree > calls.length) {
+            calls = Arrays.copyOf(calls, Math.max(calls.length * 2, size + degree));
+          }
+          for (int k = 0; k < degree; k++) {
+            calls[size++] = ((long) callGraph.callee(node, k) << 32) | (edgeStart[node] + k);
+          }
+        }
+        Arrays.sort(calls, 0, size);
+
+        // Appel unique = (classe appelante, méthode appelée) ; la méthode appelée
+        // détermine sa classe, donc la paire non ordonnée de classes
+        int previous = -1;
+        for (int i = 0; i < size; i++) {
+          int calleeMethod = (int) (calls[i] >>> 32);
+          if (calleeMethod == previous) continue;
+          previous = calleeMethod;
+          int calleeClass = classOfMethod(calleeMethod, symbols, classOf);
+          if (calleeClass < 0 || !projectClass[calleeClass] || calleeClass == callerClass) continue;
+          uniqueCallee[(int) calls[i]] = calleeClass + 1;
+        }
+      }
+    }
+  }
+
   /**
    * Calcule le nombre total d'arêtes inter-classes
    */
@@ -78,67 +293,83 @@ public class CouplingService {
     return weights;
   }
 
-  private static String classOf(String fullMethod, Map<String, Set<String>> callGraph) {
-    if (fullMethod == null) return null;
-    int lastDot = fullMethod.lastIndexOf('.');
-    if (lastDot <= 0) return null;
-    
-    String className = fullMethod.substring(0, lastDot);
-    
-    if (isSimpleClassName(className)) {
-      for (String methodName : callGraph.keySet()) {
-        String methodClassName = extractClassNameFromMethod(methodName);
-        if (methodClassName != null) {
-          String shortClassName = getShortClassName(methodClassName);
-          if (shortClassName.equalsIgnoreCase(className)) {
-            return methodClassName;
-          }
-        }
+  /**
+   * Résout chaque classe de la table : un nom simple ("Car", issu d'une inférence)
+   * est rattaché à la classe appelante de même nom court (casse ignorée).
+   * Si plusieurs classes appelantes partagent ce nom court, le nom est ambigu et
+   * reste non résolu (-1) : les appels correspondants sont ignorés par le couplage.
+   * Sans correspondance, le nom simple est conservé tel quel. -1 si aucune classe.
+   */
+  private static int[] resolveClasses(CallGraph callGraph) {
+    SymbolTable symbols = callGraph.getSymbols();
+    Map<String, Integer> shortNameIndex = buildShortNameIndex(callGraph);
+    int[] classOf = new int[symbols.classCount()];
+    for (int id = 0; id < classOf.length; id++) {
+      String className = symbols.className(id);
+      if (className.isEmpty()) {
+        classOf[id] = -1;
+      } else if (isSimpleClassName(className)) {
+        Integer match = shortNameIndex.get(className.toLowerCase(Locale.ROOT));
+        classOf[id] = match != null ? match : id;
+      } else {
+        classOf[id] = id;
       }
     }
-    
-    return className;
+    return classOf;
   }
-  
+
+  /**
+   * Index nom court (minuscules) -> identifiant de la classe appelante,
+   * construit en un seul passage sur les appelants ; AMBIGUOUS si plusieurs classes.
+   */
+  private static Map<String, Integer> buildShortNameIndex(CallGraph callGraph) {
+    SymbolTable symbols = callGraph.getSymbols();
+    Map<String, Integer> index = new HashMap<>();
+    for (int node = 0; node < callGraph.nodeCount(); node++) {
+      int callerClass = symbols.methodClass(callGraph.caller(node));
+      if (callerClass == SymbolTable.NO_CLASS || symbols.className(callerClass).isEmpty()) continue;
+      String shortName = getShortClassName(symbols.className(callerClass)).toLowerCase(Locale.ROOT);
+      index.merge(shortName, callerClass, (a, b) -> a.equals(b) ? a : AMBIGUOUS);
+    }
+    return index;
+  }
+
+  private static int classOfMethod(int methodId, SymbolTable symbols, int[] classOf) {
+    int classId = symbols.methodClass(methodId);
+    return classId == SymbolTable.NO_CLASS ? -1 : classOf[classId];
+  }
+
   private static boolean isSimpleClassName(String className) {
     return className != null && !className.contains(".");
   }
   
-  private static String extractClassNameFromMethod(String methodName) {
-    if (methodName == null) return null;
-    int lastDot = methodName.lastIndexOf('.');
-    if (lastDot <= 0) return null;
-    return methodName.substring(0, lastDot);
-  }
-  
   private static String getShortClassName(String fullClassName) {
     if (fullClassName == null) return null;
     int lastDot = fullClassName.lastIndexOf('.');
     return lastDot >= 0 ? fullClassName.substring(lastDot + 1) : fullClassName;
   }
 
-  private static void detectProjectPackages(Map<String, Set<String>> callGraph) {
-    projectPackages.clear();
+  /**
+   * Détecte les packages du projet à partir des appelants uniquement :
+   * les appelants sont toujours des méthodes déclarées dans les sources,
+   * alors que les appelés résolus par binding peuvent appartenir à des bibliothèques (java.*, etc.).
+   * Une classe du projet qui est appelée sans rien appeler reste détectée : ParserAnalyzer
+   * crée un nœud pour chaque méthode déclarée, même sans appel (degré 0).
+   */
+  private static PackageTrie detectProjectPackages(CallGraph callGraph, int[] classOf) {
+    PackageTrie projectPackages = new PackageTrie();
+    SymbolTable symbols = callGraph.getSymbols();
     
-    for (var entry : callGraph.entrySet()) {
-      String callerClass = classOf(entry.getKey(), callGraph);
-      if (callerClass != null) {
-        String packageName = getPackageName(callerClass);
+    for (int node = 0; node < callGraph.nodeCount(); node++) {
+      int callerClass = classOfMethod(callGraph.caller(node), symbols, classOf);
+      if (callerClass >= 0) {
+        String packageName = getPackageName(symbols.className(callerClass));
         if (packageName != null && !packageName.isEmpty()) {
           projectPackages.add(packageName);
         }
       }
-      
-      for (String calleeMethod : entry.getValue()) {
-        String calleeClass = classOf(calleeMethod, callGraph);
-        if (calleeClass != null) {
-          String packageName = getPackageName(calleeClass);
-          if (packageName != null && !packageName.isEmpty()) {
-            projectPackages.add(packageName);
-          }
-        }
-      }
     }
+    return projectPackages;
   }
   
   private static String getPackageName(String fullClassName) {
@@ -148,29 +379,80 @@ public class CouplingService {
     return fullClassName.substring(0, lastDot);
   }
   
-  private static boolean isProjectClass(String className) {
-    if (className == null) return false;
-    
-    String packageName = getPackageName(className);
-    if (packageName == null) return false;
-    
-    for (String projectPackage : projectPackages) {
-      if (packageName.equals(projectPackage) || 
-          packageName.startsWith(projectPackage + ".") ||
-          projectPackage.startsWith(packageName + ".")) {
-        return true;
-      }
-    }
-    
-    return false;
+  /**
+   * Packages du projet détectés lors du dernier comptage de cette session (copie).
+   */
+  public Set<String> getDetectedPackages() {
+    return new HashSet<>(projectPackages.packages);
   }
-  
-  public static Set<String> getDetectedPackages() {
-    return new HashSet<>(projectPackages);
+
+  /**
+   * Matrice de couplage du dernier comptage de cette session (vide avant le premier).
+   */
+  public Map<String, Map<String, Integer>> getCouplingMatrix() {
+    return couplingMatrix;
+  }
+
+  /**
+   * Matrice creuse symétrique du dernier comptage (poids normalisés par le total des appels),
+   * à transmettre au clustering et à l'export ; construite une fois par comptage.
+   */
+  public synchronized CouplingMatrix getCoupling() {
+    if (coupling == null) {
+      coupling = CouplingMatrix.fromCounts(couplingMatrix);
+    }
+    return coupling;
   }
   
-  public static void resetPackageDetection() {
-    projectPackages.clear();
+  /**
+   * Arbre préfixe des packages du projet, segment par segment ("com" -> "tp" -> "model").
+   * Un package est couvert s'il est égal à un package du projet, s'il en est un
+   * sous-package, ou s'il en est un package parent : le test coûte un pas par segment
+   * du package testé, quel que soit le nombre de packages du projet.
+   */
+  private static final class PackageTrie {
+    private final Node root = new Node();
+    // Packages ajoutés, pour getDetectedPackages()
+    private final Set<String> packages = new HashSet<>();
+
+    private static final class Node {
+      private final Map<String, Node> children = new HashMap<>();
+      // Un package du projet se termine sur ce nœud
+      private boolean terminal;
+    }
+
+    void add(String packageName) {
+      if (!packages.add(packageName)) return;
+      Node node = root;
+      int start = 0;
+      while (true) {
+        int dot = packageName.indexOf('.', start);
+        String segment = dot < 0 ? packageName.substring(start) : packageName.substring(start, dot);
+        node = node.children.computeIfAbsent(segment, x -> new Node());
+        if (dot < 0) break;
+        start = dot + 1;
+      }
+      node.terminal = true;
+    }
+
+    /**
+     * Vrai si un package du projet est un préfixe (par segments) de packageName ou l'inverse.
+     * Tout nœud de l'arbre mène à un package du projet : un chemin parcouru jusqu'au bout
+     * signifie donc que packageName est un package du projet ou l'un de ses parents.
+     */
+    boolean covers(String packageName) {
+      if (packageName == null) return false;
+      Node node = root;
+      int start = 0;
+      while (true) {
+        int dot = packageName.indexOf('.', start);
+        String segment = dot < 0 ? packageName.substring(start) : packageName.substring(start, dot);
+        node = node.children.get(segment);
+        if (node == null) return false;
+        if (node.terminal || dot < 0) return true;
+        start = dot + 1;
+      }
+    }
   }
   
 }
\ No newline at end of file
@@ -8,37 +8,113 @@ import java.util.*;
  */
 public class DendrogramNode {
     private final String id;
-    private final Set<String> classes;
     private final DendrogramNode left;
     private final DendrogramNode right;
     private final double coupling;
     private final int level;
+    // Somme des couplages entre toutes les paires de classes du nœud, cumulée à chaque fusion
+    // (NaN si inconnue : nœud construit sans la somme entre ses deux fils),
+    // et matrice sur laquelle elle a été calculée (null pour une feuille : somme nulle pour toute matrice)
+    private final double internalCoupling;
+    private final CouplingMatrix internalCouplingSource;
+    
+    // Classes du nœud : identifiants triés dans une table de noms triée, partagée
+    // par tous les nœuds d'un même clustering (identifiant = rang du nom).
+    // Calculés une fois à la création du nœud ; getClasses() en est une vue en lecture seule.
+    private final String[] leafNames;
+    private final int[] leafIds;
+    private final Set<String> classesView;
     
     /**
      * Constructeur pour une feuille (classe individuelle).
      */
     public DendrogramNode(String className) {
+        this(className, new String[] {className}, 0);
+    }
+    
+    private DendrogramNode(String className, String[] leafNames, int leafId) {
         this.id = className;
-        this.classes = new HashSet<>();
-        this.classes.add(className);
         this.left = null;
         this.right = null;
         this.coupling = 0.0;
         this.level = 0;
+        this.internalCoupling = 0.0;
+        this.internalCouplingSource = null;
+        this.leafNames = leafNames;
+        this.leafIds = new int[] {leafId};
+        this.classesView = new LeafSet();
     }
     
     /**
-     * Constructeur pour un cluster (nœud interne).
+     * Constructeur pour un cluster (nœud interne), sans somme interne de couplage.
      */
     public DendrogramNode(String id, DendrogramNode left, DendrogramNode right, double coupling, int level) {
+        this(id, left, right, coupling, level, Double.NaN, null);
+    }
+    
+    /**
+     * Constructeur pour un cluster (nœud interne) dont on connaît la somme des couplages
+     * entre les classes des deux fils, lue dans la matrice source : la somme interne du nœud
+     * est celle des fils plus crossCoupling. Elle reste inconnue si un fils interne
+     * a été calculé sur une autre matrice.
+     */
+    public DendrogramNode(String id, DendrogramNode left, DendrogramNode right, double coupling, int level,
+                          double crossCoupling, CouplingMatrix source) {
         this.id = id;
-        this.classes = new HashSet<>();
-        this.classes.addAll(left.getClasses());
-        this.classes.addAll(right.getClasses());
         this.left = left;
         this.right = right;
         this.coupling = coupling;
         this.level = level;
+        if (left.leafNames == right.leafNames) {
+            this.leafNames = left.leafNames;
+            this.leafIds = mergeSorted(left.leafIds, right.leafIds);
+        } else {
+            // Fils issus de tables différentes : nouvelle table limitée aux classes du nœud
+            TreeSet<String> names = new TreeSet<>(left.getClasses());
+            names.addAll(right.getClasses());
+            this.leafNames = names.toArray(new String[0]);
+            this.leafIds = new int[leafNames.length];
+            for (int i = 0; i < leafIds.length; i++) leafIds[i] = i;
+        }
+        this.classesView = new LeafSet();
+        // Fils disjoints uniquement : sinon des paires seraient comptées deux fois
+        boolean sameSource = source != null
+            && (left.isLeaf() || left.internalCouplingSource == source)
+            && (right.isLeaf() || right.internalCouplingSource == source);
+        boolean known = sameSource && leafIds.length == left.leafIds.length + right.leafIds.length;
+        this.internalCoupling = known
+            ? left.internalCoupling + right.internalCoupling + crossCoupling
+            : Double.NaN;
+        this.internalCouplingSource = known ? source : null;
+    }
+    
+    /**
+     * Crée les feuilles d'un clustering, dans l'ordre donné, en partageant une même
+     * table de noms : la fusion de leurs ensembles de classes se fait alors sur des entiers.
+     */
+    public static List<DendrogramNode> createLeaves(List<String> classNames) {
+        String[] table = new TreeSet<>(classNames).toArray(new String[0]);
+        List<DendrogramNode> leaves = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            leaves.add(new DendrogramNode(className, table, Arrays.binarySearch(table, className)));
+        }
+        return leaves;
+    }
+    
+    /**
+     * Union de deux tableaux triés (sans doublon).
+     */
+    private static int[] mergeSorted(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) merged[k++] = a[i++];
+            else if (a[i] > b[j]) merged[k++] = b[j++];
+            else { merged[k++] = a[i++]; j++; }
+        }
+        while (i < a.length) merged[k++] = a[i++];
+        while (j < b.length) merged[k++] = b[j++];
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
     }
     
     /**
@@ -56,10 +132,10 @@ public class DendrogramNode {
     }
     
     /**
-     * Retourne l'ensemble des classes contenues dans ce nœud.
+     * Retourne l'ensemble des classes contenues dans ce nœud (vue en lecture seule, triée).
      */
     public Set<String> getClasses() {
-        return new HashSet<>(classes);
+        return classesView;
     }
     
     /**
@@ -91,32 +167,49 @@ public class DendrogramNode {
     }
     
     /**
-     * Retourne le nombre de classes dans ce nœud (compte toutes les classes feuilles uniquement).
+     * Retourne le nombre de classes dans ce nœud (classes feuilles distinctes).
      */
     public int getClassCount() {
-        if (isLeaf()) {
-            return 1;
-        }
-        
-        Set<String> allClasses = new HashSet<>();
-        collectLeaves(this, allClasses);
-        return allClasses.size();
+        return leafIds.length;
     }
     
     /**
-     * Collecte toutes les classes feuilles du dendrogramme.
+     * Indique si la somme interne de couplage est connue pour ce nœud (et donc pour tout son sous-arbre).
      */
-    private void collectLeaves(DendrogramNode node, Set<String> classes) {
-        if (node.isLeaf()) {
-            classes.add(node.getId());
-        } else {
-            if (node.getLeft() != null) {
-                collectLeaves(node.getLeft(), classes);
-            }
-            if (node.getRight() != null) {
-                collectLeaves(node.getRight(), classes);
-            }
-        }
+    public boolean hasInternalCoupling() {
+        return !Double.isNaN(internalCoupling);
+    }
+    
+    /**
+     * Indique si la somme interne de couplage est connue et a été calculée sur cette matrice
+     * (comparée par identité) ; toujours vrai pour une feuille.
+     */
+    public boolean hasInternalCoupling(CouplingMatrix coupling) {
+        return isLeaf() || (hasInternalCoupling() && internalCouplingSource == coupling);
+    }
+    
+    /**
+     * Retourne la somme des couplages entre toutes les paires de classes du nœud (NaN si inconnue).
+     */
+    public double getInternalCoupling() {
+        return internalCoupling;
+    }
+    
+    /**
+     * Retourne le nombre de paires de classes du nœud.
+     */
+    public long getInternalPairCount() {
+        long n = leafIds.length;
+        return n * (n - 1) / 2;
+    }
+    
+    /**
+     * Retourne le couplage moyen entre les paires de classes du nœud, en O(1)
+     * (0 pour une seule classe, NaN si la somme interne est inconnue).
+     */
+    public double getAverageInternalCoupling() {
+        long pairs = getInternalPairCount();
+        return pairs > 0 ? internalCoupling / pairs : 0.0;
     }
     
     /**
@@ -127,7 +220,7 @@ public class DendrogramNode {
         if (isLeaf()) {
             return "Leaf(" + id + ")";
         } else {
-            return "Cluster(" + id + ", coupling=" + String.format("%.3f", coupling) + ", classes=" + classes.size() + ")";
+            return "Cluster(" + id + ", coupling=" + String.format("%.3f", coupling) + ", classes=" + leafIds.length + ")";
         }
     }
     
@@ -139,8 +232,43 @@ public class DendrogramNode {
             return "Leaf(" + id + ")";
         } else {
             return "Cluster(" + id + ", coupling=" + String.format("%.3f", coupling) + 
-                   ", level=" + level + ", classes=" + classes.size() + 
-                   ", classes=" + classes + ")";
+                   ", level=" + level + ", classes=" + leafIds.length + 
+                   ", classes=" + classesView + ")";
+        }
+    }
+    
+    /**
+     * Vue ensembliste des classes du nœud, sans copie.
+     */
+    private final class LeafSet extends AbstractSet<String> {
+        @Override
+        public int size() {
+            return leafIds.length;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) return false;
+            int index = Arrays.binarySearch(leafNames, o);
+            return index >= 0 && Arrays.binarySearch(leafIds, index) >= 0;
+        }
+        
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next;
+                
+                @Override
+                public boolean hasNext() {
+                    return next < leafIds.length;
+                }
+                
+                @Override
+                public String next() {
+                    if (next >= leafIds.length) throw new NoSuchElementException();
+                    return leafNames[leafIds[next++]];
+                }
+            };
         }
     }
 }
@@ -8,18 +8,32 @@ import java.util.stream.Collectors;
 /**
  * Générateur de graphe de couplage pondéré à partir des résultats d'analyse.
  * Supporte plusieurs formats de sortie : DOT (Graphviz), JSON, et CSV.
+ * Chaque paire de classes couplées donne une arête, de la classe de plus petit nom
+ * vers l'autre, parcourue sur les lignes de la {@link CouplingMatrix}.
  */
 public class GraphGenerator {
     
-    private final Map<String, Map<String, Double>> couplingWeights;
-    private final Map<String, Map<String, Integer>> couplingCounts;
+    private final CouplingMatrix coupling;
     private final int totalInterClassEdges;
     
+    // Poids décroissant, puis noms des classes : ordre stable d'une exécution à l'autre
+    private static final Comparator<CouplingEdge> BY_WEIGHT =
+        Comparator.<CouplingEdge>comparingDouble(e -> -e.weight)
+                  .thenComparing(e -> e.source)
+                  .thenComparing(e -> e.target);
+    
     public GraphGenerator(Map<String, Map<String, Double>> couplingWeights,
                          Map<String, Map<String, Integer>> couplingCounts,
                          int totalInterClassEdges) {
-        this.couplingWeights = couplingWeights;
-        this.couplingCounts = couplingCounts;
+        this(CouplingMatrix.fromMaps(couplingCounts, couplingWeights), totalInterClassEdges);
+    }
+    
+    public GraphGenerator(CouplingMatrix coupling) {
+        this(coupling, coupling.totalCalls());
+    }
+    
+    private GraphGenerator(CouplingMatrix coupling, int totalInterClassEdges) {
+        this.coupling = coupling;
         this.totalInterClassEdges = totalInterClassEdges;
     }
     
@@ -36,18 +50,13 @@ public class GraphGenerator {
             writer.write("  node [shape=box, style=filled, fillcolor=lightblue];\n");
             writer.write("  edge [fontsize=10];\n\n");
             
-            // Collecter toutes les classes impliquées
-            Set<String> allClasses = new HashSet<>();
-            for (var entry : couplingWeights.entrySet()) {
-                allClasses.add(entry.getKey());
-                allClasses.addAll(entry.getValue().keySet());
-            }
-            
             // Limiter le nombre de nœuds si nécessaire
-            List<String> classesToShow = allClasses.stream()
+            List<String> classesToShow = coupling.classNames().stream()
                 .sorted()
                 .limit(maxNodes)
                 .collect(Collectors.toList());
+            boolean[] shown = new boolean[coupling.classCount()];
+            for (String className : classesToShow) shown[coupling.idOf(className)] = true;
             
             // Ajouter les nœuds
             for (String className : classesToShow) {
@@ -58,23 +67,13 @@ public class GraphGenerator {
             
             // Ajouter les arêtes avec poids
             int edgeCount = 0;
-            for (var entry : couplingWeights.entrySet()) {
-                String source = entry.getKey();
-                if (!classesToShow.contains(source)) continue;
+            for (CouplingEdge edge : edges(minWeight)) {
+                if (!shown[coupling.idOf(edge.source)] || !shown[coupling.idOf(edge.target)]) continue;
                 
-                for (var targetEntry : entry.getValue().entrySet()) {
-                    String target = targetEntry.getKey();
-                    double weight = targetEntry.getValue();
-                    
-                    if (!classesToShow.contains(target) || weight < minWeight) continue;
-                    
-                    int count = couplingCounts.get(source).get(target);
-                    String label = String.format("%.3f (%d)", weight, count);
-                    
-                    writer.write(String.format("  \"%s\" -> \"%s\" [label=\"%s\", weight=%.3f];\n", 
-                        source, target, label, weight));
-                    edgeCount++;
-                }
+                String label = String.format("%.3f (%d)", edge.weight, edge.count);
+                writer.write(String.format("  \"%s\" -> \"%s\" [label=\"%s\", weight=%.3f];\n", 
+                    edge.source, edge.target, label, edge.weight));
+                edgeCount++;
             }
             
             writer.write("\n");
@@ -99,13 +98,7 @@ public class GraphGenerator {
             writer.write("  },\n");
             
             writer.write("  \"nodes\": [\n");
-            Set<String> allClasses = new HashSet<>();
-            for (var entry : couplingWeights.entrySet()) {
-                allClasses.add(entry.getKey());
-                allClasses.addAll(entry.getValue().keySet());
-            }
-            
-            List<String> sortedClasses = allClasses.stream().sorted().collect(Collectors.toList());
+            List<String> sortedClasses = coupling.classNames().stream().sorted().collect(Collectors.toList());
             for (int i = 0; i < sortedClasses.size(); i++) {
                 String className = sortedClasses.get(i);
                 String shortName = getShortClassName(className);
@@ -119,22 +112,13 @@ public class GraphGenerator {
             
             writer.write("  \"edges\": [\n");
             List<String> edges = new ArrayList<>();
-            for (var entry : couplingWeights.entrySet()) {
-                String source = entry.getKey();
-                for (var targetEntry : entry.getValue().entrySet()) {
-                    String target = targetEntry.getKey();
-                    double weight = targetEntry.getValue();
-                    
-                    if (weight < minWeight) continue;
-                    
-                    int count = couplingCounts.get(source).get(target);
-                    edges.add(String.format("    {\n" +
-                        "      \"source\": \"%s\",\n" +
-                        "      \"target\": \"%s\",\n" +
-                        "      \"weight\": %.6f,\n" +
-                        "      \"count\": %d\n" +
-                        "    }", source, target, weight, count));
-                }
+            for (CouplingEdge edge : edges(minWeight)) {
+                edges.add(String.format("    {\n" +
+                    "      \"source\": \"%s\",\n" +
+                    "      \"target\": \"%s\",\n" +
+                    "      \"weight\": %.6f,\n" +
+                    "      \"count\": %d\n" +
+                    "    }", edge.source, edge.target, edge.weight, edge.count));
             }
             
             for (int i = 0; i < edges.size(); i++) {
@@ -156,22 +140,10 @@ public class GraphGenerator {
         try (FileWriter writer = new FileWriter(outputFile)) {
             writer.write("Source,Target,Weight,Count,Percentage\n");
             
-            List<CouplingEdge> edges = new ArrayList<>();
-            for (var entry : couplingWeights.entrySet()) {
-                String source = entry.getKey();
-                for (var targetEntry : entry.getValue().entrySet()) {
-                    String target = targetEntry.getKey();
-                    double weight = targetEntry.getValue();
-                    
-                    if (weight < minWeight) continue;
-                    
-                    int count = couplingCounts.get(source).get(target);
-                    edges.add(new CouplingEdge(source, target, weight, count));
-                }
-            }
+            List<CouplingEdge> edges = edges(minWeight);
             
             // Trier par poids décroissant
-            edges.sort((e1, e2) -> Double.compare(e2.weight, e1.weight));
+            edges.sort(BY_WEIGHT);
             
             for (CouplingEdge edge : edges) {
                 double percentage = edge.weight * 100;
@@ -195,14 +167,9 @@ public class GraphGenerator {
         int edgesAboveThreshold = 0;
         double totalWeightAboveThreshold = 0.0;
         
-        for (var entry : couplingWeights.entrySet()) {
-            for (var targetEntry : entry.getValue().entrySet()) {
-                double weight = targetEntry.getValue();
-                if (weight >= minWeight) {
-                    edgesAboveThreshold++;
-                    totalWeightAboveThreshold += weight;
-                }
-            }
+        for (CouplingEdge edge : edges(minWeight)) {
+            edgesAboveThreshold++;
+            totalWeightAboveThreshold += edge.weight;
         }
         
         sb.append(String.format("Arêtes au-dessus du seuil: %d\n", edgesAboveThreshold));
@@ -210,19 +177,9 @@ public class GraphGenerator {
         
         // Top 10 des couplages les plus forts
         sb.append("\n=== TOP 10 DES COUPLAGES LES PLUS FORTS ===\n");
-        List<CouplingEdge> topEdges = new ArrayList<>();
+        List<CouplingEdge> topEdges = edges(Double.NEGATIVE_INFINITY);
         
-        for (var entry : couplingWeights.entrySet()) {
-            String source = entry.getKey();
-            for (var targetEntry : entry.getValue().entrySet()) {
-                String target = targetEntry.getKey();
-                double weight = targetEntry.getValue();
-                int count = couplingCounts.get(source).get(target);
-                topEdges.add(new CouplingEdge(source, target, weight, count));
-            }
-        }
-        
-        topEdges.sort((e1, e2) -> Double.compare(e2.weight, e1.weight));
+        topEdges.sort(BY_WEIGHT);
         
         for (int i = 0; i < Math.min(10, topEdges.size()); i++) {
             CouplingEdge edge = topEdges.get(i);
@@ -234,6 +191,27 @@ public class GraphGenerator {
         return sb.toString();
     }
     
+    /**
+     * Arêtes de poids au moins minWeight : une par paire de classes couplées,
+     * dans l'ordre des lignes de la matrice.
+     */
+    List<CouplingEdge> edges(double minWeight) {
+        List<CouplingEdge> edges = new ArrayList<>();
+        for (int i = 0; i < coupling.classCount(); i++) {
+            for (int k = 0; k < coupling.degree(i); k++) {
+                int j = coupling.neighbor(i, k);
+                double weight = coupling.weightAt(i, k);
+                if (j < i || weight < minWeight) continue;
+                String a = coupling.className(i);
+                String b = coupling.className(j);
+                String source = a.compareTo(b) <= 0 ? a : b;
+                String target = a.compareTo(b) <= 0 ? b : a;
+                edges.add(new CouplingEdge(source, target, weight, coupling.countAt(i, k)));
+            }
+        }
+        return edges;
+    }
+    
     /**
      * Extrait le nom court de la classe (sans le package).
      */
@@ -253,7 +231,7 @@ public class GraphGenerator {
     /**
      * Classe interne pour représenter une arête de couplage.
      */
-    private static class CouplingEdge {
+    static class CouplingEdge {
         final String source;
         final String target;
         final double weight;
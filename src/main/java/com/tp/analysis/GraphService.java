@@ -1,9 +1,8 @@
 package com.tp.analysis;
 
 import com.tp.ParserAnalyzer;
+import com.tp.model.CallGraph;
 
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Service utilitaire pour générer des graphes de couplage à partir d'un ParserAnalyzer.
@@ -21,27 +20,53 @@ public class GraphService {
      */
     public static String generateAllGraphs(ParserAnalyzer analyzer, String outputDir, 
                                          double minWeight, int maxNodes) {
+        return generateAllGraphs(analyzer, outputDir, minWeight, maxNodes, PhaseMetrics.NONE);
+    }
+    
+    /**
+     * Génère tous les formats de graphe en mesurant les étapes "Couplage"
+     * et "Export des graphes" (arêtes au-dessus du seuil, fichiers).
+     */
+    public static String generateAllGraphs(ParserAnalyzer analyzer, String outputDir,
+                                         double minWeight, int maxNodes, PhaseMetrics metrics) {
         try {
             // Calculer les métriques de couplage
-            Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-            Map<String, Map<String, Integer>> counts = CouplingService.countInterClassCalls(callGraph);
-            int total = CouplingService.totalInterClassEdges(counts);
-            Map<String, Map<String, Double>> weights = CouplingService.normalizeToCouplingWeights(counts, total);
-            
+            CallGraph callGraph = analyzer.getCompactCallGraph();
+            CouplingService couplingService = new CouplingService();
+            couplingService.countInterClassCalls(callGraph, metrics);
+            return generateAllGraphs(couplingService.getCoupling(), outputDir, minWeight, maxNodes, metrics);
+        } catch (Exception e) {
+            return "Erreur lors de la génération des graphes : " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Génère tous les formats de graphe à partir d'une matrice de couplage déjà calculée
+     * (le couplage n'est pas recalculé). Seule l'étape "Export des graphes" est mesurée.
+     */
+    public static String generateAllGraphs(CouplingMatrix coupling, String outputDir,
+                                         double minWeight, int maxNodes, PhaseMetrics metrics) {
+        try {
             // Créer le générateur
-            GraphGenerator graphGen = new GraphGenerator(weights, counts, total);
+            GraphGenerator graphGen = new GraphGenerator(coupling);
             
             // Générer les fichiers
             String dotFile = outputDir + "/coupling_graph.dot";
             String jsonFile = outputDir + "/coupling_graph.json";
             String csvFile = outputDir + "/coupling_report.csv";
             
-            graphGen.generateDotGraph(dotFile, minWeight, maxNodes);
-            graphGen.generateJsonGraph(jsonFile, minWeight);
-            graphGen.generateCsvReport(csvFile, minWeight);
+            String summary;
+            try (PhaseMetrics.Scope phase = metrics.start("Export des graphes")) {
+                graphGen.generateDotGraph(dotFile, minWeight, maxNodes);
+                graphGen.generateJsonGraph(jsonFile, minWeight);
+                graphGen.generateCsvReport(csvFile, minWeight);
+                summary = graphGen.generateTextSummary(minWeight);
+                phase.count("edges", coupling.pairCount(minWeight))
+                     .count("files", 3);
+            }
             
             // Retourner le résumé
-            return graphGen.generateTextSummary(minWeight) + 
+            return summary + 
                    "\n=== FICHIERS GÉNÉRÉS ===\n" +
                    "• " + dotFile + " (format Graphviz)\n" +
                    "• " + jsonFile + " (format JSON)\n" +
@@ -65,12 +90,10 @@ public class GraphService {
     public static String generateDotGraph(ParserAnalyzer analyzer, String outputFile, 
                                         double minWeight, int maxNodes) {
         try {
-            Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-            Map<String, Map<String, Integer>> counts = CouplingService.countInterClassCalls(callGraph);
-            int total = CouplingService.totalInterClassEdges(counts);
-            Map<String, Map<String, Double>> weights = CouplingService.normalizeToCouplingWeights(counts, total);
-            
-            GraphGenerator graphGen = new GraphGenerator(weights, counts, total);
+            CallGraph callGraph = analyzer.getCompactCallGraph();
+            CouplingService couplingService = new CouplingService();
+            couplingService.countInterClassCalls(callGraph);
+            GraphGenerator graphGen = new GraphGenerator(couplingService.getCoupling());
             graphGen.generateDotGraph(outputFile, minWeight, maxNodes);
             
             return "Graphe DOT généré avec succès : " + outputFile;
@@ -84,12 +107,10 @@ public class GraphService {
      */
     public static String getCouplingStatistics(ParserAnalyzer analyzer) {
         try {
-            Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-            Map<String, Map<String, Integer>> counts = CouplingService.countInterClassCalls(callGraph);
-            int total = CouplingService.totalInterClassEdges(counts);
-            Map<String, Map<String, Double>> weights = CouplingService.normalizeToCouplingWeights(counts, total);
-            
-            GraphGenerator graphGen = new GraphGenerator(weights, counts, total);
+            CallGraph callGraph = analyzer.getCompactCallGraph();
+            CouplingService couplingService = new CouplingService();
+            couplingService.countInterClassCalls(callGraph);
+            GraphGenerator graphGen = new GraphGenerator(couplingService.getCoupling());
             return graphGen.generateTextSummary(0.001);
         } catch (Exception e) {
             return "Erreur lors du calcul des statistiques : " + e.getMessage();
@@ -3,185 +3,157 @@ package com.tp.analysis;
 import java.util.*;
 
 /**
- * Clustering hiérarchique agglomératif pour regrouper les classes selon leur couplage
+ * Clustering hiérarchique agglomératif pour regrouper les classes selon leur couplage.
+ * Le couplage entre deux clusters est la moyenne des couplages entre leurs classes (lien moyen).
  */
 public class HierarchicalClustering {
     
-    private final Map<String, Map<String, Integer>> couplingMatrix;
-    private final Map<String, Map<String, Double>> couplingWeights;
+    private final CouplingMatrix coupling;
     private final List<String> classes;
+    private final ClusteringEngine engine;
+    private ClusteringListener listener = ClusteringListener.NONE;
+    
+    /**
+     * Algorithme de calcul des fusions.
+     * MATRIX : matrice de similarité complète et file de priorité (mémoire O(n²)).
+     * NN_CHAIN : chaîne des plus proches voisins sur la matrice creuse
+     * (mémoire proportionnelle au nombre de paires couplées, pour les très grands projets).
+     * AUTO : MATRIX jusqu'à AUTO_MATRIX_LIMIT classes, NN_CHAIN au-delà.
+     */
+    public enum Algorithm { AUTO, MATRIX, NN_CHAIN }
+    
+    // Au-delà, la matrice complète (n²/2 doubles) dépasse ~400 Mo
+    public static final int AUTO_MATRIX_LIMIT = 10_000;
     
     public HierarchicalClustering(Map<String, Map<String, Integer>> couplingMatrix, 
                                  Map<String, Map<String, Double>> couplingWeights) {
-        this.couplingMatrix = couplingMatrix;
-        this.couplingWeights = couplingWeights;
-        this.classes = extractClasses(couplingMatrix);
+        this(couplingMatrix, couplingWeights, Algorithm.AUTO);
     }
     
-    private List<String> extractClasses(Map<String, Map<String, Integer>> couplingMatrix) {
-        Set<String> classSet = new HashSet<>();
-        for (String source : couplingMatrix.keySet()) {
-            classSet.add(source);
-            for (String target : couplingMatrix.get(source).keySet()) {
-                classSet.add(target);
-            }
+    public HierarchicalClustering(Map<String, Map<String, Integer>> couplingMatrix, 
+                                 Map<String, Map<String, Double>> couplingWeights,
+                                 Algorithm algorithm) {
+        this(CouplingMatrix.fromMaps(couplingMatrix, couplingWeights), algorithm);
+    }
+    
+    public HierarchicalClustering(CouplingMatrix coupling) {
+        this(coupling, Algorithm.AUTO);
+    }
+    
+    /**
+     * Clustering des classes de la matrice ; les feuilles suivent l'ordre de ses identifiants.
+     */
+    public HierarchicalClustering(CouplingMatrix coupling, Algorithm algorithm) {
+        this.coupling = coupling;
+        this.classes = coupling.classNames();
+        this.engine = createEngine(algorithm, classes.size());
+    }
+    
+    private static ClusteringEngine createEngine(Algorithm algorithm, int classCount) {
+        switch (algorithm) {
+            case MATRIX:
+                return new MatrixClusteringEngine();
+            case NN_CHAIN:
+                return new NnChainClusteringEngine();
+            default:
+                return classCount <= AUTO_MATRIX_LIMIT ? new MatrixClusteringEngine() : new NnChainClusteringEngine();
         }
-        return new ArrayList<>(classSet);
     }
     
     /**
-     * Algorithme principal de clustering hiérarchique
+     * Définit l'écouteur de progression et de trace (ClusteringListener.NONE par défaut).
+     */
+    public void setListener(ClusteringListener listener) {
+        this.listener = listener != null ? listener : ClusteringListener.NONE;
+    }
+    
+    /**
+     * Algorithme principal de clustering hiérarchique.
+     * Les fusions (lien moyen) sont calculées par le moteur, puis le dendrogramme est construit.
      */
     public DendrogramNode performClustering() {
-        System.out.println("=== DÉBUT CLUSTERING HIÉRARCHIQUE ===");
-        System.out.println("Classes à regrouper: " + classes.size());
-        
-        List<DendrogramNode> clusters = new ArrayList<>();
-        for (String className : classes) {
-            clusters.add(new DendrogramNode(className));
+        boolean trace = listener.isTraceEnabled();
+        if (trace) {
+            listener.trace("=== DÉBUT CLUSTERING HIÉRARCHIQUE ===");
+            listener.trace("Classes à regrouper: " + classes.size());
         }
         
+        // Nœuds indexés par numéro de création (feuilles puis clusters)
+        List<DendrogramNode> nodes = new ArrayList<>(DendrogramNode.createLeaves(classes));
+        
+        List<ClusteringEngine.Merge> merges = engine.cluster(coupling);
         int iteration = 0;
         
-        // Algorithme agglomératif
-        while (clusters.size() > 1) {
+        for (ClusteringEngine.Merge merge : merges) {
             iteration++;
-            System.out.println("\n--- Itération " + iteration + " ---");
-            System.out.println("Clusters restants: " + clusters.size());
-            
-            // Trouver les deux clusters les plus couplés
-            ClusterPair closestPair = findClosestClusters(clusters);
-            
-            if (closestPair == null) {
-                System.out.println("Aucune paire de clusters couplée trouvée. Arrêt du clustering.");
-                break;
-            }
-            
-            System.out.println("Clusters les plus couplés: " + 
-                             closestPair.cluster1.getId() + " et " + 
-                             closestPair.cluster2.getId() + 
-                             " (couplage: " + String.format("%.3f", closestPair.coupling) + ")");
+            DendrogramNode cluster1 = nodes.get(merge.left());
+            DendrogramNode cluster2 = nodes.get(merge.right());
             
             // Créer un nouveau cluster en fusionnant les deux plus proches
             String newClusterId = "Cluster_" + iteration;
             DendrogramNode newCluster = new DendrogramNode(
                 newClusterId, 
-                closestPair.cluster1, 
-                closestPair.cluster2, 
-                closestPair.coupling,
-                iteration
+                cluster1, 
+                cluster2, 
+                merge.coupling(),
+                iteration,
+                merge.crossSum(),
+                coupling
             );
+            nodes.add(newCluster);
             
-            // Mettre à jour la liste des clusters
-            clusters.remove(closestPair.cluster1);
-            clusters.remove(closestPair.cluster2);
-            clusters.add(newCluster);
-            
-            System.out.println("Nouveau cluster créé: " + newCluster.toDetailedString());
-        }
-        
-        // Retourner le cluster final (racine du dendrogramme)
-        DendrogramNode root = clusters.get(0);
-        System.out.println("\n=== FIN CLUSTERING HIÉRARCHIQUE ===");
-        System.out.println("Dendrogramme complet: " + root.toDetailedString());
-        
-        return root;
-    }
-    
-    /**
-     * Trouve les deux clusters les plus couplés.
-     */
-    private ClusterPair findClosestClusters(List<DendrogramNode> clusters) {
-        ClusterPair bestPair = null;
-        double maxCoupling = -1.0;
-        
-        for (int i = 0; i < clusters.size(); i++) {
-            for (int j = i + 1; j < clusters.size(); j++) {
-                DendrogramNode cluster1 = clusters.get(i);
-                DendrogramNode cluster2 = clusters.get(j);
-                
-                double coupling = calculateClusterCoupling(cluster1, cluster2);
-                
-                if (coupling > maxCoupling) {
-                    maxCoupling = coupling;
-                    bestPair = new ClusterPair(cluster1, cluster2, coupling);
-                }
+            if (trace) {
+                listener.trace("\n--- Itération " + iteration + " ---");
+                listener.trace("Clusters restants: " + (classes.size() - iteration + 1));
+                listener.trace("Clusters les plus couplés: " + 
+                             cluster1.getId() + " et " + 
+                             cluster2.getId() + 
+                             " (couplage: " + String.format("%.3f", merge.coupling()) + ")");
+                listener.trace("Nouveau cluster créé: " + newCluster.toDetailedString());
             }
+            listener.mergeProgress(iteration, merges.size());
         }
         
-        return bestPair;
-    }
-    
-    /**
-     * Calcule le couplage entre deux clusters.
-     * Utilise la moyenne des couplages entre toutes les paires de classes des deux clusters.
-     */
-    private double calculateClusterCoupling(DendrogramNode cluster1, DendrogramNode cluster2) {
-        double totalCoupling = 0.0;
-        int pairCount = 0;
-        
-        for (String class1 : cluster1.getClasses()) {
-            for (String class2 : cluster2.getClasses()) {
-                double coupling = getCouplingBetweenClasses(class1, class2);
-                totalCoupling += coupling;
-                pairCount++;
-            }
+        // Retourner le cluster final (racine du dendrogramme)
+        DendrogramNode root = nodes.get(nodes.size() - 1);
+        if (trace) {
+            listener.trace("\n=== FIN CLUSTERING HIÉRARCHIQUE ===");
+            listener.trace("Dendrogramme complet: " + root.toDetailedString());
         }
         
-        return pairCount > 0 ? totalCoupling / pairCount : 0.0;
-    }
-    
-    /**
-     * Obtient le couplage entre deux classes spécifiques.
-     */
-    private double getCouplingBetweenClasses(String class1, String class2) {
-        // Vérifier dans les deux directions
-        if (couplingWeights.containsKey(class1) && couplingWeights.get(class1).containsKey(class2)) {
-            return couplingWeights.get(class1).get(class2);
-        }
-        if (couplingWeights.containsKey(class2) && couplingWeights.get(class2).containsKey(class1)) {
-            return couplingWeights.get(class2).get(class1);
-        }
-        return 0.0;
+        return root;
     }
     
     /**
-     * Classe interne pour représenter une paire de clusters.
+     * Affiche le dendrogramme de manière hiérarchique.
      */
-    private static class ClusterPair {
-        final DendrogramNode cluster1;
-        final DendrogramNode cluster2;
-        final double coupling;
-        
-        ClusterPair(DendrogramNode cluster1, DendrogramNode cluster2, double coupling) {
-            this.cluster1 = cluster1;
-            this.cluster2 = cluster2;
-            this.coupling = coupling;
-        }
+    public void printDendrogram(DendrogramNode root) {
+        System.out.print(formatDendrogram(root));
     }
     
     /**
-     * Affiche le dendrogramme de manière hiérarchique.
+     * Représentation hiérarchique du dendrogramme (une ligne par nœud).
      */
-    public void printDendrogram(DendrogramNode root) {
-        System.out.println("\n=== DENDROGRAMME ===");
-        printDendrogramRecursive(root, 0);
+    public String formatDendrogram(DendrogramNode root) {
+        StringBuilder sb = new StringBuilder("\n=== DENDROGRAMME ===\n");
+        formatDendrogramRecursive(root, 0, sb);
+        return sb.toString();
     }
     
     /**
      * Affichage récursif du dendrogramme.
      */
-    private void printDendrogramRecursive(DendrogramNode node, int depth) {
+    private void formatDendrogramRecursive(DendrogramNode node, int depth, StringBuilder sb) {
         String indent = "  ".repeat(depth);
         
         if (node.isLeaf()) {
-            System.out.println(indent + "└─ " + node.getId());
+            sb.append(indent).append("└─ ").append(node.getId()).append("\n");
         } else {
-            System.out.println(indent + "├─ " + node.getId() + 
-                             " (couplage: " + String.format("%.3f", node.getCoupling()) + 
-                             ", classes: " + node.getClassCount() + ")");
-            printDendrogramRecursive(node.getLeft(), depth + 1);
-            printDendrogramRecursive(node.getRight(), depth + 1);
+            sb.append(indent).append("├─ ").append(node.getId())
+              .append(" (couplage: ").append(String.format("%.3f", node.getCoupling()))
+              .append(", classes: ").append(node.getClassCount()).append(")\n");
+            formatDendrogramRecursive(node.getLeft(), depth + 1, sb);
+            formatDendrogramRecursive(node.getRight(), depth + 1, sb);
         }
     }
 }
@@ -0,0 +1,192 @@
+package com.tp.analysis;
+
+import java.util.*;
+
+/**
+ * Clustering agglomératif par matrice de similarité et file de priorité.
+ *
+ * La matrice (triangulaire) contient pour chaque paire de clusters la somme S(A,B)
+ * des couplages entre leurs classes ; le couplage moyen est S(A,B) / (|A|.|B|).
+ * À la fusion de A et B, la mise à jour de Lance–Williams du lien moyen s'écrit
+ * S(A∪B, C) = S(A,C) + S(B,C) : une seule passe sur les clusters actifs.
+ *
+ * Chaque paire appartient à la ligne de son membre le plus ancien ; on garde pour
+ * chaque ligne sa meilleure paire, et une file triée (TreeSet) ordonne les lignes.
+ * Seules les lignes dont la meilleure paire touchait un cluster fusionné sont
+ * recalculées. Mémoire O(n²), temps O(n² log n) dans les cas usuels.
+ */
+class MatrixClusteringEngine implements ClusteringEngine {
+
+    // Limite de la matrice triangulaire (indices int)
+    static final int MAX_CLASSES = 65_000;
+
+    @Override
+    public List<Merge> cluster(CouplingMatrix matrix) {
+        int n = matrix.classCount();
+        if (n > MAX_CLASSES) {
+            throw new IllegalArgumentException("Trop de classes pour la matrice de similarité : " + n);
+        }
+        double[] sums = initialSums(matrix);
+
+        // Emplacement i : cluster actif de numéro seq[i] (le cluster fusionné reprend l'emplacement de gauche)
+        int[] seq = new int[n];
+        int[] size = new int[n];
+        boolean[] active = new boolean[n];
+        int[] bestPartner = new int[n];
+        double[] bestCoupling = new double[n];
+        int[] version = new int[n];
+        for (int i = 0; i < n; i++) {
+            seq[i] = i;
+            size[i] = 1;
+            active[i] = true;
+        }
+
+        TreeSet<RowBest> queue = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            scanRow(i, sums, seq, size, active, bestPartner, bestCoupling);
+            if (bestPartner[i] >= 0) queue.add(rowBest(i, seq, version, bestPartner, bestCoupling));
+        }
+
+        List<Merge> merges = new ArrayList<>(Math.max(0, n - 1));
+        int nextSeq = n;
+        while (merges.size() < n - 1) {
+            RowBest top = pollBest(queue, active, version);
+            int a = top.row;
+            int b = bestPartner[a];
+            merges.add(new Merge(seq[a], seq[b], bestCoupling[a], sums[index(a, b)]));
+
+            // Le cluster fusionné prend l'emplacement a, b disparaît
+            active[b] = false;
+            version[b]++;
+            for (int k = 0; k < n; k++) {
+                if (active[k] && k != a && k != b) {
+                    sums[index(a, k)] += sums[index(b, k)];
+                }
+            }
+            size[a] += size[b];
+            seq[a] = nextSeq++;
+            // Plus récent : aucune paire dans sa ligne
+            bestPartner[a] = -1;
+            version[a]++;
+
+            for (int k = 0; k < n; k++) {
+                if (!active[k] || k == a) continue;
+                if (bestPartner[k] == a || bestPartner[k] == b) {
+                    scanRow(k, sums, seq, size, active, bestPartner, bestCoupling);
+                } else {
+                    // La paire (k, nouveau cluster) ne gagne une égalité contre aucune autre paire de la ligne
+                    double coupling = sums[index(a, k)] / ((double) size[a] * size[k]);
+                    if (bestPartner[k] >= 0 && ClusteringEngine.compareCoupling(coupling, bestCoupling[k]) <= 0) continue;
+                    bestPartner[k] = a;
+                    bestCoupling[k] = coupling;
+                }
+                version[k]++;
+                if (bestPartner[k] >= 0) queue.add(rowBest(k, seq, version, bestPartner, bestCoupling));
+            }
+        }
+        return merges;
+    }
+
+    /**
+     * Sommes initiales entre feuilles : poids de couplage de chaque paire (i, j), i &lt; j,
+     * lus sur les lignes de la matrice creuse.
+     */
+    private static double[] initialSums(CouplingMatrix coupling) {
+        int n = coupling.classCount();
+        double[] sums = new double[(int) ((long) n * (n - 1) / 2)];
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < coupling.degree(i); k++) {
+                int j = coupling.neighbor(i, k);
+                if (j > i) sums[index(i, j)] = coupling.weightAt(i, k);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Recalcule la meilleure paire de la ligne i : partenaires plus récents que i,
+     * couplage maximal puis partenaire le plus ancien.
+     */
+    private static void scanRow(int i, double[] sums, int[] seq, int[] size, boolean[] active,
+                                int[] bestPartner, double[] bestCoupling) {
+        int best = -1;
+        double bestValue = 0.0;
+        for (int j = 0; j < seq.length; j++) {
+            if (!active[j] || j == i || seq[j] < seq[i]) continue;
+            double coupling = sums[index(i, j)] / ((double) size[i] * size[j]);
+            int c = best < 0 ? 1 : ClusteringEngine.compareCoupling(coupling, bestValue);
+            if (c > 0 || (c == 0 && seq[j] < seq[best])) {
+                best = j;
+                bestValue = coupling;
+            }
+        }
+        bestPartner[i] = best;
+        bestCoupling[i] = bestValue;
+    }
+
+    /**
+     * Retire la meilleure paire à jour de la file, ordonnée par couplage exact. Les paires
+     * de couplage strictement inférieur à celui de la tête mais égal à la tolérance près
+     * la suivent juste après les égalités exactes (qui perdent toutes contre la tête) :
+     * seules celles-ci sont parcourues, et la paire de plus petits numéros l'emporte.
+     * Les entrées périmées rencontrées sont retirées.
+     */
+    private static RowBest pollBest(TreeSet<RowBest> queue, boolean[] active, int[] version) {
+        RowBest best = queue.pollFirst();
+        while (!best.isCurrent(active, version)) best = queue.pollFirst();
+        // Un couplage nul n'a pas d'égal approché : l'ordre exact de la file suffit
+        if (best.coupling == 0.0) return best;
+        RowBest winner = best;
+        RowBest below = new RowBest(-1, -1, Math.nextDown(best.coupling), Integer.MIN_VALUE, Integer.MIN_VALUE);
+        for (Iterator<RowBest> it = queue.tailSet(below, true).iterator(); it.hasNext(); ) {
+            RowBest next = it.next();
+            if (ClusteringEngine.compareCoupling(next.coupling, best.coupling) != 0) break;
+            if (!next.isCurrent(active, version)) {
+                it.remove();
+            } else if (next.comparePairs(winner) < 0) {
+                winner = next;
+            }
+        }
+        if (winner != best) {
+            queue.remove(winner);
+            queue.add(best);
+        }
+        return winner;
+    }
+
+    private static RowBest rowBest(int row, int[] seq, int[] version, int[] bestPartner, double[] bestCoupling) {
+        return new RowBest(row, version[row], bestCoupling[row], seq[row], seq[bestPartner[row]]);
+    }
+
+    private static int index(int i, int j) {
+        int hi = Math.max(i, j);
+        int lo = Math.min(i, j);
+        return (int) ((long) hi * (hi - 1) / 2) + lo;
+    }
+
+    /**
+     * Meilleure paire d'une ligne à un instant donné (périmée si la version a changé).
+     * Ordre de la file : couplage décroissant (comparaison exacte, donc transitive),
+     * puis paire de numéros de création croissante ; la ligne et la version distinguent
+     * une entrée périmée de l'entrée à jour.
+     */
+    private record RowBest(int row, int version, double coupling, int leftSeq, int rightSeq)
+            implements Comparable<RowBest> {
+        @Override
+        public int compareTo(RowBest other) {
+            int c = Double.compare(other.coupling, coupling);
+            if (c == 0) c = comparePairs(other);
+            if (c == 0) c = Integer.compare(row, other.row);
+            return c != 0 ? c : Integer.compare(version, other.version);
+        }
+
+        int comparePairs(RowBest other) {
+            int c = Integer.compare(leftSeq, other.leftSeq);
+            return c != 0 ? c : Integer.compare(rightSeq, other.rightSeq);
+        }
+
+        boolean isCurrent(boolean[] active, int[] version) {
+            return active[row] && this.version == version[row];
+        }
+    }
+}
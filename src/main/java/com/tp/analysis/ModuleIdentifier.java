@@ -10,44 +10,77 @@ public class ModuleIdentifier {
     private final DendrogramNode dendrogram;
     private final int maxModules;
     private final double minCoupling;
-    private final Map<String, Map<String, Double>> couplingWeights;
+    private final BranchCoupling branchCoupling;
+    private ClusteringListener listener = ClusteringListener.NONE;
     
     public ModuleIdentifier(DendrogramNode dendrogram, int totalClasses, double minCoupling) {
-        this.dendrogram = dendrogram;
-        this.maxModules = totalClasses / 2;
-        this.minCoupling = minCoupling;
-        this.couplingWeights = null;
+        this(dendrogram, totalClasses, minCoupling, new BranchCoupling(dendrogram, null));
     }
     
+    /**
+     * Coupe selon les poids donnés (une nouvelle matrice est construite : les sommes portées
+     * par le dendrogramme ne sont pas réutilisées, les moyennes sont recalculées de bas en haut).
+     */
     public ModuleIdentifier(DendrogramNode dendrogram, int totalClasses, double minCoupling, 
                            Map<String, Map<String, Double>> couplingWeights) {
+        this(dendrogram, totalClasses, minCoupling,
+             couplingWeights != null ? CouplingMatrix.fromWeights(couplingWeights) : null);
+    }
+    
+    /**
+     * Coupe selon les poids de la matrice donnée. Les sommes internes portées par le dendrogramme
+     * ne sont lues que s'il a été construit sur cette même instance de matrice ;
+     * sinon les moyennes sont recalculées de bas en haut sur la matrice donnée.
+     */
+    public ModuleIdentifier(DendrogramNode dendrogram, int totalClasses, double minCoupling,
+                           CouplingMatrix coupling) {
+        this(dendrogram, totalClasses, minCoupling, new BranchCoupling(dendrogram, coupling));
+    }
+    
+    /**
+     * Coupe avec des couplages moyens de branches déjà calculés pour ce dendrogramme :
+     * chaque nouveau couplage minimum ne coûte qu'un parcours des nœuds visités.
+     */
+    public ModuleIdentifier(DendrogramNode dendrogram, int totalClasses, double minCoupling,
+                           BranchCoupling branchCoupling) {
         this.dendrogram = dendrogram;
         this.maxModules = totalClasses / 2;
         this.minCoupling = minCoupling;
-        this.couplingWeights = couplingWeights;
+        this.branchCoupling = branchCoupling;
+    }
+    
+    /**
+     * Définit l'écouteur de trace (ClusteringListener.NONE par défaut).
+     */
+    public void setListener(ClusteringListener listener) {
+        this.listener = listener != null ? listener : ClusteringListener.NONE;
     }
     
     /**
      * Identifie les modules en respectant les contraintes CP et M/2
      */
     public List<Module> identifyModules() {
-        System.out.println("=== IDENTIFICATION DES MODULES ===");
-        System.out.println("Contraintes:");
-        System.out.println("- Nombre maximum de modules: " + maxModules);
-        System.out.println("- Couplage minimum par module: " + minCoupling);
+        if (listener.isTraceEnabled()) {
+            listener.trace("=== IDENTIFICATION DES MODULES ===");
+            listener.trace("Contraintes:");
+            listener.trace("- Nombre maximum de modules: " + maxModules);
+            listener.trace("- Couplage minimum par module: " + minCoupling);
+        }
         
         List<Module> modules = new ArrayList<>();
         cutDendrogram(dendrogram, modules);
         
-        System.out.println("\n=== RÉSULTATS ===");
-        System.out.println("Nombre de modules identifiés: " + modules.size());
-        for (int i = 0; i < modules.size(); i++) {
-            System.out.println("Module " + (i + 1) + ": " + modules.get(i));
+        if (listener.isTraceEnabled()) {
+            listener.trace("\n=== RÉSULTATS ===");
+            listener.trace("Nombre de modules identifiés: " + modules.size());
+            for (int i = 0; i < modules.size(); i++) {
+                listener.trace("Module " + (i + 1) + ": " + modules.get(i));
+            }
+            
+            // Vérifier les contraintes
+            verifyConstraints(modules);
         }
         
-        // Vérifier les contraintes
-        verifyConstraints(modules);
-        
         return modules;
     }
     
@@ -58,7 +91,9 @@ public class ModuleIdentifier {
     private void cutDendrogram(DendrogramNode node, List<Module> modules) {
         if (modules.size() >= maxModules) {
             // Limite atteinte, on arrête de découper et on garde le cluster actuel
-            System.out.println("Limite de modules atteinte (" + maxModules + "), arrêt de la coupe.");
+            if (listener.isTraceEnabled()) {
+                listener.trace("Limite de modules atteinte (" + maxModules + "), arrêt de la coupe.");
+            }
             if (!node.isLeaf()) {
                 addModuleIfValid(node, modules);
             }
@@ -76,15 +111,19 @@ public class ModuleIdentifier {
         
         if (avgCoupling >= minCoupling) {
             // Le cluster satisfait CP, on l'ajoute comme module
-            System.out.println("Cluster satisfait CP: " + node.getId() + 
+            if (listener.isTraceEnabled()) {
+                listener.trace("Cluster satisfait CP: " + node.getId() + 
                              " (couplage: " + String.format("%.3f", avgCoupling) + ")");
+            }
             addModuleIfValid(node, modules);
         } else {
             // Le cluster ne satisfait pas CP, on le scinde en ses deux fils
             if (node.getLeft() != null && node.getRight() != null) {
-                System.out.println("Cluster ne satisfait pas CP: " + node.getId() + 
+                if (listener.isTraceEnabled()) {
+                    listener.trace("Cluster ne satisfait pas CP: " + node.getId() + 
                                  " (couplage: " + String.format("%.3f", avgCoupling) + 
                                  "), scission en sous-clusters");
+                }
                 cutDendrogram(node.getLeft(), modules);
                 cutDendrogram(node.getRight(), modules);
             } else {
@@ -103,72 +142,35 @@ public class ModuleIdentifier {
         if (node.getClassCount() > 0 && avgCoupling >= minCoupling) {
             Module module = new Module(node, avgCoupling);
             modules.add(module);
-            System.out.println("Module ajouté: " + module);
-        } else if (node.getClassCount() > 0) {
-            System.out.println("Cluster rejeté (couplage insuffisant): " + 
+            if (listener.isTraceEnabled()) {
+                listener.trace("Module ajouté: " + module);
+            }
+        } else if (node.getClassCount() > 0 && listener.isTraceEnabled()) {
+            listener.trace("Cluster rejeté (couplage insuffisant): " + 
                              node.getId() + " (couplage: " + 
                              String.format("%.3f", avgCoupling) + ")");
         }
     }
     
     /**
-     * Calcule le couplage moyen entre toutes les paires de classes du module.
+     * Couplage moyen entre toutes les paires de classes du module (précalculé par branche).
      */
     private double calculateAverageCoupling(DendrogramNode branch) {
-        Set<String> classes = branch.getClasses();
-        if (classes.size() < 2) {
-            // Module de taille 1 : pas de couplage interne
-            return 0.0;
-        }
-        
-        double totalCoupling = 0.0;
-        int pairCount = 0;
-        
-        List<String> classList = new ArrayList<>(classes);
-        for (int i = 0; i < classList.size(); i++) {
-            for (int j = i + 1; j < classList.size(); j++) {
-                String class1 = classList.get(i);
-                String class2 = classList.get(j);
-                
-                double coupling = getCouplingBetweenClasses(class1, class2);
-                totalCoupling += coupling;
-                pairCount++;
-            }
-        }
-        
-        return pairCount > 0 ? totalCoupling / pairCount : 0.0;
-    }
-    
-    /**
-     * Obtient le couplage entre deux classes.
-     */
-    private double getCouplingBetweenClasses(String class1, String class2) {
-        if (couplingWeights == null) {
-            return 0.0;
-        }
-        
-        // Vérifier dans les deux directions
-        if (couplingWeights.containsKey(class1) && couplingWeights.get(class1).containsKey(class2)) {
-            return couplingWeights.get(class1).get(class2);
-        }
-        if (couplingWeights.containsKey(class2) && couplingWeights.get(class2).containsKey(class1)) {
-            return couplingWeights.get(class2).get(class1);
-        }
-        return 0.0;
+        return branchCoupling.average(branch);
     }
     
     /**
      * Vérifie les contraintes sur les modules identifiés.
      */
     private void verifyConstraints(List<Module> modules) {
-        System.out.println("\n=== VÉRIFICATION DES CONTRAINTES ===");
+        listener.trace("\n=== VÉRIFICATION DES CONTRAINTES ===");
         
         boolean constraintM2 = modules.size() <= maxModules;
         boolean constraintCP = modules.stream().allMatch(m -> m.getAverageCoupling() >= minCoupling);
         
-        System.out.println("- Contrainte M/2: " + modules.size() + " modules (max: " + maxModules + ") " + 
+        listener.trace("- Contrainte M/2: " + modules.size() + " modules (max: " + maxModules + ") " + 
                          (constraintM2 ? "OK" : "ECHEC"));
-        System.out.println("- Contrainte CP: Tous les modules respectent CP=" + minCoupling + " " + 
+        listener.trace("- Contrainte CP: Tous les modules respectent CP=" + minCoupling + " " + 
                          (constraintCP ? "OK" : "ECHEC"));
     }
     
@@ -0,0 +1,208 @@
+package com.tp.analysis;
+
+import java.util.*;
+
+/**
+ * Clustering agglomératif par chaîne des plus proches voisins (NN-chain) sur la matrice creuse.
+ *
+ * Seules les paires de clusters de couplage non nul sont stockées : chaque cluster
+ * garde la somme S(A,B) des couplages vers ses voisins, et la fusion de A et B
+ * applique S(A∪B, C) = S(A,C) + S(B,C) sur l'union de leurs voisinages.
+ * La mémoire croît donc avec le nombre de paires couplées, et non avec n².
+ *
+ * Le lien moyen étant réductible, la chaîne trouve les mêmes fusions que l'algorithme
+ * glouton ; elles sont ensuite triées par couplage décroissant (sans jamais placer
+ * une fusion avant celles qui ont créé ses deux clusters) et renumérotées.
+ * Les clusters sans aucun couplage sont enfin fusionnés à 0, les plus anciens d'abord,
+ * comme le fait {@link MatrixClusteringEngine}. À couplage égal, l'ordre des fusions
+ * peut différer de celui du moteur par matrice.
+ */
+class NnChainClusteringEngine implements ClusteringEngine {
+
+    @Override
+    public List<Merge> cluster(CouplingMatrix matrix) {
+        int n = matrix.classCount();
+        List<Map<Integer, Double>> neighbors = initialNeighbors(matrix);
+        int[] size = new int[n];
+        Arrays.fill(size, 1);
+        boolean[] active = new boolean[n];
+        Arrays.fill(active, true);
+
+        // Cluster de l'emplacement i dans la numérotation de la chaîne (feuilles 0..n-1)
+        int[] chainId = new int[n];
+        for (int i = 0; i < n; i++) chainId[i] = i;
+        List<ChainMerge> chainMerges = new ArrayList<>();
+
+        int[] chain = new int[n];
+        for (int start = 0; start < n; start++) {
+            // Le cluster de départ peut encore avoir des voisins après la fusion qui vide la chaîne
+            while (active[start] && !neighbors.get(start).isEmpty()) {
+                int length = 0;
+                chain[length++] = start;
+                while (length > 0) {
+                    int top = chain[length - 1];
+                    int previous = length > 1 ? chain[length - 2] : -1;
+                    int nearest = nearestNeighbor(top, previous, neighbors, size);
+                    if (nearest < 0) {
+                        length--;
+                    } else if (nearest == previous) {
+                        double crossSum = neighbors.get(top).get(previous);
+                        double coupling = crossSum / ((double) size[top] * size[previous]);
+                        int a = Math.min(top, previous);
+                        int b = Math.max(top, previous);
+                        chainMerges.add(new ChainMerge(chainId[a], chainId[b], coupling, crossSum));
+                        merge(a, b, neighbors, size, active);
+                        chainId[a] = n + chainMerges.size() - 1;
+                        length -= 2;
+                    } else {
+                        chain[length++] = nearest;
+                    }
+                }
+            }
+        }
+
+        return orderMerges(n, chainMerges);
+    }
+
+    /**
+     * Sommes initiales entre feuilles couplées, lues sur les lignes de la matrice creuse
+     * (les couplages nuls ne sont pas des voisins).
+     */
+    private static List<Map<Integer, Double>> initialNeighbors(CouplingMatrix coupling) {
+        int n = coupling.classCount();
+        List<Map<Integer, Double>> neighbors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<Integer, Double> row = new HashMap<>(coupling.degree(i) * 2);
+            for (int k = 0; k < coupling.degree(i); k++) {
+                double weight = coupling.weightAt(i, k);
+                if (weight > 0.0) row.put(coupling.neighbor(i, k), weight);
+            }
+            neighbors.add(row);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Voisin de couplage moyen maximal ; à égalité, le prédécesseur dans la chaîne
+     * (garantit la terminaison), puis le plus petit emplacement. -1 si aucun voisin.
+     */
+    private static int nearestNeighbor(int cluster, int previous, List<Map<Integer, Double>> neighbors, int[] size) {
+        int best = -1;
+        double bestValue = 0.0;
+        for (var entry : neighbors.get(cluster).entrySet()) {
+            int k = entry.getKey();
+            double coupling = entry.getValue() / ((double) size[cluster] * size[k]);
+            int c = best < 0 ? 1 : ClusteringEngine.compareCoupling(coupling, bestValue);
+            if (c > 0 || (c == 0 && best != previous && (k == previous || k < best))) {
+                best = k;
+                bestValue = coupling;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fusionne b dans l'emplacement a en additionnant les sommes de leurs voisinages.
+     */
+    private static void merge(int a, int b, List<Map<Integer, Double>> neighbors, int[] size, boolean[] active) {
+        Map<Integer, Double> merged = neighbors.get(a);
+        Map<Integer, Double> removed = neighbors.get(b);
+        merged.remove(b);
+        removed.remove(a);
+        for (var entry : removed.entrySet()) {
+            int k = entry.getKey();
+            merged.merge(k, entry.getValue(), Double::sum);
+            neighbors.get(k).remove(b);
+        }
+        for (var entry : merged.entrySet()) {
+            neighbors.get(entry.getKey()).put(a, entry.getValue());
+        }
+        neighbors.set(b, new HashMap<>());
+        size[a] += size[b];
+        active[b] = false;
+    }
+
+    /**
+     * Ordonne les fusions de la chaîne par couplage décroissant (puis ordre de découverte),
+     * une fusion n'étant placée qu'après celles qui ont créé ses deux clusters ;
+     * renumérote les clusters, puis fusionne à 0 les clusters restants, les plus anciens d'abord.
+     */
+    private static List<Merge> orderMerges(int n, List<ChainMerge> chainMerges) {
+        int m = chainMerges.size();
+        // Fusion qui utilise chaque cluster de la chaîne (-1 pour une racine) ; opérandes non encore créés
+        int[] usedBy = new int[n + m];
+        Arrays.fill(usedBy, -1);
+        int[] pending = new int[m];
+        TreeSet<Ready> ready = new TreeSet<>();
+        for (int k = 0; k < m; k++) {
+            ChainMerge cm = chainMerges.get(k);
+            usedBy[cm.left] = k;
+            usedBy[cm.right] = k;
+            pending[k] = (cm.left >= n ? 1 : 0) + (cm.right >= n ? 1 : 0);
+            if (pending[k] == 0) ready.add(new Ready(cm.coupling, k));
+        }
+
+        int[] finalId = new int[n + m];
+        for (int i = 0; i < n; i++) finalId[i] = i;
+        List<Merge> merges = new ArrayList<>(Math.max(0, n - 1));
+        int nextId = n;
+        while (!ready.isEmpty()) {
+            int k = pollFirstDiscovered(ready);
+            ChainMerge cm = chainMerges.get(k);
+            int left = finalId[cm.left];
+            int right = finalId[cm.right];
+            merges.add(new Merge(Math.min(left, right), Math.max(left, right), cm.coupling, cm.crossSum));
+            finalId[n + k] = nextId++;
+            int parent = usedBy[n + k];
+            if (parent >= 0 && --pending[parent] == 0) ready.add(new Ready(chainMerges.get(parent).coupling, parent));
+        }
+
+        // Racines restantes (sans couplage entre elles), par ordre de création
+        TreeSet<Integer> roots = new TreeSet<>();
+        for (int id = 0; id < n + m; id++) {
+            if (usedBy[id] < 0) roots.add(finalId[id]);
+        }
+        while (roots.size() > 1) {
+            int left = roots.pollFirst();
+            int right = roots.pollFirst();
+            merges.add(new Merge(left, right, 0.0, 0.0));
+            roots.add(nextId++);
+        }
+        return merges;
+    }
+
+    /**
+     * Retire la tête de la file, ou la fusion découverte plus tôt dont le couplage est
+     * strictement inférieur mais égal à celui de la tête à la tolérance près
+     * (les égalités exactes, découvertes après la tête, ne sont pas parcourues).
+     */
+    private static int pollFirstDiscovered(TreeSet<Ready> ready) {
+        Ready head = ready.pollFirst();
+        Ready winner = head;
+        Ready below = new Ready(Math.nextDown(head.coupling), -1);
+        for (Ready next : ready.tailSet(below, true)) {
+            if (ClusteringEngine.compareCoupling(next.coupling, head.coupling) != 0) break;
+            if (next.merge < winner.merge) winner = next;
+        }
+        if (winner != head) {
+            ready.remove(winner);
+            ready.add(head);
+        }
+        return winner.merge;
+    }
+
+    /**
+     * Fusion prête à être placée : couplage décroissant (comparaison exacte, donc transitive),
+     * puis ordre de découverte.
+     */
+    private record Ready(double coupling, int merge) implements Comparable<Ready> {
+        @Override
+        public int compareTo(Ready other) {
+            int c = Double.compare(other.coupling, coupling);
+            return c != 0 ? c : Integer.compare(merge, other.merge);
+        }
+    }
+
+    /** Fusion dans la numérotation de la chaîne : feuilles 0..n-1, puis n + rang de découverte. */
+    private record ChainMerge(int left, int right, double coupling, double crossSum) {}
+}
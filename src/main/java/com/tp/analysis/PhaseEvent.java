@@ -0,0 +1,34 @@
+package com.tp.analysis;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Événement JFR émis à la fin de chaque étape mesurée par {@link PhaseMetrics}.
+ * La durée de l'événement est le temps écoulé de l'étape.
+ */
+@Name("com.tp.Phase")
+@Label("Étape d'analyse")
+@Category("Code Analyzer")
+@Description("Temps, CPU, allocations et compteurs d'une étape d'analyse")
+class PhaseEvent extends Event {
+
+    @Label("Étape")
+    String phase;
+
+    @Label("Temps CPU")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Octets alloués")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Compteurs")
+    String counts;
+}
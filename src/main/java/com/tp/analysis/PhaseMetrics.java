@@ -0,0 +1,274 @@
+package com.tp.analysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre des mesures par étape d'analyse (parsing, résolution, couplage, clustering, Spoon, graphes).
+ *
+ * Chaque étape est mesurée par un {@link Scope} ouvert avec {@link #start(String)} et fermé en fin
+ * d'étape (try-with-resources) : temps écoulé, temps CPU et octets alloués du thread courant
+ * (ThreadMXBean), plus des compteurs (fichiers, méthodes, arêtes, fusions...). Le travail délégué
+ * à d'autres threads est ajouté via {@link Scope#track(Callable)}. Une étape imbriquée est aussi
+ * comptée dans l'étape englobante. Chaque étape fermée est également émise comme événement JFR
+ * "com.tp.Phase".
+ *
+ * Thread-safe : les analyses JDT et Spoon lancées en parallèle peuvent partager le registre,
+ * chacune sous son préfixe ({@link #withPrefix(String)}). {@link #NONE} ne mesure rien.
+ */
+public class PhaseMetrics {
+
+    /** Registre inactif : les étapes ne sont ni mesurées ni enregistrées. */
+    public static final PhaseMetrics NONE = new PhaseMetrics(null, "");
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Étapes terminées, dans l'ordre de fin ; partagées entre un registre et ses vues préfixées
+    private final List<Phase> phases;
+    private final String prefix;
+
+    public PhaseMetrics() {
+        this(new ArrayList<>(), "");
+    }
+
+    private PhaseMetrics(List<Phase> phases, String prefix) {
+        this.phases = phases;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Vue du registre dont les étapes sont nommées "prefix : étape" (ex. "JDT", "Spoon").
+     */
+    public PhaseMetrics withPrefix(String prefix) {
+        if (phases == null) return this;
+        return new PhaseMetrics(phases, this.prefix + prefix + " : ");
+    }
+
+    public boolean isEnabled() {
+        return phases != null;
+    }
+
+    /**
+     * Commence la mesure d'une étape sur le thread courant.
+     */
+    public Scope start(String name) {
+        return new Scope(prefix + name);
+    }
+
+    /**
+     * Étapes terminées, dans l'ordre où elles se sont terminées.
+     */
+    public List<Phase> getPhases() {
+        if (phases == null) return List.of();
+        synchronized (phases) {
+            return List.copyOf(phases);
+        }
+    }
+
+    public void clear() {
+        if (phases == null) return;
+        synchronized (phases) {
+            phases.clear();
+        }
+    }
+
+    private void record(Phase phase) {
+        synchronized (phases) {
+            phases.add(phase);
+        }
+    }
+
+    /**
+     * Rapport textuel : une ligne par étape (temps en ms, allocations en Mo, compteurs).
+     */
+    public String toReport() {
+        List<Phase> snapshot = getPhases();
+        if (snapshot.isEmpty()) return "Aucune mesure disponible.\n";
+
+        int width = "Étape".length();
+        for (Phase phase : snapshot) width = Math.max(width, phase.name().length());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== MESURES PAR ÉTAPE ===\n\n");
+        sb.append(String.format(Locale.ROOT, "%-" + width + "s %12s %12s %12s  %s%n",
+            "Étape", "Temps (ms)", "CPU (ms)", "Alloué (Mo)", "Compteurs"));
+        for (Phase phase : snapshot) {
+            StringJoiner counts = new StringJoiner(", ");
+            phase.counts().forEach((item, value) -> counts.add(item + "=" + value));
+            sb.append(String.format(Locale.ROOT, "%-" + width + "s %12.1f %12s %12s  %s%n",
+                phase.name(), phase.wallNanos() / 1e6,
+                phase.cpuNanos() < 0 ? "-" : String.format(Locale.ROOT, "%.1f", phase.cpuNanos() / 1e6),
+                phase.allocatedBytes() < 0 ? "-"
+                    : String.format(Locale.ROOT, "%.1f", phase.allocatedBytes() / (1024.0 * 1024.0)),
+                counts));
+        }
+        sb.append("\nCPU et allocations : threads de l'étape (-1 ou \"-\" si non mesurable sur cette JVM).\n");
+        return sb.toString();
+    }
+
+    /**
+     * Étapes au format JSON : {"phases": [{"name", "thread", "wallNanos", "cpuNanos", "allocatedBytes", "counts"}]}.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"phases\": [");
+        List<Phase> snapshot = getPhases();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Phase phase = snapshot.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": ").append(quote(phase.name()))
+              .append(", \"thread\": ").append(quote(phase.thread()))
+              .append(", \"wallNanos\": ").append(phase.wallNanos())
+              .append(", \"cpuNanos\": ").append(phase.cpuNanos())
+              .append(", \"allocatedBytes\": ").append(phase.allocatedBytes())
+              .append(", \"counts\": {");
+            StringJoiner counts = new StringJoiner(", ");
+            phase.counts().forEach((item, value) -> counts.add(quote(item) + ": " + value));
+            sb.append(counts).append("}}");
+        }
+        sb.append(snapshot.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static long threadCpuTime() {
+        try {
+            return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+            try {
+                return bean.getCurrentThreadAllocatedBytes();
+            } catch (UnsupportedOperationException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mesures d'une étape terminée (cpuNanos et allocatedBytes valent -1 si non mesurables).
+     */
+    public record Phase(String name, String thread, long wallNanos, long cpuNanos, long allocatedBytes,
+                        Map<String, Long> counts) {}
+
+    /**
+     * Étape en cours de mesure. Les compteurs et le suivi des autres threads sont thread-safe ;
+     * l'ouverture et la fermeture se font sur le même thread.
+     */
+    public final class Scope implements AutoCloseable {
+        private final String name;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private final AtomicLong otherCpu = new AtomicLong();
+        private final AtomicLong otherAllocated = new AtomicLong();
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final PhaseEvent event;
+        private boolean closed;
+
+        private Scope(String name) {
+            this.name = name;
+            if (phases == null) {
+                startWall = startCpu = startAllocated = 0;
+                event = null;
+                return;
+            }
+            event = new PhaseEvent();
+            event.begin();
+            startAllocated = threadAllocatedBytes();
+            startCpu = threadCpuTime();
+            startWall = System.nanoTime();
+        }
+
+        /**
+         * Fixe la valeur d'un compteur (fichiers, méthodes, arêtes, fusions...).
+         */
+        public Scope count(String item, long value) {
+            if (phases != null) {
+                synchronized (counts) {
+                    counts.put(item, value);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Ajoute une valeur à un compteur.
+         */
+        public Scope add(String item, long value) {
+            if (phases != null) {
+                synchronized (counts) {
+                    counts.merge(item, value, Long::sum);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Enveloppe une tâche exécutée sur un autre thread pour que son temps CPU
+         * et ses allocations soient comptés dans cette étape.
+         */
+        public <T> Callable<T> track(Callable<T> task) {
+            if (phases == null) return task;
+            return () -> {
+                long allocated = threadAllocatedBytes();
+                long cpu = threadCpuTime();
+                try {
+                    return task.call();
+                } finally {
+                    if (cpu >= 0) otherCpu.addAndGet(threadCpuTime() - cpu);
+                    if (allocated >= 0) otherAllocated.addAndGet(threadAllocatedBytes() - allocated);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (phases == null || closed) return;
+            closed = true;
+            long wall = System.nanoTime() - startWall;
+            long cpu = startCpu < 0 ? -1 : threadCpuTime() - startCpu + otherCpu.get();
+            long allocated = startAllocated < 0 ? -1 : threadAllocatedBytes() - startAllocated + otherAllocated.get();
+            Map<String, Long> snapshot;
+            synchronized (counts) {
+                snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+            }
+            Phase phase = new Phase(name, Thread.currentThread().getName(), wall, cpu, allocated, snapshot);
+            record(phase);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.cpuTime = cpu;
+                event.allocatedBytes = allocated;
+                StringJoiner joiner = new StringJoiner(", ");
+                snapshot.forEach((item, value) -> joiner.add(item + "=" + value));
+                event.counts = joiner.toString();
+                event.commit();
+            }
+        }
+    }
+}
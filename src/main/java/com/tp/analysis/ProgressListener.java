@@ -0,0 +1,23 @@
+package com.tp.analysis;
+
+/**
+ * Écouteur de progression d'une analyse (parsing, résolution des appels...).
+ *
+ * Par défaut ({@link #NONE}) rien n'est signalé. Un écouteur peut interrompre
+ * l'analyse en levant une {@link java.util.concurrent.CancellationException}.
+ */
+public interface ProgressListener {
+
+    /** Écouteur sans effet. */
+    ProgressListener NONE = new ProgressListener() {};
+
+    /**
+     * Début d'une étape.
+     */
+    default void phaseStarted(String phase) {}
+
+    /**
+     * Progression de l'étape en cours : done éléments traités sur total.
+     */
+    default void progress(int done, int total) {}
+}
@@ -0,0 +1,325 @@
+package com.tp.cli;
+
+import com.tp.ParserAnalyzer;
+import com.tp.analysis.ClusteringService;
+import com.tp.analysis.CouplingMatrix;
+import com.tp.analysis.CouplingService;
+import com.tp.analysis.GraphService;
+import com.tp.analysis.ModuleIdentifier;
+import com.tp.analysis.PhaseMetrics;
+import com.tp.model.CallGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.Recording;
+
+/**
+ * Analyse en ligne de commande, sans interface graphique (intégration continue).
+ *
+ * Enchaîne ParserAnalyzer, CouplingService, ClusteringService et GraphService.generateAllGraphs,
+ * écrit les rapports dans un répertoire de sortie et retourne un code de sortie non nul
+ * si un seuil est dépassé. Aucune classe Swing ou GraphStream n'est chargée.
+ * Les mesures par étape (temps, CPU, allocations, compteurs) sont écrites dans metrics.json
+ * et, avec --jfr, enregistrées dans un fichier JFR (événements "com.tp.Phase").
+ *
+ * Codes de sortie : 0 = succès, 1 = seuil dépassé, 2 = arguments invalides, 3 = erreur d'analyse.
+ */
+public class AnalyzerCli {
+
+  public static final int EXIT_OK = 0;
+  public static final int EXIT_THRESHOLD = 1;
+  public static final int EXIT_USAGE = 2;
+  public static final int EXIT_ERROR = 3;
+
+  private static final String USAGE =
+      "Usage : AnalyzerCli <dossier source> [options]\n"
+          + "  --output <dossier>            répertoire des rapports (défaut : analysis-report)\n"
+          + "  --min-coupling <cp>           couplage minimum d'un module (défaut : 0.1)\n"
+          + "  --min-weight <w>              seuil de poids des graphes générés (défaut : 0.001)\n"
+          + "  --max-nodes <n>               nombre maximum de nœuds du graphe DOT (défaut : 50)\n"
+          + "  --workers <n>                 threads de parsing (défaut : nombre de processeurs)\n"
+          + "  --encoding <charset>          encodage des sources (défaut : UTF-8)\n"
+          + "  --prefetch <n>                fichiers lus à l'avance pendant le parsing (défaut : 8)\n"
+          + "  --batch                       parsing JDT en un lot (bindings entre fichiers)\n"
+          + "  --classpath <cp>              classpath des bindings (séparateur du système)\n"
+          + "  --cache [fichier]             analyse incrémentale (cache par défaut si absent)\n"
+          + "  --max-pair-coupling <w>       échec si le poids d'une paire de classes dépasse w\n"
+          + "  --max-class-calls <n>         échec si une classe a plus de n appels inter-classes\n"
+          + "  --min-modules <n>             échec si moins de n modules sont identifiés\n"
+          + "  --max-module-classes <n>      échec si un module regroupe plus de n classes\n"
+          + "  --jfr <fichier>               enregistre les étapes de l'analyse dans un fichier JFR\n";
+
+  public static void main(String[] args) {
+    System.exit(run(args));
+  }
+
+  /**
+   * Exécute l'analyse et retourne le code de sortie (sans appeler System.exit).
+   */
+  public static int run(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    Options options;
+    try {
+      options = Options.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.print(USAGE);
+      return EXIT_USAGE;
+    }
+    if (options == null) {
+      System.out.print(USAGE);
+      return EXIT_OK;
+    }
+
+    Recording recording = null;
+    try {
+      if (options.jfrFile != null) {
+        recording = new Recording();
+        recording.enable("com.tp.Phase");
+        recording.start();
+      }
+      return analyze(options);
+    } catch (Exception e) {
+      System.err.println("Erreur lors de l'analyse : " + e.getMessage());
+      e.printStackTrace();
+      return EXIT_ERROR;
+    } finally {
+      if (recording != null) {
+        try {
+          recording.dump(Paths.get(options.jfrFile));
+        } catch (IOException e) {
+          System.err.println("Impossible d'écrire l'enregistrement JFR : " + e.getMessage());
+        }
+        recording.close();
+      }
+    }
+  }
+
+  private static int analyze(Options options) throws Exception {
+    Path output = Paths.get(options.outputDir);
+    Files.createDirectories(output);
+    PhaseMetrics metrics = new PhaseMetrics();
+
+    // Analyse JDT
+    ParserAnalyzer pa = new ParserAnalyzer(options.sourceRoot);
+    pa.setMetrics(metrics);
+    pa.setWorkerCount(options.workers);
+    pa.setSourceCharset(options.encoding);
+    pa.setPrefetchDepth(options.prefetch);
+    pa.setBatchParsing(options.batch);
+    pa.setClasspath(options.classpath);
+    if (options.cache) {
+      pa.setCacheFile(options.cacheFile != null
+          ? Paths.get(options.cacheFile)
+          : ParserAnalyzer.defaultCacheFile(options.sourceRoot));
+    }
+    pa.analyze();
+    write(output.resolve("stats.txt"), pa.getStatisticsAsString(3));
+
+    // Couplage entre classes (calculé une fois, partagé par l'export et le clustering)
+    CallGraph callGraph = pa.getCompactCallGraph();
+    CouplingService couplingService = new CouplingService();
+    Map<String, Map<String, Integer>> counts = couplingService.countInterClassCalls(callGraph, metrics);
+    int total = CouplingService.totalInterClassEdges(counts);
+    Map<String, Map<String, Double>> weights = CouplingService.normalizeToCouplingWeights(counts, total);
+    CouplingMatrix coupling = couplingService.getCoupling();
+
+    String graphSummary = GraphService.generateAllGraphs(
+        coupling, output.toString(), options.minWeight, options.maxNodes, metrics);
+    if (graphSummary.startsWith("Erreur")) {
+      throw new IOException(graphSummary);
+    }
+    write(output.resolve("coupling_summary.txt"), graphSummary);
+
+    // Clustering et modules
+    ClusteringService clustering = new ClusteringService(coupling);
+    clustering.setMetrics(metrics);
+    ClusteringService.ClusteringResult result = clustering.performCompleteClustering(options.minCoupling);
+    write(output.resolve("modules.txt"), clustering.generateTextReport());
+    write(output.resolve("modules.csv"), clustering.generateCSVReport());
+
+    // Seuils
+    List<String> violations = checkThresholds(options, counts, weights, result);
+    write(output.resolve("violations.txt"), violations.isEmpty() ? "" : String.join("\n", violations) + "\n");
+    write(output.resolve("metrics.json"), metrics.toJson());
+
+    System.out.println("Analyse terminée : " + result.getDendrogram().getClassCount() + " classes, "
+        + total + " appels inter-classes, " + result.getModules().size() + " modules");
+    System.out.println("Rapports écrits dans " + output.toAbsolutePath());
+    if (!violations.isEmpty()) {
+      System.err.println(violations.size() + " seuil(s) dépassé(s) :");
+      violations.forEach(v -> System.err.println("  - " + v));
+      return EXIT_THRESHOLD;
+    }
+    return EXIT_OK;
+  }
+
+  /**
+   * Liste les dépassements des seuils demandés (vide si aucun).
+   */
+  private static List<String> checkThresholds(Options options,
+                                              Map<String, Map<String, Integer>> counts,
+                                              Map<String, Map<String, Double>> weights,
+                                              ClusteringService.ClusteringResult result) {
+    List<String> violations = new ArrayList<>();
+
+    if (options.maxPairCoupling != null) {
+      // Ordre alphabétique : rapport stable d'une exécution à l'autre
+      for (var source : new TreeMap<>(weights).entrySet()) {
+        for (var target : new TreeMap<>(source.getValue()).entrySet()) {
+          if (target.getValue() > options.maxPairCoupling) {
+            violations.add(String.format("couplage %s -- %s = %.4f > %.4f",
+                source.getKey(), target.getKey(), target.getValue(), options.maxPairCoupling));
+          }
+        }
+      }
+    }
+
+    if (options.maxClassCalls != null) {
+      Map<String, Integer> callsPerClass = new TreeMap<>();
+      for (var source : counts.entrySet()) {
+        for (var target : source.getValue().entrySet()) {
+          callsPerClass.merge(source.getKey(), target.getValue(), Integer::sum);
+          callsPerClass.merge(target.getKey(), target.getValue(), Integer::sum);
+        }
+      }
+      callsPerClass.forEach((className, calls) -> {
+        if (calls > options.maxClassCalls) {
+          violations.add("appels inter-classes de " + className + " = " + calls + " > " + options.maxClassCalls);
+        }
+      });
+    }
+
+    // Les contraintes M/2 et CP sont garanties par ModuleIdentifier : seuls des seuils
+    // propres à l'intégration continue sont vérifiés sur les modules
+    List<ModuleIdentifier.Module> modules = result.getModules();
+    if (options.minModules != null && modules.size() < options.minModules) {
+      violations.add("modules identifiés = " + modules.size() + " < " + options.minModules);
+    }
+    if (options.maxModuleClasses != null) {
+      for (ModuleIdentifier.Module module : modules) {
+        if (module.getClassCount() > options.maxModuleClasses) {
+          violations.add("classes du module " + module.getId() + " = " + module.getClassCount()
+              + " > " + options.maxModuleClasses);
+        }
+      }
+    }
+    return violations;
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Options de la ligne de commande.
+   */
+  private static final class Options {
+    String sourceRoot;
+    String outputDir = "analysis-report";
+    double minCoupling = 0.1;
+    double minWeight = 0.001;
+    int maxNodes = 50;
+    int workers = Runtime.getRuntime().availableProcessors();
+    Charset encoding = StandardCharsets.UTF_8;
+    int prefetch = 8;
+    boolean batch;
+    List<String> classpath = new ArrayList<>();
+    boolean cache;
+    String cacheFile;
+    Double maxPairCoupling;
+    Integer maxClassCalls;
+    Integer minModules;
+    Integer maxModuleClasses;
+    String jfrFile;
+
+    /**
+     * Lit les arguments ; retourne null si l'aide est demandée.
+     */
+    static Options parse(String[] args) {
+      Options o = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
+        switch (arg) {
+          case "-h", "--help" -> {
+            return null;
+          }
+          case "--output" -> o.outputDir = value(args, ++i, arg);
+          case "--min-coupling" -> o.minCoupling = number(args, ++i, arg);
+          case "--min-weight" -> o.minWeight = number(args, ++i, arg);
+          case "--max-nodes" -> o.maxNodes = integer(args, ++i, arg, 1);
+          case "--workers" -> o.workers = integer(args, ++i, arg, 1);
+          case "--encoding" -> o.encoding = charset(value(args, ++i, arg));
+          case "--prefetch" -> o.prefetch = integer(args, ++i, arg, 0);
+          case "--batch" -> o.batch = true;
+          case "--classpath" -> o.classpath = Arrays.asList(value(args, ++i, arg).split(File.pathSeparator));
+          case "--cache" -> {
+            o.cache = true;
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) o.cacheFile = args[++i];
+          }
+          case "--max-pair-coupling" -> o.maxPairCoupling = number(args, ++i, arg);
+          case "--max-class-calls" -> o.maxClassCalls = integer(args, ++i, arg, 0);
+          case "--min-modules" -> o.minModules = integer(args, ++i, arg, 0);
+          case "--max-module-classes" -> o.maxModuleClasses = integer(args, ++i, arg, 1);
+          case "--jfr" -> o.jfrFile = value(args, ++i, arg);
+          default -> {
+            if (arg.startsWith("-")) throw new IllegalArgumentException("Option inconnue : " + arg);
+            if (o.sourceRoot != null) throw new IllegalArgumentException("Un seul dossier source attendu : " + arg);
+            o.sourceRoot = arg;
+          }
+        }
+      }
+      if (o.sourceRoot == null) throw new IllegalArgumentException("Dossier source manquant");
+      if (!new File(o.sourceRoot).isDirectory()) {
+        throw new IllegalArgumentException("Dossier source introuvable : " + o.sourceRoot);
+      }
+      return o;
+    }
+
+    private static String value(String[] args, int i, String option) {
+      if (i >= args.length) throw new IllegalArgumentException("Valeur manquante pour " + option);
+      return args[i];
+    }
+
+    private static Charset charset(String name) {
+      try {
+        return Charset.forName(name);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Encodage inconnu : " + name);
+      }
+    }
+
+    private static double number(String[] args, int i, String option) {
+      String value = value(args, i, option);
+      try {
+        return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Valeur numérique invalide pour " + option + " : " + value);
+      }
+    }
+
+    private static int integer(String[] args, int i, String option, int min) {
+      String value = value(args, i, option);
+      int parsed;
+      try {
+        parsed = Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Valeur entière invalide pour " + option + " : " + value);
+      }
+      if (parsed < min) {
+        throw new IllegalArgumentException("Valeur trop petite pour " + option + " : " + value + " (minimum " + min + ")");
+      }
+      return parsed;
+    }
+  }
+}
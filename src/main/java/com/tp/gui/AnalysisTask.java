@@ -0,0 +1,171 @@
+package com.tp.gui;
+
+import com.tp.analysis.ClusteringListener;
+import com.tp.analysis.ProgressListener;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Tâche d'analyse exécutée hors de l'EDT (SwingWorker).
+ *
+ * Le travail reçoit la tâche : il en obtient des écouteurs qui publient les étapes et la
+ * progression vers l'interface, et qui interrompent le calcul (CancellationException)
+ * dès que la tâche est annulée. Les étapes indépendantes peuvent être lancées en parallèle
+ * avec {@link #fork(Callable)}. Le résultat ou l'erreur est remis sur l'EDT.
+ */
+class AnalysisTask<T> extends SwingWorker<T, AnalysisTask.Progress> {
+
+    // Threads des étapes lancées en parallèle (démons : ne bloquent pas la fermeture)
+    private static final ExecutorService FORKS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "analysis-fork");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Travail exécuté en arrière-plan.
+     */
+    interface Work<T> {
+        T run(AnalysisTask<T> task) throws Exception;
+    }
+
+    /**
+     * Étape en cours et avancement (total = 0 si inconnu).
+     */
+    record Progress(String phase, int done, int total) {}
+
+    private final Work<T> work;
+    private final Consumer<T> onSuccess;
+    private final Consumer<Throwable> onFailure;
+    private final Consumer<Progress> onProgress;
+    private final List<Future<?>> forks = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param onSuccess  résultat, sur l'EDT
+     * @param onFailure  erreur ou CancellationException si la tâche a été annulée, sur l'EDT
+     * @param onProgress dernière progression publiée, sur l'EDT
+     */
+    AnalysisTask(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure,
+                 Consumer<Progress> onProgress) {
+        this.work = work;
+        this.onSuccess = onSuccess;
+        this.onFailure = onFailure;
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Écouteur d'analyse et de clustering publiant sous le préfixe donné (ex. "JDT", "Spoon").
+     */
+    Listener listener(String prefix) {
+        return new Listener(prefix);
+    }
+
+    /**
+     * Lance une étape indépendante sur un autre thread ; elle est annulée avec la tâche.
+     */
+    <R> Future<R> fork(Callable<R> step) {
+        Future<R> future = FORKS.submit(step);
+        forks.add(future);
+        return future;
+    }
+
+    /**
+     * Attend le résultat d'une étape lancée par {@link #fork(Callable)} et relance son erreur.
+     */
+    <R> R join(Future<R> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Lève CancellationException si la tâche a été annulée.
+     */
+    void checkCancelled() {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Analyse annulée");
+        }
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        try {
+            return work.run(this);
+        } finally {
+            // Sans effet sur les étapes terminées ; arrête les autres en cas d'erreur ou d'annulation
+            for (Future<?> fork : forks) fork.cancel(true);
+        }
+    }
+
+    @Override
+    protected void process(List<Progress> chunks) {
+        if (!isCancelled()) onProgress.accept(chunks.get(chunks.size() - 1));
+    }
+
+    @Override
+    protected void done() {
+        T result;
+        try {
+            result = get();
+        } catch (CancellationException e) {
+            onFailure.accept(e);
+            return;
+        } catch (ExecutionException e) {
+            onFailure.accept(e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailure.accept(e);
+            return;
+        }
+        onSuccess.accept(result);
+    }
+
+    /**
+     * Publie les étapes et la progression ; n'envoie une progression que si le pourcentage change.
+     */
+    class Listener implements ProgressListener, ClusteringListener {
+        private final String prefix;
+        private volatile String phase = "";
+        private volatile int lastPercent = -1;
+
+        private Listener(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void phaseStarted(String phase) {
+            checkCancelled();
+            this.phase = prefix + " : " + phase;
+            this.lastPercent = -1;
+            publish(new Progress(this.phase, 0, 0));
+        }
+
+        @Override
+        public void progress(int done, int total) {
+            report(done, total);
+        }
+
+        @Override
+        public void mergeProgress(int done, int total) {
+            report(done, total);
+        }
+
+        private void report(int done, int total) {
+            checkCancelled();
+            int percent = total > 0 ? (int) (100L * done / total) : 0;
+            if (percent != lastPercent) {
+                lastPercent = percent;
+                publish(new Progress(phase, done, total));
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.tp.gui;
 
 import com.tp.ParserAnalyzer;
+import com.tp.analysis.PhaseMetrics;
+import com.tp.model.CallGraph;
+import com.tp.model.SymbolTable;
+import com.tp.spoon.SpoonModelSession;
 import javax.swing.*;
 
 import org.graphstream.graph.Graph;
@@ -19,15 +23,26 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
 
 public class AnalyzerGUI extends JFrame {
   private JTextArea statsArea;
   private JTextArea callGraphArea;
+  private JTextArea metricsArea;
   private CouplingGraphPanel couplingGraphPanel;
   private CouplingTextPanel couplingTextPanel;
   private ClusteringPanel clusteringPanel;
   private SpoonClusteringPanel spoonClusteringPanel;
+  private JCheckBox batchParsingBox;
+  private JCheckBox incrementalBox;
+  private JButton analyzeBtn;
+  private JButton visualizeBtn;
+  private JButton cancelBtn;
+  private JProgressBar progressBar;
   private File selectedDir;
+  // Analyse en cours (null si aucune)
+  private AnalysisTask<?> currentTask;
 
   public AnalyzerGUI() {
     super("Analyseur de Code");
@@ -35,13 +50,21 @@ public class AnalyzerGUI extends JFrame {
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
     JButton selectBtn = new JButton("Sélectionner un projet");
-    JButton analyzeBtn = new JButton("Analyser");
-    JButton visualizeBtn = new JButton("Visualiser le graphe d’appel");
+    analyzeBtn = new JButton("Analyser");
+    visualizeBtn = new JButton("Visualiser le graphe d’appel");
+    batchParsingBox = new JCheckBox("Bindings complets (JDT batch)");
+    batchParsingBox.setToolTipText("Parse tout le projet en un lot JDT pour résoudre les types entre fichiers");
+    incrementalBox = new JCheckBox("Analyse incrémentale", false);
+    incrementalBox.setToolTipText("Ne re-parse que les fichiers modifiés depuis la dernière analyse"
+        + " (faits conservés dans ~/.code-analyzer/cache)");
 
     statsArea = new JTextArea();
     statsArea.setEditable(false);
     callGraphArea = new JTextArea();
     callGraphArea.setEditable(false);
+    metricsArea = new JTextArea("Lancer une analyse pour mesurer ses étapes.\n");
+    metricsArea.setEditable(false);
+    metricsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
 
     JScrollPane statsScroll = new JScrollPane(statsArea);
     JScrollPane callScroll = new JScrollPane(callGraphArea);
@@ -59,34 +82,33 @@ public class AnalyzerGUI extends JFrame {
     tabs.addTab("Résumé Couplage", couplingTextPanel);
     tabs.addTab("Clustering Hiérarchique", clusteringPanel);
     tabs.addTab("Clustering Spoon", spoonClusteringPanel);
+    tabs.addTab("Performances", new JScrollPane(metricsArea));
 
     JPanel topPanel = new JPanel();
     topPanel.add(selectBtn);
     topPanel.add(analyzeBtn);
     topPanel.add(visualizeBtn);
+    topPanel.add(batchParsingBox);
+    topPanel.add(incrementalBox);
+
+    // Barre de progression de l'analyse en arrière-plan
+    progressBar = new JProgressBar(0, 100);
+    progressBar.setStringPainted(true);
+    progressBar.setString("Prêt");
+    cancelBtn = new JButton("Annuler");
+    cancelBtn.setEnabled(false);
+    cancelBtn.addActionListener(e -> cancelAnalysis());
+    JPanel progressPanel = new JPanel(new BorderLayout());
+    progressPanel.add(progressBar, BorderLayout.CENTER);
+    progressPanel.add(cancelBtn, BorderLayout.EAST);
 
     add(topPanel, BorderLayout.NORTH);
     add(tabs, BorderLayout.CENTER);
+    add(progressPanel, BorderLayout.SOUTH);
 
     selectBtn.addActionListener(e -> chooseProjectDir());
     analyzeBtn.addActionListener(e -> analyzeProject());
-    visualizeBtn.addActionListener(
-        e -> {
-          if (selectedDir == null) {
-            JOptionPane.showMessageDialog(
-                this, "Veuillez d’abord sélectionner un dossier de projet.");
-            return;
-          }
-          try {
-            ParserAnalyzer pa = new ParserAnalyzer(selectedDir.getAbsolutePath());
-            pa.analyze();
-            showGraph(pa.getCallGraph());
-          } catch (Exception ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(
-                this, "Erreur lors de l’affichage du graphe : " + ex.getMessage());
-          }
-        });
+    visualizeBtn.addActionListener(e -> visualizeCallGraph());
   }
 
   private void chooseProjectDir() {
@@ -95,41 +117,168 @@ public class AnalyzerGUI extends JFrame {
     chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
     if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
       selectedDir = chooser.getSelectedFile();
+      // Changement de projet : libérer les modèles Spoon des autres projets
+      SpoonModelSession.retainOnly(selectedDir.getAbsolutePath());
       statsArea.setText("Sélectionné : " + selectedDir.getAbsolutePath() + "\n");
       callGraphArea.setText("");
     }
   }
 
+  /**
+   * Crée un analyseur configuré selon les options de l'interface.
+   */
+  private ParserAnalyzer createAnalyzer() {
+    ParserAnalyzer pa = new ParserAnalyzer(selectedDir.getAbsolutePath());
+    pa.setWorkerCount(Runtime.getRuntime().availableProcessors());
+    pa.setBatchParsing(batchParsingBox.isSelected());
+    // Cache sur disque uniquement sur demande, comme l'option --cache de la ligne de commande
+    if (incrementalBox.isSelected()) {
+      pa.setCacheFile(ParserAnalyzer.defaultCacheFile(selectedDir.getAbsolutePath()));
+    }
+    return pa;
+  }
+
+  /**
+   * Lance l'analyse complète en arrière-plan : parsing et résolution JDT,
+   * puis clustering JDT et clustering Spoon en parallèle. Les résultats
+   * sont publiés dans les onglets à la fin, sur l'EDT.
+   */
   private void analyzeProject() {
     if (selectedDir == null) {
       JOptionPane.showMessageDialog(
           this, "Veuillez d’abord sélectionner un dossier de projet.");
       return;
     }
-    try {
-      ParserAnalyzer pa = new ParserAnalyzer(selectedDir.getAbsolutePath());
-      pa.analyze();
-
-      String stats = pa.getStatisticsAsString(3);
-      String graph = pa.getCallGraphAsString();
-
-      statsArea.setText(stats);
-      callGraphArea.setText(graph);
-      
-      // Configurer les panels de couplage
-      couplingGraphPanel.setAnalyzer(pa);
-      couplingTextPanel.setAnalyzer(pa);
-      clusteringPanel.performClustering(pa);
-      spoonClusteringPanel.performClustering(pa);
-
-    } catch (Exception ex) {
-      ex.printStackTrace();
-      JOptionPane.showMessageDialog(this, "Erreur : " + ex.getMessage());
+    ParserAnalyzer pa = createAnalyzer();
+    PhaseMetrics metrics = new PhaseMetrics();
+    pa.setMetrics(metrics.withPrefix("JDT"));
+    double jdtMinCoupling = clusteringPanel.readMinCoupling();
+    double spoonMinCoupling = spoonClusteringPanel.readMinCoupling();
+    clusteringPanel.showRunning();
+    spoonClusteringPanel.showRunning();
+
+    startTask(
+        new AnalysisTask<AnalysisOutcome>(
+            task -> {
+              pa.setProgressListener(task.listener("JDT"));
+              pa.analyze();
+              // Avant les étapes parallèles : getStatisticsAsString redirige System.out
+              String stats = pa.getStatisticsAsString(3);
+              String graph = pa.getCallGraphAsString();
+
+              Future<SpoonClusteringPanel.ClusteringRun> spoon =
+                  task.fork(
+                      () ->
+                          spoonClusteringPanel.computeClustering(
+                              pa, spoonMinCoupling, task.listener("Spoon"),
+                              metrics.withPrefix("Spoon")));
+              ClusteringPanel.ClusteringRun jdt =
+                  clusteringPanel.computeClustering(
+                      pa, jdtMinCoupling, task.listener("JDT"), metrics.withPrefix("JDT"));
+              return new AnalysisOutcome(pa, stats, graph, jdt, task.join(spoon), metrics);
+            },
+            outcome -> {
+              statsArea.setText(outcome.stats());
+              callGraphArea.setText(outcome.callGraph());
+              metricsArea.setText(outcome.metrics().toReport());
+
+              // Configurer les panels de couplage
+              couplingGraphPanel.setAnalyzer(outcome.analyzer());
+              couplingTextPanel.setAnalyzer(outcome.analyzer());
+              clusteringPanel.showResult(outcome.analyzer(), outcome.jdt());
+              spoonClusteringPanel.showResult(outcome.analyzer(), outcome.spoon());
+            },
+            error -> {
+              clusteringPanel.showError(error);
+              spoonClusteringPanel.showError(error);
+              showTaskError(error);
+            },
+            this::showProgress));
+  }
+
+  /**
+   * Analyse le projet en arrière-plan puis affiche le graphe d'appel.
+   */
+  private void visualizeCallGraph() {
+    if (selectedDir == null) {
+      JOptionPane.showMessageDialog(
+          this, "Veuillez d’abord sélectionner un dossier de projet.");
+      return;
+    }
+    ParserAnalyzer pa = createAnalyzer();
+    startTask(
+        new AnalysisTask<CallGraph>(
+            task -> {
+              pa.setProgressListener(task.listener("JDT"));
+              pa.analyze();
+              return pa.getCompactCallGraph();
+            },
+            this::showGraph,
+            this::showTaskError,
+            this::showProgress));
+  }
+
+  private void startTask(AnalysisTask<?> task) {
+    currentTask = task;
+    analyzeBtn.setEnabled(false);
+    visualizeBtn.setEnabled(false);
+    cancelBtn.setEnabled(true);
+    progressBar.setIndeterminate(true);
+    progressBar.setString("Analyse en cours...");
+    task.addPropertyChangeListener(
+        e -> {
+          if ("state".equals(e.getPropertyName())
+              && e.getNewValue() == SwingWorker.StateValue.DONE
+              && currentTask == task) {
+            currentTask = null;
+            analyzeBtn.setEnabled(true);
+            visualizeBtn.setEnabled(true);
+            cancelBtn.setEnabled(false);
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(0);
+            progressBar.setString(task.isCancelled() ? "Analyse annulée" : "Prêt");
+          }
+        });
+    task.execute();
+  }
+
+  private void cancelAnalysis() {
+    if (currentTask != null) {
+      currentTask.cancel(true);
+    }
+  }
+
+  private void showProgress(AnalysisTask.Progress progress) {
+    if (progress.total() > 0) {
+      progressBar.setIndeterminate(false);
+      progressBar.setValue((int) (100L * progress.done() / progress.total()));
+      progressBar.setString(
+          progress.phase() + " (" + progress.done() + "/" + progress.total() + ")");
+    } else {
+      progressBar.setIndeterminate(true);
+      progressBar.setString(progress.phase());
     }
   }
 
+  private void showTaskError(Throwable error) {
+    if (error instanceof CancellationException) return;
+    error.printStackTrace();
+    JOptionPane.showMessageDialog(this, "Erreur : " + error.getMessage());
+  }
+
+  /**
+   * Résultats d'une analyse complète, publiés sur l'EDT.
+   */
+  private record AnalysisOutcome(
+      ParserAnalyzer analyzer,
+      String stats,
+      String callGraph,
+      ClusteringPanel.ClusteringRun jdt,
+      SpoonClusteringPanel.ClusteringRun spoon,
+      PhaseMetrics metrics) {}
+
   // Affiche le graphe (sans sous-classer ViewPanel)
-  public void showGraph(Map<String, Set<String>> callGraph) {
+  public void showGraph(CallGraph callGraph) {
     System.setProperty("org.graphstream.ui", "swing");
     Graph graph = new SingleGraph("Graphe d’appel");
     graph.setAttribute("ui.quality");
@@ -177,8 +326,9 @@ public class AnalyzerGUI extends JFrame {
             "toString",
             "hashCode");
 
-    for (var entry : callGraph.entrySet()) {
-      String caller = entry.getKey();
+    SymbolTable symbols = callGraph.getSymbols();
+    for (int n = 0; n < callGraph.nodeCount(); n++) {
+      String caller = symbols.methodFullName(callGraph.caller(n));
       String callerPkg = extractPackage(caller);
 
       packageColors.putIfAbsent(callerPkg, colors[colorIndex++ % colors.length]);
@@ -190,14 +340,14 @@ public class AnalyzerGUI extends JFrame {
             "ui.style", "fill-color: " + packageColors.get(callerPkg) + ";");
       }
 
-      for (String callee : entry.getValue()) {
-        String simpleCallee =
-            callee.contains(".")
-                ? callee.substring(callee.lastIndexOf('.') + 1)
-                : callee;
+      for (int k = 0; k < callGraph.degree(n); k++) {
+        int calleeId = callGraph.callee(n, k);
+        String simpleCallee = symbols.name(symbols.methodName(calleeId));
 
         if (systemMethods.contains(simpleCallee)) continue;
 
+        String callee = symbols.methodFullName(calleeId);
+
         String calleePkg = extractPackage(callee);
         packageColors.putIfAbsent(calleePkg, colors[colorIndex++ % colors.length]);
 
@@ -2,6 +2,7 @@ package com.tp.gui;
 
 import com.tp.analysis.*;
 import com.tp.ParserAnalyzer;
+import com.tp.model.CallGraph;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -9,9 +10,8 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.CancellationException;
 
 /**
  * Panel pour l'affichage et la configuration du clustering hiérarchique.
@@ -77,6 +77,16 @@ public class ClusteringPanel extends JPanel {
             }
         });
         
+        // Entrée dans le champ : recoupe immédiate avec le nouveau seuil (hors calcul en cours)
+        minCouplingField.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (clusterButton.isEnabled()) {
+                    performClustering();
+                }
+            }
+        });
+        
         exportButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -86,49 +96,117 @@ public class ClusteringPanel extends JPanel {
     }
     
     /**
-     * Effectue le clustering sur le projet analysé.
+     * Effectue le clustering sur le projet analysé, en arrière-plan.
      */
     public void performClustering(ParserAnalyzer analyzer) {
+        double minCoupling = readMinCoupling();
+        // Même analyse : seul le seuil change, le dendrogramme déjà calculé est recoupé
+        if (analyzer == this.analyzer && clusteringService != null) {
+            recut(minCoupling);
+            return;
+        }
+        // Enregistrer l'analyzer pour permettre les relances
+        this.analyzer = analyzer;
+        showRunning();
+        
+        new AnalysisTask<ClusteringRun>(
+            task -> computeClustering(analyzer, minCoupling, task.listener("JDT"), PhaseMetrics.NONE),
+            run -> showResult(analyzer, run),
+            this::showError,
+            progress -> resultArea.setText(progress.phase() + "..."))
+            .execute();
+    }
+    
+    /**
+     * Recoupe le dendrogramme du dernier clustering avec un autre couplage minimum.
+     * Ni le couplage ni le clustering ne sont recalculés : la coupe est assez rapide
+     * pour s'exécuter sur l'EDT.
+     */
+    void recut(double minCoupling) {
+        clusteringService.setListener(ClusteringListener.NONE);
+        clusteringService.setMetrics(PhaseMetrics.NONE);
+        currentResult = clusteringService.recut(minCoupling);
+        displayResults();
+        exportButton.setEnabled(true);
+    }
+    
+    /**
+     * Lit le couplage minimum saisi (0.1 si la valeur est invalide). À appeler sur l'EDT.
+     */
+    double readMinCoupling() {
         try {
-            // Enregistrer l'analyzer pour permettre les relances
-            this.analyzer = analyzer;
-            
-            // Obtenir les données de couplage
-            Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-            Map<String, Map<String, Integer>> couplingMatrix = CouplingService.countInterClassCalls(callGraph);
-            int totalCalls = CouplingService.totalInterClassEdges(couplingMatrix);
-            Map<String, Map<String, Double>> couplingWeights = CouplingService.normalizeToCouplingWeights(couplingMatrix, totalCalls);
-            
-            // Créer le service de clustering
-            clusteringService = new ClusteringService(couplingMatrix, couplingWeights);
-            
-            // Obtenir le couplage minimum
-            double minCoupling;
-            try {
-                minCoupling = Double.parseDouble(minCouplingField.getText());
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, 
-                    "Valeur de couplage minimum invalide. Utilisation de 0.1 par défaut.", 
-                    "Erreur", JOptionPane.WARNING_MESSAGE);
-                minCoupling = 0.1;
-                minCouplingField.setText("0.1");
-            }
-            
-            // Effectuer le clustering
-            currentResult = clusteringService.performCompleteClustering(minCoupling);
-            
-            // Afficher les résultats
-            displayResults();
-            exportButton.setEnabled(true);
-            
-        } catch (Exception ex) {
+            return Double.parseDouble(minCouplingField.getText());
+        } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, 
-                "Erreur lors du clustering: " + ex.getMessage(), 
-                "Erreur", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+                "Valeur de couplage minimum invalide. Utilisation de 0.1 par défaut.", 
+                "Erreur", JOptionPane.WARNING_MESSAGE);
+            minCouplingField.setText("0.1");
+            return 0.1;
         }
     }
     
+    /**
+     * Calcule le couplage puis le clustering. N'accède à aucun composant Swing :
+     * peut s'exécuter hors de l'EDT. Les étapes sont mesurées dans metrics
+     * (PhaseMetrics.NONE pour ne rien mesurer).
+     */
+    ClusteringRun computeClustering(ParserAnalyzer analyzer, double minCoupling, ClusteringListener listener,
+                                    PhaseMetrics metrics) {
+        // Obtenir les données de couplage
+        listener.phaseStarted("Couplage");
+        CallGraph callGraph = analyzer.getCompactCallGraph();
+        CouplingService couplingService = new CouplingService();
+        couplingService.countInterClassCalls(callGraph, metrics);
+        
+        // Créer le service de clustering et l'exécuter
+        ClusteringService service = new ClusteringService(couplingService.getCoupling());
+        service.setListener(listener);
+        service.setMetrics(metrics);
+        return new ClusteringRun(service, service.performCompleteClustering(minCoupling));
+    }
+    
+    /**
+     * Indique qu'un clustering est en cours. À appeler sur l'EDT.
+     */
+    void showRunning() {
+        clusterButton.setEnabled(false);
+        exportButton.setEnabled(false);
+        resultArea.setText("Clustering en cours...");
+    }
+    
+    /**
+     * Affiche le résultat d'un clustering calculé en arrière-plan. À appeler sur l'EDT.
+     */
+    void showResult(ParserAnalyzer analyzer, ClusteringRun run) {
+        this.analyzer = analyzer;
+        this.clusteringService = run.service();
+        this.currentResult = run.result();
+        displayResults();
+        exportButton.setEnabled(true);
+        clusterButton.setEnabled(true);
+    }
+    
+    /**
+     * Affiche l'échec ou l'annulation du clustering. À appeler sur l'EDT.
+     */
+    void showError(Throwable error) {
+        clusterButton.setEnabled(true);
+        if (error instanceof CancellationException) {
+            resultArea.setText("Clustering annulé.");
+            return;
+        }
+        resultArea.setText("Erreur lors du clustering: " + error.getMessage());
+        JOptionPane.showMessageDialog(this, 
+            "Erreur lors du clustering: " + error.getMessage(), 
+            "Erreur", JOptionPane.ERROR_MESSAGE);
+        error.printStackTrace();
+    }
+    
+    /**
+     * Service et résultat d'un clustering.
+     */
+    record ClusteringRun(ClusteringService service, ClusteringService.ClusteringResult result) {}
+    
     /**
      * Effectue le clustering (méthode publique pour compatibilité).
      */
@@ -3,6 +3,7 @@ package com.tp.gui;
 import com.tp.analysis.CouplingService;
 import com.tp.spoon.SpoonCouplingService;
 import com.tp.ParserAnalyzer;
+import com.tp.model.CallGraph;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.Edge;
@@ -40,6 +41,9 @@ public class CouplingGraphPanel extends JPanel {
     private JRadioButton spoonRadioButton;
     private ButtonGroup analyzerGroup;
     private boolean useSpoon = false;
+    // Dernier couplage calculé (réutilisé par les curseurs sans recalcul)
+    private CouplingData couplingData;
+    private AnalysisTask<CouplingData> couplingTask;
     
     public CouplingGraphPanel() {
         setLayout(new BorderLayout());
@@ -76,15 +80,12 @@ public class CouplingGraphPanel extends JPanel {
         analyzerGroup.add(jdtRadioButton);
         analyzerGroup.add(spoonRadioButton);
         
-        jdtRadioButton.addActionListener(e -> {
-            useSpoon = false;
-            updateGraph();
-        });
+        jdtRadioButton.setSelected(!useSpoon);
+        spoonRadioButton.setSelected(useSpoon);
         
-        spoonRadioButton.addActionListener(e -> {
-            useSpoon = true;
-            updateGraph();
-        });
+        jdtRadioButton.addActionListener(e -> switchAnalyzer(false));
+        
+        spoonRadioButton.addActionListener(e -> switchAnalyzer(true));
         
         analyzerPanel.add(jdtRadioButton);
         analyzerPanel.add(spoonRadioButton);
@@ -131,56 +132,96 @@ public class CouplingGraphPanel extends JPanel {
     
     public void setAnalyzer(ParserAnalyzer analyzer) {
         this.analyzer = analyzer;
+        this.couplingData = null;
         if (analyzer != null) {
             statusLabel.setText("Analyseur prêt - Cliquez sur 'Analyser le Couplage'");
         }
     }
     
+    /**
+     * Calcule le couplage (JDT ou Spoon) en arrière-plan puis affiche le graphe sur l'EDT.
+     */
     private void analyzeCoupling() {
         if (analyzer == null) {
             JOptionPane.showMessageDialog(this, "Aucun analyseur disponible");
             return;
         }
+        if (couplingTask != null) {
+            couplingTask.cancel(true);
+        }
         
-        try {
-            statusLabel.setText("Analyse du couplage en cours...");
-            
-            Map<String, Map<String, Integer>> counts;
-            Map<String, Map<String, Double>> weights;
-            int total;
-            
-            if (useSpoon) {
-                // Utiliser Spoon pour le couplage
-                statusLabel.setText("Analyse du couplage avec Spoon...");
-                SpoonCouplingService spoonService = new SpoonCouplingService(analyzer);
-                spoonService.calculateCouplingMatrix();
-                counts = spoonService.getCouplingMatrix();
-                weights = spoonService.getCouplingWeights();
-                total = spoonService.getTotalCalls();
-            } else {
-                // Utiliser JDT pour le couplage
-                statusLabel.setText("Analyse du couplage avec JDT...");
-                CouplingService.resetPackageDetection();
-                Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-                counts = CouplingService.countInterClassCalls(callGraph);
-                total = CouplingService.totalInterClassEdges(counts);
-                weights = CouplingService.normalizeToCouplingWeights(counts, total);
-            }
-            
-            // Créer le graphe
-            createCouplingGraph(weights, counts, total);
-            
-            String analyzerType = useSpoon ? "Spoon" : "JDT";
-            statusLabel.setText(String.format("Graphe créé (%s) - %d arêtes inter-classes, %d nœuds affichés", 
-                analyzerType, total, graph.getNodeCount()));
-                
-        } catch (Exception e) {
-            e.printStackTrace();
-            statusLabel.setText("Erreur lors de l'analyse: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, "Erreur lors de l'analyse: " + e.getMessage());
+        ParserAnalyzer currentAnalyzer = analyzer;
+        boolean spoon = useSpoon;
+        statusLabel.setText(spoon ? "Analyse du couplage avec Spoon..." : "Analyse du couplage avec JDT...");
+        
+        AnalysisTask<CouplingData> task = new AnalysisTask<>(
+            t -> computeCoupling(currentAnalyzer, spoon),
+            data -> {
+                couplingTask = null;
+                couplingData = data;
+                try {
+                    // Créer le graphe
+                    createCouplingGraph(data.weights(), data.counts(), data.total());
+                    
+                    String analyzerType = data.spoon() ? "Spoon" : "JDT";
+                    statusLabel.setText(String.format("Graphe créé (%s) - %d arêtes inter-classes, %d nœuds affichés", 
+                        analyzerType, data.total(), graph.getNodeCount()));
+                } catch (Exception e) {
+                    showError(e);
+                }
+            },
+            error -> {
+                if (error instanceof java.util.concurrent.CancellationException) return;
+                couplingTask = null;
+                showError(error);
+            },
+            progress -> statusLabel.setText(progress.phase() + "..."));
+        couplingTask = task;
+        task.execute();
+    }
+    
+    /**
+     * Couplage entre classes selon l'analyseur choisi. Hors EDT.
+     */
+    private static CouplingData computeCoupling(ParserAnalyzer analyzer, boolean spoon) {
+        if (spoon) {
+            // Utiliser Spoon pour le couplage (modèle partagé via SpoonModelSession)
+            SpoonCouplingService spoonService = new SpoonCouplingService(analyzer);
+            spoonService.calculateCouplingMatrix();
+            return new CouplingData(spoonService.getCouplingMatrix(), spoonService.getCouplingWeights(),
+                spoonService.getTotalCalls(), true);
+        }
+        // Utiliser JDT pour le couplage
+        CallGraph callGraph = analyzer.getCompactCallGraph();
+        Map<String, Map<String, Integer>> counts = new CouplingService().countInterClassCalls(callGraph);
+        int total = CouplingService.totalInterClassEdges(counts);
+        return new CouplingData(counts, CouplingService.normalizeToCouplingWeights(counts, total), total, false);
+    }
+    
+    private void showError(Throwable e) {
+        e.printStackTrace();
+        statusLabel.setText("Erreur lors de l'analyse: " + e.getMessage());
+        JOptionPane.showMessageDialog(this, "Erreur lors de l'analyse: " + e.getMessage());
+    }
+    
+    /**
+     * Change d'analyseur ; le couplage est recalculé si un graphe est déjà affiché.
+     */
+    private void switchAnalyzer(boolean spoon) {
+        if (useSpoon == spoon) return;
+        useSpoon = spoon;
+        if (graph != null && analyzer != null) {
+            analyzeCoupling();
         }
     }
     
+    /**
+     * Couplage calculé par un analyseur.
+     */
+    private record CouplingData(Map<String, Map<String, Integer>> counts,
+                                Map<String, Map<String, Double>> weights,
+                                int total, boolean spoon) {}
+    
     private void createCouplingGraph(Map<String, Map<String, Double>> weights, 
                                    Map<String, Map<String, Integer>> counts, 
                                    int totalEdges) {
@@ -362,15 +403,10 @@ public class CouplingGraphPanel extends JPanel {
         weightLabel.setText(String.format("%.3f%%", weightValue * 100));
         nodeLabel.setText(String.valueOf(nodeSlider.getValue()));
         
-        // Recréer le graphe avec les nouveaux paramètres seulement si le graphe existe déjà
-        if (graph != null) {
+        // Recréer le graphe avec les nouveaux paramètres à partir du dernier couplage calculé
+        if (graph != null && couplingData != null) {
             try {
-                Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-                Map<String, Map<String, Integer>> counts = CouplingService.countInterClassCalls(callGraph);
-                int total = CouplingService.totalInterClassEdges(counts);
-                Map<String, Map<String, Double>> weights = CouplingService.normalizeToCouplingWeights(counts, total);
-                
-                createCouplingGraph(weights, counts, total);
+                createCouplingGraph(couplingData.weights(), couplingData.counts(), couplingData.total());
             } catch (Exception e) {
                 e.printStackTrace();
             }
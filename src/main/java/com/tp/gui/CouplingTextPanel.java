@@ -3,6 +3,7 @@ package com.tp.gui;
 import com.tp.analysis.CouplingService;
 import com.tp.spoon.SpoonCouplingService;
 import com.tp.ParserAnalyzer;
+import com.tp.model.CallGraph;
 
 import javax.swing.*;
 import java.awt.*;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 /**
  * Composant pour afficher le résumé textuel du couplage entre classes.
@@ -20,6 +22,7 @@ public class CouplingTextPanel extends JPanel {
     private JScrollPane scrollPane;
     private ParserAnalyzer analyzer;
     private JLabel statusLabel;
+    private JButton analyzeBtn;
     
     public CouplingTextPanel() {
         setLayout(new BorderLayout());
@@ -58,7 +61,7 @@ public class CouplingTextPanel extends JPanel {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         
         // Bouton d'analyse
-        JButton analyzeBtn = new JButton("Analyser le Couplage");
+        analyzeBtn = new JButton("Analyser le Couplage");
         analyzeBtn.addActionListener(e -> analyzeCoupling());
         panel.add(analyzeBtn);
         
@@ -82,67 +85,82 @@ public class CouplingTextPanel extends JPanel {
         }
     }
     
+    /**
+     * Calcule les couplages JDT et Spoon en parallèle, en arrière-plan,
+     * puis affiche le résumé combiné sur l'EDT.
+     */
     private void analyzeCoupling() {
         if (analyzer == null) {
             JOptionPane.showMessageDialog(this, "Aucun analyseur disponible");
             return;
         }
         
-        try {
-            statusLabel.setText("Analyse du couplage en cours...");
-            
-            StringBuilder combinedSummary = new StringBuilder();
-            
-            // === ANALYSE JDT ===
-            statusLabel.setText("Analyse JDT en cours...");
-            CouplingService.resetPackageDetection();
-            Map<String, Set<String>> callGraph = analyzer.getCallGraph();
-            Map<String, Map<String, Integer>> jdtCounts = CouplingService.countInterClassCalls(callGraph);
-            int jdtTotal = CouplingService.totalInterClassEdges(jdtCounts);
-            Map<String, Map<String, Double>> jdtWeights = CouplingService.normalizeToCouplingWeights(jdtCounts, jdtTotal);
-            
-            String jdtSummary = generateCouplingSummary(jdtWeights, jdtCounts, jdtTotal, "JDT");
-            combinedSummary.append(jdtSummary);
-            
-            // === ANALYSE SPOON ===
-            statusLabel.setText("Analyse Spoon en cours...");
-            SpoonCouplingService spoonService = new SpoonCouplingService(analyzer);
-            spoonService.calculateCouplingMatrix();
-            Map<String, Map<String, Integer>> spoonCounts = spoonService.getCouplingMatrix();
-            Map<String, Map<String, Double>> spoonWeights = spoonService.getCouplingWeights();
-            int spoonTotal = spoonService.getTotalCalls();
-            
-            String spoonSummary = generateCouplingSummary(spoonWeights, spoonCounts, spoonTotal, "Spoon");
-            combinedSummary.append("\n\n").append(spoonSummary);
-            
-            // === COMPARAISON ===
-            combinedSummary.append("\n\n").append(generateComparisonSummary(jdtWeights, jdtCounts, jdtTotal, 
-                                                                           spoonWeights, spoonCounts, spoonTotal));
-            
-            // Afficher le résumé combiné
-            textArea.setText(combinedSummary.toString());
-            textArea.setCaretPosition(0);
-            
-            statusLabel.setText(String.format("Résumé généré - JDT: %d connexions, Spoon: %d connexions", 
-                jdtTotal, spoonTotal));
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            statusLabel.setText("Erreur lors de l'analyse: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, "Erreur lors de l'analyse: " + e.getMessage());
-        }
+        ParserAnalyzer currentAnalyzer = analyzer;
+        statusLabel.setText("Analyse du couplage en cours...");
+        analyzeBtn.setEnabled(false);
+        
+        new AnalysisTask<String[]>(
+            task -> {
+                // === ANALYSE SPOON === (en parallèle de JDT)
+                Future<SpoonCouplingService> spoon = task.fork(() -> {
+                    task.listener("Spoon").phaseStarted("Couplage");
+                    SpoonCouplingService spoonService = new SpoonCouplingService(currentAnalyzer);
+                    spoonService.calculateCouplingMatrix();
+                    return spoonService;
+                });
+                
+                // === ANALYSE JDT ===
+                task.listener("JDT").phaseStarted("Couplage");
+                CallGraph callGraph = currentAnalyzer.getCompactCallGraph();
+                CouplingService jdtService = new CouplingService();
+                Map<String, Map<String, Integer>> jdtCounts = jdtService.countInterClassCalls(callGraph);
+                Set<String> detectedPackages = jdtService.getDetectedPackages();
+                int jdtTotal = CouplingService.totalInterClassEdges(jdtCounts);
+                Map<String, Map<String, Double>> jdtWeights = CouplingService.normalizeToCouplingWeights(jdtCounts, jdtTotal);
+                
+                StringBuilder combinedSummary = new StringBuilder();
+                combinedSummary.append(generateCouplingSummary(jdtWeights, jdtCounts, jdtTotal, "JDT", detectedPackages));
+                
+                SpoonCouplingService spoonService = task.join(spoon);
+                Map<String, Map<String, Integer>> spoonCounts = spoonService.getCouplingMatrix();
+                Map<String, Map<String, Double>> spoonWeights = spoonService.getCouplingWeights();
+                int spoonTotal = spoonService.getTotalCalls();
+                combinedSummary.append("\n\n").append(generateCouplingSummary(spoonWeights, spoonCounts, spoonTotal, "Spoon", detectedPackages));
+                
+                // === COMPARAISON ===
+                combinedSummary.append("\n\n").append(generateComparisonSummary(jdtWeights, jdtCounts, jdtTotal, 
+                                                                               spoonWeights, spoonCounts, spoonTotal));
+                String status = String.format("Résumé généré - JDT: %d connexions, Spoon: %d connexions", 
+                    jdtTotal, spoonTotal);
+                return new String[] {combinedSummary.toString(), status};
+            },
+            result -> {
+                // Afficher le résumé combiné
+                textArea.setText(result[0]);
+                textArea.setCaretPosition(0);
+                statusLabel.setText(result[1]);
+                analyzeBtn.setEnabled(true);
+            },
+            e -> {
+                analyzeBtn.setEnabled(true);
+                e.printStackTrace();
+                statusLabel.setText("Erreur lors de l'analyse: " + e.getMessage());
+                JOptionPane.showMessageDialog(this, "Erreur lors de l'analyse: " + e.getMessage());
+            },
+            progress -> statusLabel.setText(progress.phase() + "..."))
+            .execute();
     }
     
     private String generateCouplingSummary(Map<String, Map<String, Double>> weights,
                                          Map<String, Map<String, Integer>> counts,
-                                         int totalEdges, String analyzerType) {
+                                         int totalEdges, String analyzerType,
+                                         Set<String> detectedPackages) {
         StringBuilder sb = new StringBuilder();
         
         // En-tête
         sb.append("=== RÉSUMÉ COUPLAGE ENTRE CLASSES (").append(analyzerType).append(") ===\n\n");
         
-        // Packages détectés
-        Set<String> detectedPackages = CouplingService.getDetectedPackages();
+        // Packages détectés (session JDT)
         if (!detectedPackages.isEmpty()) {
             sb.append("Packages détectés : ");
             sb.append(String.join(", ", detectedPackages));
@@ -0,0 +1,190 @@
+package com.tp.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graphe d'appel compact et immuable.
+ *
+ * Les méthodes sont des identifiants de la {@link SymbolTable} ; les arêtes sont
+ * stockées au format CSR : les appelés du nœud i sont targets[offsets[i] .. offsets[i+1]).
+ * Un nœud est une méthode appelante (méthode déclarée dans le projet) ; les appelés
+ * peuvent être n'importe quelle méthode de la table, qualifiée ou non.
+ */
+public class CallGraph {
+    private final SymbolTable symbols;
+    private final int[] callers;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] nodeOfMethod;
+
+    private CallGraph(SymbolTable symbols, int[] callers, int[] offsets, int[] targets) {
+        this.symbols = symbols;
+        this.callers = callers;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.nodeOfMethod = new int[symbols.methodCount()];
+        Arrays.fill(nodeOfMethod, -1);
+        for (int node = 0; node < callers.length; node++) {
+            nodeOfMethod[callers[node]] = node;
+        }
+    }
+
+    public SymbolTable getSymbols() { return symbols; }
+
+    /** Nombre de méthodes appelantes. */
+    public int nodeCount() { return callers.length; }
+
+    /** Nombre total d'arêtes appelant -> appelé. */
+    public int edgeCount() { return targets.length; }
+
+    /** Identifiant de méthode du nœud appelant. */
+    public int caller(int node) { return callers[node]; }
+
+    /** Nombre d'appelés distincts du nœud. */
+    public int degree(int node) { return offsets[node + 1] - offsets[node]; }
+
+    /** k-ième appelé (identifiant de méthode) du nœud. */
+    public int callee(int node, int k) { return targets[offsets[node] + k]; }
+
+    /** Nœud de la méthode appelante, ou -1 si la méthode n'appelle rien / n'est pas déclarée. */
+    public int nodeOf(int methodId) {
+        return methodId >= 0 && methodId < nodeOfMethod.length ? nodeOfMethod[methodId] : -1;
+    }
+
+    /**
+     * Vue Map "appelant -> appelés" avec des noms complets, pour le code existant.
+     * Construite à chaque appel : à mettre en cache par l'appelant.
+     */
+    public Map<String, Set<String>> toMap() {
+        Map<String, Set<String>> map = new HashMap<>(callers.length * 2);
+        for (int node = 0; node < callers.length; node++) {
+            Set<String> callees = new HashSet<>();
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                callees.add(symbols.methodFullName(targets[k]));
+            }
+            map.put(symbols.methodFullName(callers[node]), callees);
+        }
+        return map;
+    }
+
+    /**
+     * Construit un graphe compact à partir d'une Map "appelant -> appelés".
+     */
+    public static CallGraph fromMap(Map<String, Set<String>> callGraph) {
+        Builder builder = new Builder(new SymbolTable());
+        for (var entry : callGraph.entrySet()) {
+            int caller = builder.addCaller(entry.getKey());
+            for (String callee : entry.getValue()) {
+                builder.addCall(caller, builder.getSymbols().internMethod(callee));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Construction incrémentale du graphe : les appelés de chaque nœud sont
+     * dédupliqués, l'ordre d'insertion des nœuds et des arêtes est conservé.
+     * Les index (méthode -> nœud, arêtes présentes) sont des tableaux primitifs ;
+     * le builder n'est plus utile une fois le graphe figé et peut être libéré.
+     */
+    public static class Builder {
+        private final SymbolTable symbols;
+        // Nœud de chaque méthode appelante, indexé par identifiant de méthode (-1 : aucun)
+        private int[] nodeOfMethod = new int[0];
+        private int[] callers = new int[64];
+        private int[][] callees = new int[64][];
+        private int[] sizes = new int[64];
+        private int nodeCount;
+        // Arêtes présentes : clé (nœud, appelé) -> nœud
+        private final LongIntHashMap edges = new LongIntHashMap();
+
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
+        public SymbolTable getSymbols() { return symbols; }
+
+        public int nodeCount() { return nodeCount; }
+        public int caller(int node) { return callers[node]; }
+        public int degree(int node) { return sizes[node]; }
+        public int callee(int node, int k) { return callees[node][k]; }
+
+        /** Nœud d'une méthode appelante, ou -1. */
+        public int nodeOf(int methodId) {
+            return methodId >= 0 && methodId < nodeOfMethod.length ? nodeOfMethod[methodId] : -1;
+        }
+
+        /** Ajoute (si besoin) la méthode appelante et retourne son nœud. */
+        public int addCaller(int methodId) {
+            int node = nodeOf(methodId);
+            if (node >= 0) return node;
+            if (methodId >= nodeOfMethod.length) {
+                int oldLength = nodeOfMethod.length;
+                nodeOfMethod = Arrays.copyOf(nodeOfMethod, Math.max(64, Math.max(methodId + 1, oldLength * 2)));
+                Arrays.fill(nodeOfMethod, oldLength, nodeOfMethod.length, -1);
+            }
+            if (nodeCount == callers.length) {
+                callers = Arrays.copyOf(callers, nodeCount * 2);
+                callees = Arrays.copyOf(callees, nodeCount * 2);
+                sizes = Arrays.copyOf(sizes, nodeCount * 2);
+            }
+            callers[nodeCount] = methodId;
+            callees[nodeCount] = new int[4];
+            nodeOfMethod[methodId] = nodeCount;
+            return nodeCount++;
+        }
+
+        public int addCaller(String fullMethodName) {
+            return addCaller(symbols.internMethod(fullMethodName));
+        }
+
+        /** Ajoute l'arête nœud -> méthode appelée (ignorée si déjà présente). */
+        public void addCall(int node, int calleeMethodId) {
+            if (edges.putIfAbsent(edgeKey(node, calleeMethodId), node) >= 0) return;
+            if (sizes[node] == callees[node].length) {
+                callees[node] = Arrays.copyOf(callees[node], sizes[node] * 2);
+            }
+            callees[node][sizes[node]++] = calleeMethodId;
+        }
+
+        /**
+         * Remplace le k-ième appelé du nœud ; si le nouvel appelé est déjà présent,
+         * l'arête est fusionnée : les appelés suivants sont décalés d'un rang (l'ordre
+         * d'insertion est conservé). Retourne false dans ce cas (l'indice k désigne alors
+         * l'appelé suivant).
+         */
+        public boolean replaceCall(int node, int k, int calleeMethodId) {
+            int old = callees[node][k];
+            if (old == calleeMethodId) return true;
+            edges.remove(edgeKey(node, old));
+            if (edges.putIfAbsent(edgeKey(node, calleeMethodId), node) < 0) {
+                callees[node][k] = calleeMethodId;
+                return true;
+            }
+            int size = --sizes[node];
+            System.arraycopy(callees[node], k + 1, callees[node], k, size - k);
+            return false;
+        }
+
+        /** Fige le graphe au format CSR. */
+        public CallGraph build() {
+            int[] offsets = new int[nodeCount + 1];
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] = offsets[node] + sizes[node];
+            }
+            int[] targets = new int[offsets[nodeCount]];
+            for (int node = 0; node < nodeCount; node++) {
+                System.arraycopy(callees[node], 0, targets, offsets[node], sizes[node]);
+            }
+            return new CallGraph(symbols, Arrays.copyOf(callers, nodeCount), offsets, targets);
+        }
+
+        private static long edgeKey(int node, int calleeMethodId) {
+            return ((long) node << 32) | (calleeMethodId & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tp.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,7 +8,9 @@ import java.util.List;
  * Modèle de données pour stocker les métriques d'une classe.
  * Contient le nom, le package, le nombre d'attributs et la liste des méthodes.
  */
-public class ClassMetrics {
+public class ClassMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String packageName;
     private String name;
     private int attributeCount;
@@ -0,0 +1,103 @@
+package com.tp.model;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> int à adressage ouvert (sondage linéaire), sans boxing.
+ *
+ * Les valeurs sont des identifiants positifs ou nuls : -1 marque une case vide
+ * et signale une clé absente. La suppression décale les entrées suivantes
+ * (pas de marqueur de suppression), la table reste donc compacte.
+ */
+final class LongIntHashMap {
+    private static final int ABSENT = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(16);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Valeur associée à la clé, ou -1 si la clé est absente. */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == ABSENT) return ABSENT;
+            if (keys[slot] == key) return values[slot];
+        }
+    }
+
+    /**
+     * Associe la valeur (positive ou nulle) à la clé si elle est absente.
+     * Retourne la valeur déjà présente, ou -1 si l'entrée a été ajoutée.
+     */
+    int putIfAbsent(long key, int value) {
+        int slot = slot(key);
+        for (; values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return ABSENT;
+    }
+
+    /** Supprime la clé ; retourne false si elle était absente. */
+    boolean remove(long key) {
+        int slot = slot(key);
+        for (; keys[slot] != key || values[slot] == ABSENT; slot = (slot + 1) & mask) {
+            if (values[slot] == ABSENT) return false;
+        }
+        values[slot] = ABSENT;
+        size--;
+        // Rapproche de leur case idéale les entrées de la même séquence de sondage
+        for (int next = (slot + 1) & mask; values[next] != ABSENT; next = (next + 1) & mask) {
+            int ideal = slot(keys[next]);
+            if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                values[next] = ABSENT;
+                slot = next;
+            }
+        }
+        return true;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, ABSENT);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == ABSENT) continue;
+            int slot = slot(oldKeys[i]);
+            while (values[slot] != ABSENT) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
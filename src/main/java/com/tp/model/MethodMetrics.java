@@ -1,10 +1,14 @@
 package com.tp.model;
 
+import java.io.Serializable;
+
 /**
  * Modèle pour stocker les métriques d'une méthode.
  * Contient le nom, le nombre de lignes de code (LOC) et le nombre de paramètres.
  */
-public class MethodMetrics {
+public class MethodMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private int lineCount;  // Nombre de lignes de code (LOC)
     private int paramCount; // Nombre de paramètres
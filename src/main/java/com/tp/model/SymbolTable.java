@@ -0,0 +1,131 @@
+package com.tp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table des symboles du graphe d'appel : internalise les noms de classes et
+ * les noms simples de méthodes en identifiants entiers.
+ *
+ * Une méthode est le couple (classe, nom simple) ; "pkg.Class.method" est découpé
+ * au dernier point. Un nom sans point (appel non résolu, ex: "println") a la classe -1.
+ * Ainsi le préfixe "pkg.Class" n'est stocké qu'une fois, quel que soit le nombre
+ * de méthodes ou d'appels qui le référencent.
+ */
+public class SymbolTable {
+    /** Identifiant de classe des méthodes non qualifiées. */
+    public static final int NO_CLASS = -1;
+
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Méthode i = (methodClass[i], methodName[i]) ; clé (classe+1, nom) -> identifiant
+    private final LongIntHashMap methodIds = new LongIntHashMap(64);
+    private int[] methodClass = new int[64];
+    private int[] methodName = new int[64];
+    private int methodCount;
+
+    public int internClass(String className) {
+        Integer id = classIds.get(className);
+        if (id == null) {
+            id = classNames.size();
+            classIds.put(className, id);
+            classNames.add(className);
+        }
+        return id;
+    }
+
+    public int internName(String simpleName) {
+        Integer id = nameIds.get(simpleName);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(simpleName, id);
+            names.add(simpleName);
+        }
+        return id;
+    }
+
+    /**
+     * Internalise la méthode (classe, nom) et retourne son identifiant.
+     */
+    public int internMethod(int classId, int nameId) {
+        long key = methodKey(classId, nameId);
+        int id = methodIds.get(key);
+        if (id < 0) {
+            if (methodCount == methodClass.length) {
+                methodClass = Arrays.copyOf(methodClass, methodCount * 2);
+                methodName = Arrays.copyOf(methodName, methodCount * 2);
+            }
+            id = methodCount++;
+            methodClass[id] = classId;
+            methodName[id] = nameId;
+            methodIds.putIfAbsent(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Internalise une méthode à partir de son nom complet "pkg.Class.method".
+     */
+    public int internMethod(String fullMethodName) {
+        int lastDot = fullMethodName.lastIndexOf('.');
+        if (lastDot < 0) {
+            return internMethod(NO_CLASS, internName(fullMethodName));
+        }
+        return internMethod(internClass(fullMethodName.substring(0, lastDot)),
+                            internName(fullMethodName.substring(lastDot + 1)));
+    }
+
+    /**
+     * Identifiant d'une méthode déjà connue, ou -1.
+     */
+    public int findMethod(String fullMethodName) {
+        int lastDot = fullMethodName.lastIndexOf('.');
+        Integer classId = NO_CLASS;
+        String simpleName = fullMethodName;
+        if (lastDot >= 0) {
+            classId = classIds.get(fullMethodName.substring(0, lastDot));
+            simpleName = fullMethodName.substring(lastDot + 1);
+        }
+        Integer nameId = nameIds.get(simpleName);
+        if (classId == null || nameId == null) return -1;
+        return methodIds.get(methodKey(classId, nameId));
+    }
+
+    public int findClass(String className) {
+        Integer id = classIds.get(className);
+        return id != null ? id : -1;
+    }
+
+    public int findName(String simpleName) {
+        Integer id = nameIds.get(simpleName);
+        return id != null ? id : -1;
+    }
+
+    public String className(int classId) { return classNames.get(classId); }
+    public String name(int nameId) { return names.get(nameId); }
+    public int methodClass(int methodId) { return methodClass[methodId]; }
+    public int methodName(int methodId) { return methodName[methodId]; }
+
+    /**
+     * Reconstruit le nom complet "pkg.Class.method" (ou le nom simple si non qualifiée).
+     */
+    public String methodFullName(int methodId) {
+        int classId = methodClass[methodId];
+        String simpleName = names.get(methodName[methodId]);
+        return classId == NO_CLASS ? simpleName : classNames.get(classId) + "." + simpleName;
+    }
+
+    public int classCount() { return classNames.size(); }
+    public int nameCount() { return names.size(); }
+    public int methodCount() { return methodCount; }
+
+    private static long methodKey(int classId, int nameId) {
+        return ((long) (classId + 1) << 32) | (nameId & 0xFFFFFFFFL);
+    }
+}
@@ -1,9 +1,13 @@
 package com.tp.spoon;
 
+import com.tp.analysis.BranchCoupling;
 import com.tp.analysis.DendrogramNode;
 import com.tp.analysis.HierarchicalClustering;
 import com.tp.analysis.ModuleIdentifier;
 import com.tp.analysis.ClusteringService;
+import com.tp.analysis.ClusteringListener;
+import com.tp.analysis.CouplingMatrix;
+import com.tp.analysis.PhaseMetrics;
 import java.util.*;
 
 /**
@@ -14,6 +18,9 @@ public class SpoonClusteringService {
     
     private final SpoonCouplingService couplingService;
     private DendrogramNode dendrogram;
+    private BranchCoupling branchCoupling;
+    private ClusteringListener listener = ClusteringListener.NONE;
+    private PhaseMetrics metrics = PhaseMetrics.NONE;
     private List<ModuleIdentifier.Module> modules;
     private double minCouplingUsed;
     
@@ -21,44 +28,97 @@ public class SpoonClusteringService {
         this.couplingService = couplingService;
     }
     
+    /**
+     * Définit l'écouteur de progression et de trace, transmis au clustering
+     * et à l'identification des modules (ClusteringListener.NONE par défaut).
+     */
+    public void setListener(ClusteringListener listener) {
+        this.listener = listener != null ? listener : ClusteringListener.NONE;
+    }
+    
+    /**
+     * Définit le registre des mesures : étapes "Clustering" (classes, fusions)
+     * et "Modules" (modules identifiés). PhaseMetrics.NONE par défaut.
+     */
+    public void setMetrics(PhaseMetrics metrics) {
+        this.metrics = metrics != null ? metrics : PhaseMetrics.NONE;
+    }
+    
     /**
      * Effectue le clustering hiérarchique complet.
      */
     public ClusteringService.ClusteringResult performCompleteClustering(double minCoupling) {
-        this.minCouplingUsed = minCoupling;
-        
-        System.out.println("=== DÉBUT PROCESSUS DE CLUSTERING SPOON ===");
+        if (listener.isTraceEnabled()) {
+            listener.trace("=== DÉBUT PROCESSUS DE CLUSTERING SPOON ===");
+        }
         
         // Calculer le couplage avec Spoon
         couplingService.calculateCouplingMatrix();
         
         // Obtenir les données de couplage
-        Map<String, Map<String, Integer>> couplingMatrix = couplingService.getCouplingMatrix();
-        Map<String, Map<String, Double>> couplingWeights = couplingService.getCouplingWeights();
+        CouplingMatrix coupling = couplingService.getCoupling();
         
         // Étape 1: Clustering hiérarchique
-        System.out.println("\n1. CLUSTERING HIÉRARCHIQUE (SPOON)");
-        HierarchicalClustering clustering = new HierarchicalClustering(couplingMatrix, couplingWeights);
-        this.dendrogram = clustering.performClustering();
+        listener.phaseStarted("1. CLUSTERING HIÉRARCHIQUE (SPOON)");
+        HierarchicalClustering clustering = new HierarchicalClustering(coupling);
+        clustering.setListener(listener);
+        try (PhaseMetrics.Scope phase = metrics.start("Clustering")) {
+            this.dendrogram = clustering.performClustering();
+            phase.count("classes", dendrogram.getClassCount())
+                 .count("merges", Math.max(0, dendrogram.getClassCount() - 1));
+        }
         
         // Afficher le dendrogramme
-        clustering.printDendrogram(dendrogram);
+        if (listener.isTraceEnabled()) {
+            listener.trace(clustering.formatDendrogram(dendrogram));
+        }
+        
+        // Étapes 2 et 3: Identification des modules et rapport
+        this.branchCoupling = null;
+        ClusteringService.ClusteringResult result = cut(minCoupling);
+        
+        if (listener.isTraceEnabled()) {
+            listener.trace("\n=== FIN PROCESSUS DE CLUSTERING SPOON ===");
+        }
+        return result;
+    }
+    
+    /**
+     * Identifie à nouveau les modules avec un autre couplage minimum, sans recalculer
+     * le couplage Spoon ni le clustering (voir {@link ClusteringService#recut}).
+     */
+    public ClusteringService.ClusteringResult recut(double minCoupling) {
+        if (dendrogram == null) {
+            throw new IllegalStateException("Aucun clustering Spoon effectué. Exécutez d'abord performCompleteClustering().");
+        }
+        return cut(minCoupling);
+    }
+    
+    private ClusteringService.ClusteringResult cut(double minCoupling) {
+        this.minCouplingUsed = minCoupling;
+        CouplingMatrix coupling = couplingService.getCoupling();
         
         // Étape 2: Identification des modules
-        System.out.println("\n2. IDENTIFICATION DES MODULES (SPOON)");
+        listener.phaseStarted("2. IDENTIFICATION DES MODULES (SPOON)");
         int totalClasses = dendrogram.getClassCount();
-        System.out.println("Nombre total de classes détectées: " + totalClasses);
+        if (listener.isTraceEnabled()) {
+            listener.trace("Nombre total de classes détectées: " + totalClasses);
+        }
         
-        ModuleIdentifier moduleIdentifier = new ModuleIdentifier(dendrogram, totalClasses, minCoupling, couplingWeights);
-        this.modules = moduleIdentifier.identifyModules();
+        try (PhaseMetrics.Scope phase = metrics.start("Modules")) {
+            // Couplages moyens des branches calculés une fois par dendrogramme
+            if (branchCoupling == null) {
+                branchCoupling = new BranchCoupling(dendrogram, coupling);
+            }
+            ModuleIdentifier moduleIdentifier = new ModuleIdentifier(dendrogram, totalClasses, minCoupling, branchCoupling);
+            moduleIdentifier.setListener(listener);
+            this.modules = moduleIdentifier.identifyModules();
+            phase.count("modules", modules.size());
+        }
         
         // Étape 3: Génération du rapport
-        System.out.println("\n3. GÉNÉRATION DU RAPPORT (SPOON)");
-        ClusteringService.ClusteringResult result = new ClusteringService.ClusteringResult(
-            dendrogram, modules, couplingMatrix, couplingWeights);
-        
-        System.out.println("\n=== FIN PROCESSUS DE CLUSTERING SPOON ===");
-        return result;
+        listener.phaseStarted("3. GÉNÉRATION DU RAPPORT (SPOON)");
+        return new ClusteringService.ClusteringResult(dendrogram, modules, coupling);
     }
     
     /**
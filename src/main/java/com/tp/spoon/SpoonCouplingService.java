@@ -1,7 +1,8 @@
 package com.tp.spoon;
 
 import com.tp.ParserAnalyzer;
-import spoon.Launcher;
+import com.tp.analysis.CouplingMatrix;
+import com.tp.analysis.PhaseMetrics;
 import spoon.reflect.CtModel;
 import spoon.reflect.declaration.*;
 import spoon.reflect.code.*;
@@ -12,63 +13,80 @@ import java.util.*;
 /**
  * Service de calcul de couplage utilisant Spoon.
  * Génère son propre graphe d'appel avec Spoon et calcule le couplage indépendamment de JDT.
+ * Le modèle Spoon et le couplage qui en découle sont partagés via {@link SpoonModelSession} :
+ * plusieurs instances sur le même chemin source ne reconstruisent pas le modèle.
  */
 public class SpoonCouplingService {
     
-    private final String projectSourcePath;
-    private CtModel spoonModel;
+    private final SpoonModelSession session;
     private Map<String, Set<String>> spoonCallGraph;
     private Map<String, Map<String, Integer>> couplingMatrix;
     private Map<String, Map<String, Double>> couplingWeights;
+    private CouplingMatrix coupling;
     private int totalCalls;
+    private PhaseMetrics metrics = PhaseMetrics.NONE;
     
     public SpoonCouplingService(ParserAnalyzer jdtAnalyzer) {
-        this.projectSourcePath = jdtAnalyzer.getSourcePath();
+        this.session = SpoonModelSession.forSource(jdtAnalyzer.getSourcePath());
+    }
+    
+    /**
+     * Définit le registre des mesures : étape "Couplage" (méthodes, paires de classes, appels),
+     * qui inclut l'étape "Modèle" (construction ou reprise du modèle, types). PhaseMetrics.NONE par défaut.
+     */
+    public void setMetrics(PhaseMetrics metrics) {
+        this.metrics = metrics != null ? metrics : PhaseMetrics.NONE;
     }
     
     /**
      * Calcule la matrice de couplage en utilisant Spoon.
+     * Le résultat est mis en cache dans la session tant que les sources ne changent pas.
      */
     public void calculateCouplingMatrix() {
         System.out.println("=== CALCUL DU COUPLAGE SPOON ===");
         
-        // Étape 1: Construire le modèle Spoon
-        buildSpoonModel();
-        
-        // Étape 2: Générer le graphe d'appel avec Spoon
-        generateSpoonCallGraph();
-        
-        // Étape 3: Calculer la matrice de couplage
-        calculateCouplingMatrixFromCallGraph();
+        SpoonCoupling coupling;
+        try (PhaseMetrics.Scope phase = metrics.start("Couplage")) {
+            // Modèle mesuré à part (construit ou repris de la session)
+            CtModel model;
+            try (PhaseMetrics.Scope modelPhase = metrics.start("Modèle")) {
+                model = session.getModel();
+                modelPhase.count("types", model.getAllTypes().size());
+            }
+            // Même modèle : les sources ne sont parcourues qu'une fois par calcul
+            coupling = session.derived(model, SpoonCoupling.class.getName(), this::computeCoupling);
+            phase.count("methods", coupling.callGraph().size())
+                 .count("classPairs", coupling.matrix().values().stream().mapToInt(Map::size).sum())
+                 .count("calls", coupling.totalCalls());
+        }
+        this.spoonCallGraph = coupling.callGraph();
+        this.couplingMatrix = coupling.matrix();
+        this.couplingWeights = coupling.weights();
+        this.coupling = coupling.symmetric();
+        this.totalCalls = coupling.totalCalls();
         
         System.out.println("Couplage Spoon calculé: " + totalCalls + " appels inter-classes");
     }
     
     /**
-     * Construit le modèle Spoon à partir du code source.
+     * Graphe d'appel et couplage calculés à partir d'un modèle Spoon.
      */
-    private void buildSpoonModel() {
-        try {
-            Launcher launcher = new Launcher();
-            launcher.addInputResource(projectSourcePath);
-            launcher.getEnvironment().setComplianceLevel(17);
-            launcher.getEnvironment().setNoClasspath(false);
-            launcher.buildModel();
-            
-            this.spoonModel = launcher.getModel();
-            System.out.println("Modèle Spoon construit avec " + spoonModel.getAllTypes().size() + " types");
-            
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la construction du modèle Spoon: " + e.getMessage());
-            throw new RuntimeException("Impossible de construire le modèle Spoon", e);
-        }
+    private SpoonCoupling computeCoupling(CtModel spoonModel) {
+        // Étape 1: Générer le graphe d'appel avec Spoon
+        Map<String, Set<String>> callGraph = generateSpoonCallGraph(spoonModel);
+        
+        // Étape 2: Calculer la matrice de couplage
+        Map<String, Map<String, Integer>> matrix = calculateCouplingMatrixFromCallGraph(callGraph);
+        int total = totalInterClassEdges(matrix);
+        Map<String, Map<String, Double>> weights = normalizeToCouplingWeights(matrix, total);
+        return new SpoonCoupling(callGraph, matrix, weights, CouplingMatrix.fromMaps(matrix, weights), total);
     }
     
     /**
      * Génère le graphe d'appel en utilisant Spoon.
      */
-    private void generateSpoonCallGraph() {
-        this.spoonCallGraph = new HashMap<>();
+    private Map<String, Set<String>> generateSpoonCallGraph(CtModel spoonModel) {
+        Map<String, Set<String>> spoonCallGraph = new HashMap<>();
         
         // Parcourir tous les types dans le modèle Spoon
         for (CtType<?> type : spoonModel.getAllTypes()) {
@@ -96,6 +114,7 @@ public class SpoonCouplingService {
         }
         
         System.out.println("Graphe d'appel Spoon généré avec " + spoonCallGraph.size() + " méthodes");
+        return spoonCallGraph;
     }
     
     /**
@@ -180,7 +199,8 @@ public class SpoonCouplingService {
     /**
      * Calcule la matrice de couplage à partir du graphe d'appel Spoon.
      */
-    private void calculateCouplingMatrixFromCallGraph() {
+    private Map<String, Map<String, Integer>> calculateCouplingMatrixFromCallGraph(
+            Map<String, Set<String>> spoonCallGraph) {
         Map<String, Map<String, Integer>> matrix = new HashMap<>();
         Set<String> uniqueCalls = new HashSet<>();
         
@@ -202,9 +222,7 @@ public class SpoonCouplingService {
             }
         }
         
-        this.couplingMatrix = matrix;
-        this.totalCalls = totalInterClassEdges(couplingMatrix);
-        this.couplingWeights = normalizeToCouplingWeights(couplingMatrix, totalCalls);
+        return matrix;
     }
     
     /**
@@ -315,7 +333,21 @@ public class SpoonCouplingService {
         return report.toString();
     }
     
+    /**
+     * Résultats partagés d'un modèle Spoon (ne pas modifier) ; symmetric additionne
+     * les appels des deux sens de chaque paire de classes.
+     */
+    private record SpoonCoupling(Map<String, Set<String>> callGraph,
+                                 Map<String, Map<String, Integer>> matrix,
+                                 Map<String, Map<String, Double>> weights,
+                                 CouplingMatrix symmetric,
+                                 int totalCalls) {}
+    
     // Getters
+    public SpoonModelSession getSession() {
+        return session;
+    }
+    
     public Map<String, Map<String, Integer>> getCouplingMatrix() {
         return couplingMatrix;
     }
@@ -324,6 +356,13 @@ public class SpoonCouplingService {
         return couplingWeights;
     }
     
+    /**
+     * Matrice de couplage symétrique (appels des deux sens additionnés), pour le clustering et l'export.
+     */
+    public CouplingMatrix getCoupling() {
+        return coupling;
+    }
+    
     public int getTotalCalls() {
         return totalCalls;
     }
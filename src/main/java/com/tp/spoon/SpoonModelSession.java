@@ -0,0 +1,189 @@
+package com.tp.spoon;
+
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Session Spoon partagée pour un répertoire source.
+ *
+ * Le modèle Spoon (CtModel) est coûteux à construire : il est construit une seule fois
+ * par chemin source et réutilisé par le couplage, le clustering et les panneaux graphiques.
+ * Une empreinte des fichiers .java (chemin, taille, date de modification) est vérifiée
+ * à chaque accès ; si elle a changé, le modèle et les résultats dérivés sont reconstruits.
+ *
+ * Seules les MAX_SESSIONS sessions les plus récemment demandées sont conservées :
+ * le modèle d'une session évincée est libéré (il sera reconstruit si elle est encore utilisée).
+ */
+public final class SpoonModelSession {
+
+    // Sessions conservées (un modèle Spoon occupe une grande partie du tas)
+    static final int MAX_SESSIONS = 1;
+
+    // Ordre d'accès : la première entrée est la moins récemment demandée
+    private static final Map<Path, SpoonModelSession> SESSIONS = new LinkedHashMap<>(4, 0.75f, true);
+
+    private final Path sourcePath;
+    private CtModel model;
+    private long fingerprint;
+    private final Map<String, Object> derived = new HashMap<>();
+
+    private SpoonModelSession(Path sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    /**
+     * Session associée au chemin source (créée au premier accès).
+     */
+    public static SpoonModelSession forSource(String sourcePath) {
+        Path key = keyOf(sourcePath);
+        SpoonModelSession session;
+        List<SpoonModelSession> evicted = new ArrayList<>();
+        synchronized (SESSIONS) {
+            session = SESSIONS.computeIfAbsent(key, SpoonModelSession::new);
+            Iterator<SpoonModelSession> eldest = SESSIONS.values().iterator();
+            while (SESSIONS.size() > MAX_SESSIONS) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        release(evicted);
+        return session;
+    }
+
+    /**
+     * Libère les sessions des autres chemins source (changement de projet).
+     */
+    public static void retainOnly(String sourcePath) {
+        Path key = keyOf(sourcePath);
+        List<SpoonModelSession> evicted = new ArrayList<>();
+        synchronized (SESSIONS) {
+            Iterator<SpoonModelSession> sessions = SESSIONS.values().iterator();
+            while (sessions.hasNext()) {
+                SpoonModelSession session = sessions.next();
+                if (!session.sourcePath.equals(key)) {
+                    evicted.add(session);
+                    sessions.remove();
+                }
+            }
+        }
+        release(evicted);
+    }
+
+    /**
+     * Oublie toutes les sessions (libère les modèles).
+     */
+    public static void clearAll() {
+        List<SpoonModelSession> evicted;
+        synchronized (SESSIONS) {
+            evicted = new ArrayList<>(SESSIONS.values());
+            SESSIONS.clear();
+        }
+        release(evicted);
+    }
+
+    private static Path keyOf(String sourcePath) {
+        return Paths.get(sourcePath).toAbsolutePath().normalize();
+    }
+
+    // Hors du verrou des sessions : une session peut être en train de construire son modèle
+    private static void release(List<SpoonModelSession> sessions) {
+        for (SpoonModelSession session : sessions) {
+            session.invalidate();
+        }
+    }
+
+    public Path getSourcePath() {
+        return sourcePath;
+    }
+
+    /**
+     * Modèle Spoon du répertoire source, reconstruit seulement si les sources ont changé.
+     */
+    public synchronized CtModel getModel() {
+        long current = computeFingerprint();
+        if (model == null || current != fingerprint) {
+            derived.clear();
+            model = buildModel();
+            fingerprint = current;
+        }
+        return model;
+    }
+
+    /**
+     * Résultat dérivé du modèle (graphe d'appel, matrice de couplage...), calculé une fois
+     * par modèle et partagé entre les consommateurs. Invalidé avec le modèle.
+     */
+    public synchronized <T> T derived(String key, Function<CtModel, T> compute) {
+        return derived(getModel(), key, compute);
+    }
+
+    /**
+     * Résultat dérivé du modèle déjà obtenu par {@link #getModel()} pour la même requête :
+     * l'empreinte des sources n'est pas recalculée. Si le modèle a été reconstruit
+     * ou libéré entre-temps, il est d'abord vérifié à nouveau.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T derived(CtModel model, String key, Function<CtModel, T> compute) {
+        CtModel current = model == this.model ? model : getModel();
+        Object value = derived.get(key);
+        if (value == null) {
+            value = compute.apply(current);
+            derived.put(key, value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Force la reconstruction du modèle au prochain accès.
+     */
+    public synchronized void invalidate() {
+        model = null;
+        derived.clear();
+    }
+
+    private CtModel buildModel() {
+        try {
+            Launcher launcher = new Launcher();
+            launcher.addInputResource(sourcePath.toString());
+            launcher.getEnvironment().setComplianceLevel(17);
+            launcher.getEnvironment().setNoClasspath(false);
+            launcher.buildModel();
+
+            CtModel built = launcher.getModel();
+            System.out.println("Modèle Spoon construit avec " + built.getAllTypes().size() + " types");
+            return built;
+
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la construction du modèle Spoon: " + e.getMessage());
+            throw new RuntimeException("Impossible de construire le modèle Spoon", e);
+        }
+    }
+
+    /**
+     * Empreinte des fichiers .java : chemins, tailles et dates de modification.
+     */
+    private long computeFingerprint() {
+        if (!Files.exists(sourcePath)) return 0L;
+        try (Stream<Path> paths = Files.walk(sourcePath)) {
+            List<Path> files = paths
+                    .filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                    .sorted()
+                    .toList();
+            long hash = files.size();
+            for (Path file : files) {
+                hash = 31 * hash + file.hashCode();
+                hash = 31 * hash + Files.size(file);
+                hash = 31 * hash + Files.getLastModifiedTime(file).toMillis();
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de parcourir " + sourcePath, e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.tp.synthetic;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Graphe d'appel attendu d'un projet synthétique, pour vérifier la sortie des analyseurs.
+ *
+ * Les méthodes sont désignées comme dans ParserAnalyzer ("pkg.Classe.methode").
+ * Le fichier {@value #FILE_NAME} contient une ligne par méthode déclarée ("methode")
+ * et une ligne par appel ("appelant\tappelé"), triées ; les lignes "#" sont des commentaires.
+ */
+public class ExpectedCallGraph {
+
+    public static final String FILE_NAME = "expected-callgraph.tsv";
+
+    private final SortedMap<String, SortedSet<String>> calls = new TreeMap<>();
+    private int edgeCount;
+
+    void addMethod(String method) {
+        calls.computeIfAbsent(method, k -> new TreeSet<>());
+    }
+
+    void addCall(String caller, String callee) {
+        if (calls.computeIfAbsent(caller, k -> new TreeSet<>()).add(callee)) edgeCount++;
+    }
+
+    /**
+     * Graphe attendu "appelant -> appelés" (toutes les méthodes déclarées sont présentes).
+     */
+    public Map<String, Set<String>> getCallGraph() {
+        return Collections.unmodifiableMap(calls);
+    }
+
+    public int methodCount() {
+        return calls.size();
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Couplage orienté attendu : pour chaque classe appelante et classe appelée,
+     * nombre de méthodes distinctes appelées (règle de SpoonCouplingService).
+     */
+    public Map<String, Map<String, Integer>> directedCoupling() {
+        Map<String, Set<String>> distinct = new HashMap<>();
+        for (var entry : calls.entrySet()) {
+            String callerClass = className(entry.getKey());
+            for (String callee : entry.getValue()) {
+                String calleeClass = className(callee);
+                if (!callerClass.equals(calleeClass)) {
+                    distinct.computeIfAbsent(callerClass + "\t" + calleeClass, k -> new HashSet<>()).add(callee);
+                }
+            }
+        }
+        Map<String, Map<String, Integer>> coupling = new HashMap<>();
+        for (var entry : distinct.entrySet()) {
+            String[] pair = entry.getKey().split("\t");
+            coupling.computeIfAbsent(pair[0], k -> new HashMap<>()).put(pair[1], entry.getValue().size());
+        }
+        return coupling;
+    }
+
+    /**
+     * Couplage non orienté attendu, indexé par la paire triée (a &lt; b) : nombre de couples
+     * distincts (classe appelante, méthode appelée) entre a et b (règle de CouplingService).
+     */
+    public Map<String, Map<String, Integer>> undirectedCoupling() {
+        Map<String, Map<String, Integer>> coupling = new HashMap<>();
+        for (var source : directedCoupling().entrySet()) {
+            for (var target : source.getValue().entrySet()) {
+                String a = source.getKey();
+                String b = target.getKey();
+                String low = a.compareTo(b) <= 0 ? a : b;
+                String high = a.compareTo(b) <= 0 ? b : a;
+                coupling.computeIfAbsent(low, k -> new HashMap<>()).merge(high, target.getValue(), Integer::sum);
+            }
+        }
+        return coupling;
+    }
+
+    /**
+     * Compare un graphe d'appel produit par un analyseur au graphe attendu
+     * (seuls les appelants déclarés dans le projet synthétique sont considérés).
+     */
+    public Comparison compare(Map<String, Set<String>> actual) {
+        List<String> missing = new ArrayList<>();
+        List<String> unexpected = new ArrayList<>();
+        for (var entry : calls.entrySet()) {
+            Set<String> found = actual.getOrDefault(entry.getKey(), Set.of());
+            for (String callee : entry.getValue()) {
+                if (!found.contains(callee)) missing.add(entry.getKey() + " -> " + callee);
+            }
+            for (String callee : new TreeSet<>(found)) {
+                if (!entry.getValue().contains(callee)) unexpected.add(entry.getKey() + " -> " + callee);
+            }
+        }
+        return new Comparison(missing, unexpected);
+    }
+
+    /**
+     * Compare deux matrices de couplage (nombre d'appels par paire de classes).
+     * Retourne les paires dont le nombre diffère, triées.
+     */
+    public static List<String> compareCoupling(Map<String, Map<String, Integer>> expected,
+                                               Map<String, Map<String, Integer>> actual) {
+        SortedSet<String> differences = new TreeSet<>();
+        for (var source : expected.entrySet()) {
+            Map<String, Integer> row = actual.getOrDefault(source.getKey(), Map.of());
+            for (var target : source.getValue().entrySet()) {
+                int found = row.getOrDefault(target.getKey(), 0);
+                if (found != target.getValue()) {
+                    differences.add(source.getKey() + " -- " + target.getKey()
+                        + " : attendu " + target.getValue() + ", obtenu " + found);
+                }
+            }
+        }
+        for (var source : actual.entrySet()) {
+            Map<String, Integer> row = expected.getOrDefault(source.getKey(), Map.of());
+            for (var target : source.getValue().entrySet()) {
+                if (!row.containsKey(target.getKey()) && target.getValue() != 0) {
+                    differences.add(source.getKey() + " -- " + target.getKey()
+                        + " : attendu 0, obtenu " + target.getValue());
+                }
+            }
+        }
+        return new ArrayList<>(differences);
+    }
+
+    /**
+     * Écrit le graphe au format {@value #FILE_NAME}.
+     */
+    public void save(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Graphe d'appel attendu : méthode, ou appelant<TAB>appelé\n");
+            for (var entry : calls.entrySet()) {
+                out.write(entry.getKey());
+                out.write('\n');
+                for (String callee : entry.getValue()) {
+                    out.write(entry.getKey());
+                    out.write('\t');
+                    out.write(callee);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Relit un graphe écrit par {@link #save(Path)}.
+     */
+    public static ExpectedCallGraph load(Path file) throws IOException {
+        ExpectedCallGraph graph = new ExpectedCallGraph();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                graph.addMethod(line);
+            } else {
+                graph.addCall(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return graph;
+    }
+
+    private static String className(String method) {
+        return method.substring(0, method.lastIndexOf('.'));
+    }
+
+    /**
+     * Écart entre un graphe produit et le graphe attendu.
+     */
+    public record Comparison(List<String> missing, List<String> unexpected) {
+        public boolean isExact() {
+            return missing.isEmpty() && unexpected.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.tp.synthetic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Générateur de projets Java synthétiques pour les tests de charge et les benchmarks.
+ *
+ * Le projet généré compile sans dépendance : classCount classes réparties dans les
+ * packages feuilles d'un arbre (profondeur packageDepth, packageBranching sous-packages
+ * par niveau), chacune avec methodsPerClass méthodes. Chaque méthode appelle un nombre
+ * de méthodes tiré selon la distribution de fan-out choisie ; une proportion
+ * crossPackageRatio des appels vise une classe d'un autre package, les autres une classe
+ * du même package. Les appels passent par des champs typés par la classe appelée.
+ *
+ * Les noms de méthodes sont uniques dans le projet (type12Op3 pour la méthode 3 de Type12) :
+ * les appels se résolvent donc aussi sans bindings, et le graphe d'appel attendu
+ * ({@link ExpectedCallGraph}) est exact. Même graine et mêmes paramètres donnent
+ * exactement les mêmes sources.
+ */
+public class SyntheticProjectGenerator {
+
+    /**
+     * Distribution du nombre d'appels par méthode (de moyenne meanFanOut).
+     */
+    public enum FanOut {
+        /** Toujours meanFanOut appels (arrondi). */
+        FIXED,
+        /** Uniforme entre 0 et 2 x meanFanOut. */
+        UNIFORM,
+        /** Géométrique : beaucoup de petites méthodes, quelques méthodes très couplées. */
+        GEOMETRIC
+    }
+
+    private int classCount = 100;
+    private int methodsPerClass = 5;
+    private FanOut fanOut = FanOut.UNIFORM;
+    private double meanFanOut = 3.0;
+    private int maxFanOut = 50;
+    private int packageDepth = 2;
+    private int packageBranching = 3;
+    private double crossPackageRatio = 0.3;
+    private String rootPackage = "synthetic";
+    private long seed = 42L;
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public void setClassCount(int classCount) {
+        if (classCount < 1) throw new IllegalArgumentException("classCount doit être >= 1");
+        this.classCount = classCount;
+    }
+
+    public int getMethodsPerClass() {
+        return methodsPerClass;
+    }
+
+    public void setMethodsPerClass(int methodsPerClass) {
+        if (methodsPerClass < 1) throw new IllegalArgumentException("methodsPerClass doit être >= 1");
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(FanOut fanOut) {
+        this.fanOut = Objects.requireNonNull(fanOut);
+    }
+
+    public double getMeanFanOut() {
+        return meanFanOut;
+    }
+
+    public void setMeanFanOut(double meanFanOut) {
+        if (meanFanOut < 0) throw new IllegalArgumentException("meanFanOut doit être >= 0");
+        this.meanFanOut = meanFanOut;
+    }
+
+    /**
+     * Borne du nombre d'appels par méthode (queue de la distribution géométrique).
+     */
+    public void setMaxFanOut(int maxFanOut) {
+        if (maxFanOut < 0) throw new IllegalArgumentException("maxFanOut doit être >= 0");
+        this.maxFanOut = maxFanOut;
+    }
+
+    public int getPackageDepth() {
+        return packageDepth;
+    }
+
+    /**
+     * Profondeur de l'arbre des packages sous le package racine (0 = tout dans la racine).
+     */
+    public void setPackageDepth(int packageDepth) {
+        if (packageDepth < 0) throw new IllegalArgumentException("packageDepth doit être >= 0");
+        this.packageDepth = packageDepth;
+    }
+
+    public void setPackageBranching(int packageBranching) {
+        if (packageBranching < 1) throw new IllegalArgumentException("packageBranching doit être >= 1");
+        this.packageBranching = packageBranching;
+    }
+
+    public double getCrossPackageRatio() {
+        return crossPackageRatio;
+    }
+
+    /**
+     * Proportion des appels vers une classe d'un autre package (entre 0 et 1).
+     */
+    public void setCrossPackageRatio(double crossPackageRatio) {
+        if (crossPackageRatio < 0 || crossPackageRatio > 1) {
+            throw new IllegalArgumentException("crossPackageRatio doit être entre 0 et 1");
+        }
+        this.crossPackageRatio = crossPackageRatio;
+    }
+
+    public void setRootPackage(String rootPackage) {
+        this.rootPackage = Objects.requireNonNull(rootPackage);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Écrit les sources sous root (répertoire créé si besoin) et retourne le graphe d'appel attendu.
+     * Le graphe est aussi écrit dans root/{@value ExpectedCallGraph#FILE_NAME}.
+     */
+    public ExpectedCallGraph generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        List<String> packages = leafPackages();
+
+        // Classe i : package i % nombre de packages ; classes de chaque package
+        String[] classNames = new String[classCount];
+        List<List<Integer>> classesByPackage = new ArrayList<>();
+        for (int p = 0; p < packages.size(); p++) classesByPackage.add(new ArrayList<>());
+        for (int i = 0; i < classCount; i++) {
+            int p = i % packages.size();
+            classNames[i] = packages.get(p) + ".Type" + i;
+            classesByPackage.get(p).add(i);
+        }
+
+        ExpectedCallGraph expected = new ExpectedCallGraph();
+        for (int i = 0; i < classCount; i++) {
+            int p = i % packages.size();
+            // Appels de chaque méthode : (classe appelée, méthode appelée)
+            List<List<int[]>> calls = new ArrayList<>(methodsPerClass);
+            for (int m = 0; m < methodsPerClass; m++) {
+                List<int[]> methodCalls = new ArrayList<>();
+                Set<Long> seen = new HashSet<>();
+                int count = drawFanOut(random);
+                for (int c = 0; c < count; c++) {
+                    int target = pickTarget(i, p, classesByPackage, random);
+                    if (target < 0) break;
+                    int method = random.nextInt(methodsPerClass);
+                    if (seen.add(((long) target << 32) | method)) {
+                        methodCalls.add(new int[] {target, method});
+                        expected.addCall(methodName(classNames[i], i, m),
+                                         methodName(classNames[target], target, method));
+                    }
+                }
+                calls.add(methodCalls);
+                expected.addMethod(methodName(classNames[i], i, m));
+            }
+            writeClass(root, packages.get(p), i, classNames, calls);
+        }
+        expected.save(root.resolve(ExpectedCallGraph.FILE_NAME));
+        return expected;
+    }
+
+    /**
+     * Packages feuilles : racine.p0.p1... (packageBranching^packageDepth packages).
+     */
+    private List<String> leafPackages() {
+        List<String> level = List.of(rootPackage);
+        for (int d = 0; d < packageDepth; d++) {
+            List<String> next = new ArrayList<>();
+            for (String parent : level) {
+                for (int b = 0; b < packageBranching; b++) next.add(parent + ".p" + d + "_" + b);
+            }
+            level = next;
+        }
+        // Inutile d'avoir plus de packages que de classes
+        return level.size() > classCount ? level.subList(0, classCount) : level;
+    }
+
+    private int drawFanOut(Random random) {
+        int count = switch (fanOut) {
+            case FIXED -> (int) Math.round(meanFanOut);
+            case UNIFORM -> (int) Math.round(random.nextDouble() * 2 * meanFanOut);
+            case GEOMETRIC -> {
+                // P(k) = (1-q) q^k, moyenne q / (1-q) = meanFanOut
+                double q = meanFanOut / (1 + meanFanOut);
+                int k = 0;
+                while (k < maxFanOut && random.nextDouble() < q) k++;
+                yield k;
+            }
+        };
+        return Math.min(count, maxFanOut);
+    }
+
+    /**
+     * Classe appelée : autre package avec la probabilité crossPackageRatio, sinon même package ;
+     * jamais la classe appelante. -1 si le projet n'a qu'une classe.
+     */
+    private int pickTarget(int caller, int callerPackage, List<List<Integer>> classesByPackage, Random random) {
+        if (classCount < 2) return -1;
+        List<Integer> samePackage = classesByPackage.get(callerPackage);
+        boolean canStay = samePackage.size() > 1;
+        boolean canLeave = classesByPackage.size() > 1;
+        boolean cross = canLeave && (!canStay || random.nextDouble() < crossPackageRatio);
+        if (cross) {
+            int p = random.nextInt(classesByPackage.size() - 1);
+            if (p >= callerPackage) p++;
+            List<Integer> candidates = classesByPackage.get(p);
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        int k = random.nextInt(samePackage.size() - 1);
+        int target = samePackage.get(k);
+        return target == caller ? samePackage.get(samePackage.size() - 1) : target;
+    }
+
+    private static String methodName(String className, int classIndex, int method) {
+        return className + "." + simpleMethodName(classIndex, method);
+    }
+
+    private static String simpleMethodName(int classIndex, int method) {
+        return "type" + classIndex + "Op" + method;
+    }
+
+    private void writeClass(Path root, String pkg, int index, String[] classNames, List<List<int[]>> calls)
+            throws IOException {
+        // Un champ par classe appelée, dans l'ordre de première apparition
+        Map<Integer, Integer> fieldOf = new LinkedHashMap<>();
+        for (List<int[]> methodCalls : calls) {
+            for (int[] call : methodCalls) fieldOf.putIfAbsent(call[0], fieldOf.size());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("public class Type").append(index).append(" {\n");
+        for (var field : fieldOf.entrySet()) {
+            sb.append("    private ").append(classNames[field.getKey()])
+              .append(" ref").append(field.getValue()).append(";\n");
+        }
+        for (int m = 0; m < calls.size(); m++) {
+            sb.append("\n    public int ").append(simpleMethodName(index, m)).append("(int x) {\n");
+            sb.append("        int r = x;\n");
+            for (int[] call : calls.get(m)) {
+                sb.append("        r += ref").append(fieldOf.get(call[0])).append('.')
+                  .append(simpleMethodName(call[0], call[1])).append("(r);\n");
+            }
+            sb.append("        return r;\n");
+            sb.append("    }\n");
+        }
+        sb.append("}\n");
+
+        Path dir = root.resolve(pkg.replace('.', '/'));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("Type" + index + ".java"), sb.toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+package com.tp.synthetic;
+
+import com.tp.ParserAnalyzer;
+import com.tp.analysis.CouplingService;
+import com.tp.spoon.SpoonCouplingService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ligne de commande du générateur de projets synthétiques.
+ *
+ * Génère un projet puis, avec --check, l'analyse avec ParserAnalyzer et SpoonCouplingService,
+ * affiche les temps et compare graphe d'appel et couplages au graphe attendu.
+ * Code de sortie : 0 = succès, 1 = écart avec le graphe attendu, 2 = arguments invalides.
+ */
+public class SyntheticProjectTool {
+
+    private static final String USAGE =
+        "Usage : SyntheticProjectTool <dossier de sortie> [options]\n"
+            + "  --classes <n>            nombre de classes (défaut : 100)\n"
+            + "  --methods <n>            méthodes par classe (défaut : 5)\n"
+            + "  --fan-out <FIXED|UNIFORM|GEOMETRIC>  distribution des appels par méthode (défaut : UNIFORM)\n"
+            + "  --mean-fan-out <f>       nombre moyen d'appels par méthode (défaut : 3)\n"
+            + "  --max-fan-out <n>        nombre maximal d'appels par méthode (défaut : 50)\n"
+            + "  --package-depth <n>      profondeur des packages (défaut : 2)\n"
+            + "  --package-branching <n>  sous-packages par niveau (défaut : 3)\n"
+            + "  --cross-package <r>      proportion d'appels vers un autre package (défaut : 0.3)\n"
+            + "  --root-package <nom>     package racine (défaut : synthetic)\n"
+            + "  --seed <n>               graine (défaut : 42)\n"
+            + "  --check                  analyser avec JDT et Spoon et comparer au graphe attendu\n"
+            + "  --no-spoon               avec --check, ne pas lancer Spoon\n";
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) throws Exception {
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+        Path output = null;
+        boolean check = false;
+        boolean spoon = true;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--classes" -> generator.setClassCount(Integer.parseInt(value(args, ++i, arg)));
+                    case "--methods" -> generator.setMethodsPerClass(Integer.parseInt(value(args, ++i, arg)));
+                    case "--fan-out" -> generator.setFanOut(
+                        SyntheticProjectGenerator.FanOut.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT)));
+                    case "--mean-fan-out" -> generator.setMeanFanOut(Double.parseDouble(value(args, ++i, arg)));
+                    case "--max-fan-out" -> generator.setMaxFanOut(Integer.parseInt(value(args, ++i, arg)));
+                    case "--package-depth" -> generator.setPackageDepth(Integer.parseInt(value(args, ++i, arg)));
+                    case "--package-branching" -> generator.setPackageBranching(Integer.parseInt(value(args, ++i, arg)));
+                    case "--cross-package" -> generator.setCrossPackageRatio(Double.parseDouble(value(args, ++i, arg)));
+                    case "--root-package" -> generator.setRootPackage(value(args, ++i, arg));
+                    case "--seed" -> generator.setSeed(Long.parseLong(value(args, ++i, arg)));
+                    case "--check" -> check = true;
+                    case "--no-spoon" -> spoon = false;
+                    default -> {
+                        if (arg.startsWith("-") || output != null) {
+                            throw new IllegalArgumentException("Argument inattendu : " + arg);
+                        }
+                        output = Paths.get(arg);
+                    }
+                }
+            }
+            if (output == null) throw new IllegalArgumentException("Dossier de sortie manquant");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        long start = System.nanoTime();
+        ExpectedCallGraph expected = generator.generate(output);
+        System.out.printf("Projet généré dans %s : %d classes, %d méthodes, %d appels (%d ms)%n",
+            output, generator.getClassCount(), expected.methodCount(), expected.edgeCount(), millis(start));
+        if (!check) return 0;
+
+        boolean exact = true;
+
+        // JDT
+        start = System.nanoTime();
+        ParserAnalyzer analyzer = new ParserAnalyzer(output.toString());
+        analyzer.analyze();
+        System.out.printf("ParserAnalyzer.analyze : %d ms%n", millis(start));
+        ExpectedCallGraph.Comparison comparison = expected.compare(analyzer.getCallGraph());
+        exact &= report("Graphe d'appel JDT", comparison.missing(), "manquant");
+        exact &= report("Graphe d'appel JDT", comparison.unexpected(), "inattendu");
+        Map<String, Map<String, Integer>> jdtCoupling =
+            new CouplingService().countInterClassCalls(analyzer.getCompactCallGraph());
+        exact &= report("Couplage JDT",
+            ExpectedCallGraph.compareCoupling(expected.undirectedCoupling(), jdtCoupling), "écart");
+
+        // Spoon
+        if (spoon) {
+            start = System.nanoTime();
+            SpoonCouplingService spoonService = new SpoonCouplingService(analyzer);
+            spoonService.calculateCouplingMatrix();
+            System.out.printf("SpoonCouplingService.calculateCouplingMatrix : %d ms%n", millis(start));
+            exact &= report("Couplage Spoon",
+                ExpectedCallGraph.compareCoupling(expected.directedCoupling(), spoonService.getCouplingMatrix()),
+                "écart");
+        }
+
+        System.out.println(exact ? "Résultats conformes au graphe attendu" : "Écarts avec le graphe attendu");
+        return exact ? 0 : 1;
+    }
+
+    /**
+     * Affiche les écarts (au plus 10) ; vrai s'il n'y en a aucun.
+     */
+    private static boolean report(String title, List<String> differences, String kind) {
+        if (differences.isEmpty()) return true;
+        System.out.printf("%s : %d %s(s)%n", title, differences.size(), kind);
+        differences.stream().limit(10).forEach(d -> System.out.println("  " + d));
+        return false;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Valeur manquante pour " + option);
+        return args[i];
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
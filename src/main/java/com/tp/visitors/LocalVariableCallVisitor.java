@@ -2,70 +2,36 @@ package com.tp.visitors;
 
 import org.eclipse.jdt.core.dom.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
- * Visitor pour capturer les appels sur variables locales.
+ * Visitor pour capturer les appels sur variables locales et paramètres (ex: car.getModel()).
+ *
+ * Le type du receveur est cherché dans la portée de l'appel (voir {@link LocalVariableTypeVisitor}) :
+ * une variable de même nom déclarée dans une autre méthode ou un autre fichier n'a pas d'influence.
  */
-public class LocalVariableCallVisitor extends ASTVisitor {
-    private final List<LocalVariableCall> localCalls = new ArrayList<>();
-    private final Map<String, String> localVariableTypes;
-    private String currentMethod = "";
-
-    public LocalVariableCallVisitor(Map<String, String> localVariableTypes) {
-        this.localVariableTypes = localVariableTypes;
-    }
-
-    public List<LocalVariableCall> getLocalCalls() {
-        return localCalls;
-    }
-
-    @Override
-    public boolean visit(MethodDeclaration node) {
-        currentMethod = node.getName().getIdentifier();
-        return true;
-    }
-    
-    @Override
-    public boolean visit(TypeDeclaration node) {
-        // Ne traiter que les classes Main
-        return node.getName().getIdentifier().equals("Main");
+public class LocalVariableCallVisitor extends LocalVariableTypeVisitor {
+    // Invocation -> type déclaré de la variable sur laquelle elle est faite
+    private final Map<MethodInvocation, VariableType> receiverTypes = new IdentityHashMap<>();
+
+    /**
+     * Type déclaré de la variable locale ou du paramètre sur lequel porte l'invocation,
+     * ou null si le receveur n'en est pas un (champ, appel chaîné, type inconnu...).
+     */
+    public VariableType getReceiverType(MethodInvocation invocation) {
+        return receiverTypes.get(invocation);
     }
 
     @Override
     public boolean visit(MethodInvocation node) {
         Expression expression = node.getExpression();
         if (expression instanceof SimpleName) {
-            String variableName = ((SimpleName) expression).getIdentifier();
-            String methodName = node.getName().getIdentifier();
-            
-            // Vérifier si c'est une variable locale
-            if (localVariableTypes.containsKey(variableName)) {
-                String variableType = localVariableTypes.get(variableName);
-                localCalls.add(new LocalVariableCall(currentMethod, variableName, methodName, variableType));
+            VariableType type = typeOf(((SimpleName) expression).getIdentifier());
+            if (type != null && type.isKnown()) {
+                receiverTypes.put(node, type);
             }
         }
         return true;
     }
-
-    public static class LocalVariableCall {
-        private final String method;
-        private final String variable;
-        private final String methodName;
-        private final String variableType;
-
-        public LocalVariableCall(String method, String variable, String methodName, String variableType) {
-            this.method = method;
-            this.variable = variable;
-            this.methodName = methodName;
-            this.variableType = variableType;
-        }
-
-        public String getMethod() { return method; }
-        public String getVariable() { return variable; }
-        public String getMethodName() { return methodName; }
-        public String getVariableType() { return variableType; }
-    }
 }
@@ -2,77 +2,170 @@ package com.tp.visitors;
 
 import org.eclipse.jdt.core.dom.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Serializable;
+import java.util.*;
 
 /**
- * Visitor pour capturer les types des variables locales.
+ * Visitor pour capturer les types des variables locales et des paramètres, portée par portée.
+ *
+ * Méthodes, initialiseurs, lambdas, blocs, boucles, try, catch et switch ouvrent chacun une
+ * portée : une variable n'est visible que dans la portée où elle est déclarée, à partir de sa
+ * déclaration. Deux méthodes (ou deux fichiers) peuvent donc déclarer une variable de même nom
+ * avec des types différents. Les noms de types sont qualifiés à l'aide du package et des imports
+ * de l'unité de compilation.
  */
 public class LocalVariableTypeVisitor extends ASTVisitor {
-    private final Map<String, String> variableTypes = new HashMap<>();
+    // Portées ouvertes, la plus interne en tête : nom de variable -> type
+    private final Deque<Map<String, VariableType>> scopes = new ArrayDeque<>();
     private String currentPackage = "";
+    // Imports simples (nom court -> nom complet) et imports à la demande (package.*)
+    private final Map<String, String> singleImports = new HashMap<>();
+    private final List<String> onDemandImports = new ArrayList<>();
 
-    public Map<String, String> getVariableTypes() {
-        return variableTypes;
+    /**
+     * Type de la variable visible sous ce nom au point courant du parcours,
+     * ou null si aucune variable locale ni aucun paramètre ne porte ce nom.
+     */
+    public VariableType typeOf(String variableName) {
+        for (Map<String, VariableType> scope : scopes) {
+            VariableType type = scope.get(variableName);
+            if (type != null) return type;
+        }
+        return null;
+    }
+
+    public String getPackageName() {
+        return currentPackage;
     }
 
     @Override
     public boolean visit(CompilationUnit node) {
         PackageDeclaration pkg = node.getPackage();
-        if (pkg != null) {
-            currentPackage = pkg.getName().getFullyQualifiedName();
-        }
+        currentPackage = pkg != null ? pkg.getName().getFullyQualifiedName() : "";
+        singleImports.clear();
+        onDemandImports.clear();
+        scopes.clear();
         return true;
     }
 
     @Override
-    public boolean visit(VariableDeclarationStatement node) {
-        Type type = node.getType();
-        String typeName = getTypeName(type);
-        
-        for (Object fragment : node.fragments()) {
-            if (fragment instanceof VariableDeclarationFragment) {
-                VariableDeclarationFragment vdf = (VariableDeclarationFragment) fragment;
-                            String variableName = vdf.getName().getIdentifier();
-                            variableTypes.put(variableName, typeName);
+    public boolean visit(ImportDeclaration node) {
+        if (!node.isStatic()) {
+            String name = node.getName().getFullyQualifiedName();
+            if (node.isOnDemand()) {
+                onDemandImports.add(name);
+            } else {
+                singleImports.put(name.substring(name.lastIndexOf('.') + 1), name);
             }
         }
+        return false;
+    }
+
+    @Override
+    public boolean preVisit2(ASTNode node) {
+        if (opensScope(node)) scopes.push(new HashMap<>());
+        return true;
+    }
+
+    @Override
+    public void postVisit(ASTNode node) {
+        if (opensScope(node)) scopes.pop();
+    }
+
+    private static boolean opensScope(ASTNode node) {
+        return node instanceof MethodDeclaration
+            || node instanceof Initializer
+            || node instanceof LambdaExpression
+            || node instanceof Block
+            || node instanceof ForStatement
+            || node instanceof EnhancedForStatement
+            || node instanceof TryStatement
+            || node instanceof CatchClause
+            || node instanceof SwitchStatement;
+    }
+
+    @Override
+    public boolean visit(VariableDeclarationStatement node) {
+        declare(node.getType(), node.fragments());
         return true;
     }
 
     @Override
     public boolean visit(VariableDeclarationExpression node) {
-        Type type = node.getType();
-        String typeName = getTypeName(type);
-        
-        for (Object fragment : node.fragments()) {
+        declare(node.getType(), node.fragments());
+        return true;
+    }
+
+    /**
+     * Paramètres de méthode et de lambda, variables de boucle for-each et de clause catch.
+     */
+    @Override
+    public boolean visit(SingleVariableDeclaration node) {
+        if (!scopes.isEmpty()) {
+            VariableType type = node.isVarargs() || node.getExtraDimensions() > 0
+                ? VariableType.UNKNOWN : qualify(node.getType());
+            scopes.peek().put(node.getName().getIdentifier(), type);
+        }
+        return true;
+    }
+
+    private void declare(Type type, List<?> fragments) {
+        if (scopes.isEmpty()) return;
+        for (Object fragment : fragments) {
             if (fragment instanceof VariableDeclarationFragment) {
                 VariableDeclarationFragment vdf = (VariableDeclarationFragment) fragment;
-                            String variableName = vdf.getName().getIdentifier();
-                            variableTypes.put(variableName, typeName);
+                Type declared = type;
+                // var c = new Car() : type de l'instance créée
+                if (type.isVar() && vdf.getInitializer() instanceof ClassInstanceCreation) {
+                    declared = ((ClassInstanceCreation) vdf.getInitializer()).getType();
+                }
+                VariableType variableType = declared.isVar() || vdf.getExtraDimensions() > 0
+                    ? VariableType.UNKNOWN : qualify(declared);
+                scopes.peek().put(vdf.getName().getIdentifier(), variableType);
             }
         }
-        return true;
+    }
+
+    /**
+     * Nom du type tel qu'écrit et noms complets candidats : import explicite,
+     * sinon package courant puis imports à la demande.
+     */
+    private VariableType qualify(Type type) {
+        String name = getTypeName(type);
+        if (name == null) return VariableType.UNKNOWN;
+        if (name.contains(".")) return new VariableType(name, List.of(name));
+        String imported = singleImports.get(name);
+        if (imported != null) return new VariableType(imported, List.of(imported));
+        List<String> candidates = new ArrayList<>(1 + onDemandImports.size());
+        candidates.add(currentPackage.isEmpty() ? name : currentPackage + "." + name);
+        for (String pkg : onDemandImports) candidates.add(pkg + "." + name);
+        return new VariableType(name, candidates);
     }
 
     private String getTypeName(Type type) {
         if (type instanceof SimpleType) {
-            SimpleType simpleType = (SimpleType) type;
-            String name = simpleType.getName().getFullyQualifiedName();
-            // Si c'est un type simple sans package, essayer de le résoudre
-            if (!name.contains(".")) {
-                // Pour l'instant, on retourne le nom tel quel
-                // Dans un vrai parser, on ferait une résolution de type
-                return name;
-            }
-            return name;
+            return ((SimpleType) type).getName().getFullyQualifiedName();
         } else if (type instanceof QualifiedType) {
             QualifiedType qualifiedType = (QualifiedType) type;
-            return qualifiedType.getName().getFullyQualifiedName();
+            return qualifiedType.getQualifier() + "." + qualifiedType.getName().getIdentifier();
         } else if (type instanceof ParameterizedType) {
             ParameterizedType paramType = (ParameterizedType) type;
             return getTypeName(paramType.getType());
         }
-        return type.toString();
+        // Types primitifs, tableaux, unions... : pas d'appel de méthode du projet
+        return null;
+    }
+
+    /**
+     * Type déclaré d'une variable : nom tel qu'écrit (ou qualifié par un import explicite)
+     * et noms complets candidats, dans l'ordre de priorité de Java.
+     */
+    public record VariableType(String name, List<String> candidates) implements Serializable {
+        /** Type inconnu ou sans intérêt (primitif, tableau, var non inféré). */
+        public static final VariableType UNKNOWN = new VariableType(null, List.of());
+
+        public boolean isKnown() {
+            return name != null;
+        }
     }
 }
@@ -0,0 +1,63 @@
+package com.tp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FactCacheTest {
+
+  record Facts(String name, List<String> calls) implements Serializable {}
+
+  record Other(String payload) implements Serializable {}
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void reloadsFactsOfUnchangedFiles() throws Exception {
+    Path a = Files.writeString(dir.resolve("A.java"), "class A {}");
+    Path b = Files.writeString(dir.resolve("B.java"), "class B {}");
+    Facts factsA = new Facts("A", new ArrayList<>(List.of("B.run", "C.stop")));
+    Facts factsB = new Facts("B", List.of("A.start"));
+    FactCache<Facts> cache = new FactCache<>(dir.resolve("cache.bin"), "env", Facts.class);
+    cache.put(a, factsA);
+    cache.put(b, factsB);
+    cache.save();
+
+    FactCache<Facts> reloaded = new FactCache<>(dir.resolve("cache.bin"), "env", Facts.class);
+    reloaded.load();
+    assertEquals(factsA, reloaded.lookup(a));
+    assertEquals(factsB, reloaded.lookup(b));
+  }
+
+  @Test
+  void changedEnvironmentDiscardsTheCache() throws Exception {
+    Path source = Files.writeString(dir.resolve("A.java"), "class A {}");
+    FactCache<Facts> cache = new FactCache<>(dir.resolve("cache.bin"), "batch=false", Facts.class);
+    cache.put(source, new Facts("A", List.of()));
+    cache.save();
+
+    FactCache<Facts> reloaded = new FactCache<>(dir.resolve("cache.bin"), "batch=true", Facts.class);
+    reloaded.load();
+    assertNull(reloaded.lookup(source));
+  }
+
+  @Test
+  void rejectsClassesOutsideTheDeclaredFactTypes() throws Exception {
+    Path source = Files.writeString(dir.resolve("A.java"), "class A {}");
+    FactCache<Serializable> writer = new FactCache<>(dir.resolve("cache.bin"), "env");
+    writer.put(source, new Other("inattendu"));
+    writer.save();
+
+    FactCache<Facts> reader = new FactCache<>(dir.resolve("cache.bin"), "env", Facts.class);
+    reader.load();
+    assertNull(reader.lookup(source));
+    assertNull(reader.previous(source));
+  }
+}
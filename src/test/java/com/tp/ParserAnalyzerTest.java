@@ -0,0 +1,86 @@
+package com.tp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tp.synthetic.ExpectedCallGraph;
+import com.tp.synthetic.SyntheticProjectGenerator;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Le parsing parallèle doit produire exactement le résultat de l'analyse séquentielle.
+ */
+class ParserAnalyzerTest {
+
+  @TempDir
+  static Path project;
+
+  private static ExpectedCallGraph expected;
+  private static ParserAnalyzer sequential;
+
+  @BeforeAll
+  static void generateProject() throws Exception {
+    SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+    generator.setClassCount(60);
+    generator.setMethodsPerClass(4);
+    generator.setSeed(7L);
+    expected = generator.generate(project);
+    sequential = analyze(1, true);
+  }
+
+  private static ParserAnalyzer analyze(int workers, boolean streaming) throws Exception {
+    ParserAnalyzer analyzer = new ParserAnalyzer(project.toString());
+    analyzer.setWorkerCount(workers);
+    analyzer.setStreaming(streaming);
+    analyzer.analyze();
+    return analyzer;
+  }
+
+  @Test
+  void sequentialAnalysisFindsTheGeneratedCallGraph() {
+    ExpectedCallGraph.Comparison comparison = expected.compare(sequential.getCallGraph());
+    assertTrue(comparison.isExact(), () -> "manquants " + comparison.missing()
+        + ", inattendus " + comparison.unexpected());
+  }
+
+  @Test
+  void parallelAnalysisMatchesSequential() throws Exception {
+    for (int workers : new int[] {2, 4, 8}) {
+      ParserAnalyzer parallel = analyze(workers, true);
+      assertEquals(sequential.getCallGraphAsString(), parallel.getCallGraphAsString(), "threads: " + workers);
+      assertEquals(sequential.getStatisticsAsString(2), parallel.getStatisticsAsString(2), "threads: " + workers);
+    }
+  }
+
+  @Test
+  void retainedFactsMatchStreaming() throws Exception {
+    ParserAnalyzer retained = analyze(4, false);
+    assertEquals(sequential.getCallGraphAsString(), retained.getCallGraphAsString());
+    assertEquals(sequential.getStatisticsAsString(2), retained.getStatisticsAsString(2));
+  }
+
+  @Test
+  void incrementalAnalysisReloadsAllFactsFromTheCache(@TempDir Path cacheDir) throws Exception {
+    Path cacheFile = cacheDir.resolve("facts.bin");
+    ParserAnalyzer first = new ParserAnalyzer(project.toString());
+    first.setCacheFile(cacheFile);
+    first.analyze();
+    assertEquals(sequential.getCallGraphAsString(), first.getCallGraphAsString());
+
+    // Tous les types des faits passent le filtre de désérialisation : rien n'est re-parsé
+    ParserAnalyzer second = new ParserAnalyzer(project.toString());
+    second.setCacheFile(cacheFile);
+    second.analyze();
+    assertEquals(0, second.getParsedFileCount());
+    assertEquals(sequential.getCallGraphAsString(), second.getCallGraphAsString());
+    assertEquals(sequential.getStatisticsAsString(2), second.getStatisticsAsString(2));
+  }
+
+  @Test
+  void analyzeCannotRunTwice() throws Exception {
+    ParserAnalyzer analyzer = analyze(2, true);
+    assertThrows(IllegalStateException.class, analyzer::analyze);
+  }
+}
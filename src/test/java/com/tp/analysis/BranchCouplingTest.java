@@ -0,0 +1,71 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class BranchCouplingTest {
+
+    /** Moyenne de référence : toutes les paires de classes de la branche. */
+    static double pairwiseAverage(CouplingMatrix matrix, DendrogramNode branch) {
+        List<String> classes = new ArrayList<>(branch.getClasses());
+        double total = 0.0;
+        int pairs = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            for (int j = i + 1; j < classes.size(); j++) {
+                total += matrix.weight(classes.get(i), classes.get(j));
+                pairs++;
+            }
+        }
+        return pairs > 0 ? total / pairs : 0.0;
+    }
+
+    static List<DendrogramNode> nodes(DendrogramNode root) {
+        List<DendrogramNode> nodes = new ArrayList<>();
+        Deque<DendrogramNode> stack = new ArrayDeque<>(List.of(root));
+        while (!stack.isEmpty()) {
+            DendrogramNode node = stack.pop();
+            nodes.add(node);
+            if (!node.isLeaf()) {
+                stack.push(node.getLeft());
+                stack.push(node.getRight());
+            }
+        }
+        return nodes;
+    }
+
+    /** Copie du dendrogramme sans sommes internes (nœuds construits sans matrice source). */
+    private static DendrogramNode withoutSums(DendrogramNode node) {
+        if (node.isLeaf()) return new DendrogramNode(node.getId());
+        return new DendrogramNode(node.getId(), withoutSums(node.getLeft()), withoutSums(node.getRight()),
+                node.getCoupling(), node.getLevel());
+    }
+
+    @Test
+    void bottomUpAveragesMatchPairwiseAverages() {
+        for (long seed = 0; seed < 5; seed++) {
+            CouplingMatrix matrix = CouplingMatrix.fromCounts(ClusteringServiceTest.groupedCounts(seed, 5));
+            DendrogramNode root = withoutSums(new HierarchicalClustering(matrix).performClustering());
+            assertFalse(root.hasInternalCoupling(matrix));
+
+            BranchCoupling branchCoupling = new BranchCoupling(root, matrix);
+            for (DendrogramNode node : nodes(root)) {
+                assertEquals(pairwiseAverage(matrix, node), branchCoupling.average(node), 1e-12, node::toString);
+            }
+        }
+    }
+
+    @Test
+    void foreignBranchIsComputedPairwise() {
+        CouplingMatrix matrix = CouplingMatrix.fromWeights(Map.of(
+                "p.A", Map.of("p.B", 0.4, "p.C", 0.1),
+                "p.B", Map.of("p.C", 0.2)));
+        DendrogramNode root = new HierarchicalClustering(matrix).performClustering();
+        BranchCoupling branchCoupling = new BranchCoupling(root, matrix);
+
+        DendrogramNode foreign = new DendrogramNode("X", new DendrogramNode("p.A"), new DendrogramNode("p.C"), 0.1, 1);
+        assertEquals(0.1, branchCoupling.average(foreign), 1e-12);
+        assertEquals(0.0, new BranchCoupling(root, null).average(root));
+    }
+}
@@ -0,0 +1,192 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tp.analysis.ClusteringEngine.Merge;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Les moteurs MATRIX et NN_CHAIN comparés à l'algorithme glouton de référence :
+ * à chaque étape, couplage moyen de toutes les paires de clusters recalculé classe par classe.
+ */
+class ClusteringEngineTest {
+
+    private static final ClusteringEngine MATRIX = new MatrixClusteringEngine();
+    private static final ClusteringEngine NN_CHAIN = new NnChainClusteringEngine();
+
+    /**
+     * Fusions de référence : paire de couplage moyen maximal (à la tolérance près),
+     * puis paire (plus petit numéro, plus grand numéro) la plus petite.
+     */
+    static List<Merge> baseline(CouplingMatrix matrix) {
+        int n = matrix.classCount();
+        TreeMap<Integer, List<Integer>> clusters = new TreeMap<>();
+        for (int i = 0; i < n; i++) clusters.put(i, List.of(i));
+        List<Merge> merges = new ArrayList<>();
+        int next = n;
+        while (clusters.size() > 1) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int x : clusters.keySet()) {
+                for (int y : clusters.tailMap(x, false).keySet()) {
+                    max = Math.max(max, crossSum(matrix, clusters.get(x), clusters.get(y))
+                            / (clusters.get(x).size() * clusters.get(y).size()));
+                }
+            }
+            Merge chosen = null;
+            for (int x : clusters.keySet()) {
+                for (int y : clusters.tailMap(x, false).keySet()) {
+                    double sum = crossSum(matrix, clusters.get(x), clusters.get(y));
+                    double coupling = sum / (clusters.get(x).size() * clusters.get(y).size());
+                    if (ClusteringEngine.compareCoupling(coupling, max) == 0) {
+                        chosen = new Merge(x, y, coupling, sum);
+                        break;
+                    }
+                }
+                if (chosen != null) break;
+            }
+            List<Integer> merged = new ArrayList<>(clusters.remove(chosen.left()));
+            merged.addAll(clusters.remove(chosen.right()));
+            clusters.put(next++, merged);
+            merges.add(chosen);
+        }
+        return merges;
+    }
+
+    private static double crossSum(CouplingMatrix matrix, List<Integer> a, List<Integer> b) {
+        double sum = 0.0;
+        for (int i : a) {
+            for (int j : b) sum += matrix.weight(i, j);
+        }
+        return sum;
+    }
+
+    /** Matrice aléatoire de n classes, chaque paire couplée avec la probabilité density. */
+    private static CouplingMatrix randomMatrix(long seed, int n, double density, boolean tiedWeights) {
+        Random random = new Random(seed);
+        Map<String, Map<String, Double>> weights = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Double> row = weights.computeIfAbsent(name(i), k -> new HashMap<>());
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() < density) {
+                    row.put(name(j), tiedWeights ? 0.01 : random.nextDouble());
+                }
+            }
+        }
+        return CouplingMatrix.fromWeights(weights);
+    }
+
+    private static String name(int i) {
+        return String.format("p.C%02d", i);
+    }
+
+    private static void assertSameMerges(List<Merge> expected, List<Merge> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int k = 0; k < expected.size(); k++) {
+            Merge e = expected.get(k);
+            Merge a = actual.get(k);
+            String step = "fusion " + k + " : attendu " + e + ", obtenu " + a;
+            assertEquals(e.left(), a.left(), step);
+            assertEquals(e.right(), a.right(), step);
+            assertEquals(e.coupling(), a.coupling(), 1e-12 * Math.max(1.0, e.coupling()), step);
+            assertEquals(e.crossSum(), a.crossSum(), 1e-12 * Math.max(1.0, e.crossSum()), step);
+        }
+    }
+
+    /**
+     * Dendrogramme valide quel que soit le départage des égalités : chaque cluster fusionné
+     * une seule fois après sa création, couplages décroissants et égaux aux moyennes recalculées.
+     */
+    private static void assertValidDendrogram(CouplingMatrix matrix, List<Merge> merges) {
+        int n = matrix.classCount();
+        assertEquals(Math.max(0, n - 1), merges.size());
+        Map<Integer, List<Integer>> clusters = new HashMap<>();
+        for (int i = 0; i < n; i++) clusters.put(i, List.of(i));
+        double previous = Double.POSITIVE_INFINITY;
+        int next = n;
+        for (Merge merge : merges) {
+            assertTrue(merge.left() < merge.right(), merge::toString);
+            List<Integer> left = clusters.remove(merge.left());
+            List<Integer> right = clusters.remove(merge.right());
+            assertNotNull(left, merge::toString);
+            assertNotNull(right, merge::toString);
+            double sum = crossSum(matrix, left, right);
+            assertEquals(sum / (left.size() * right.size()), merge.coupling(), 1e-12, merge::toString);
+            assertTrue(ClusteringEngine.compareCoupling(merge.coupling(), previous) <= 0, merge::toString);
+            previous = merge.coupling();
+            List<Integer> merged = new ArrayList<>(left);
+            merged.addAll(right);
+            clusters.put(next++, merged);
+        }
+    }
+
+    @Test
+    void enginesMatchBaselineOnRandomMatrices() {
+        for (long seed = 0; seed < 40; seed++) {
+            CouplingMatrix matrix = randomMatrix(seed, 4 + (int) (seed % 20), 0.35, false);
+            List<Merge> expected = baseline(matrix);
+            assertSameMerges(expected, MATRIX.cluster(matrix));
+            assertSameMerges(expected, NN_CHAIN.cluster(matrix));
+        }
+    }
+
+    @Test
+    void tiedCouplingsFollowCreationOrder() {
+        for (long seed = 0; seed < 40; seed++) {
+            CouplingMatrix matrix = randomMatrix(seed, 4 + (int) (seed % 20), 0.4, true);
+            assertSameMerges(baseline(matrix), MATRIX.cluster(matrix));
+            // Le départage des égalités peut différer avec NN_CHAIN, pas la validité des fusions
+            assertValidDendrogram(matrix, NN_CHAIN.cluster(matrix));
+        }
+    }
+
+    @Test
+    void nearlyEqualCouplingsAreTies() {
+        // Moyennes égales à quelques ULP près : la paire la plus ancienne l'emporte
+        double w = 0.1;
+        Map<String, Map<String, Double>> weights = Map.of(
+                "p.A", Map.of("p.B", w),
+                "p.C", Map.of("p.D", w + Math.ulp(w)),
+                "p.E", Map.of("p.F", w + 2 * Math.ulp(w)));
+        CouplingMatrix matrix = CouplingMatrix.fromWeights(weights);
+        List<Merge> expected = baseline(matrix);
+        List<Merge> actual = MATRIX.cluster(matrix);
+        assertSameMerges(expected, actual);
+        int first = Math.min(Math.min(matrix.idOf("p.A"), matrix.idOf("p.C")), matrix.idOf("p.E"));
+        assertEquals(first, actual.get(0).left());
+        assertEquals(first, expected.get(0).left());
+        assertSameMerges(expected, NN_CHAIN.cluster(matrix));
+    }
+
+    @Test
+    void zeroCouplingRootsAreMergedOldestFirst() {
+        // Deux composantes couplées et trois classes isolées
+        Map<String, Map<String, Double>> weights = new HashMap<>();
+        weights.put("p.A", Map.of("p.B", 0.3, "p.C", 0.1));
+        weights.put("p.D", Map.of("p.E", 0.2));
+        weights.put("p.F", Map.of());
+        weights.put("p.G", Map.of());
+        weights.put("p.H", Map.of());
+        CouplingMatrix matrix = CouplingMatrix.fromWeights(weights);
+        List<Merge> expected = baseline(matrix);
+        assertSameMerges(expected, MATRIX.cluster(matrix));
+        assertSameMerges(expected, NN_CHAIN.cluster(matrix));
+
+        // Trois fusions couplées, puis quatre racines fusionnées à 0
+        List<Merge> zeros = expected.subList(3, expected.size());
+        assertEquals(4, zeros.size());
+        zeros.forEach(merge -> assertEquals(0.0, merge.coupling()));
+    }
+
+    @Test
+    void degenerateMatrices() {
+        CouplingMatrix empty = CouplingMatrix.fromWeights(Map.of());
+        assertTrue(MATRIX.cluster(empty).isEmpty());
+        assertTrue(NN_CHAIN.cluster(empty).isEmpty());
+
+        CouplingMatrix isolated = CouplingMatrix.fromWeights(Map.of("p.A", Map.of(), "p.B", Map.of()));
+        List<Merge> expected = List.of(new Merge(0, 1, 0.0, 0.0));
+        assertSameMerges(expected, MATRIX.cluster(isolated));
+        assertSameMerges(expected, NN_CHAIN.cluster(isolated));
+    }
+}
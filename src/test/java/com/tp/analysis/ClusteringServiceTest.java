@@ -0,0 +1,61 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class ClusteringServiceTest {
+
+    /** Groupes de 6 classes fortement couplées, reliés par quelques appels isolés. */
+    static Map<String, Map<String, Integer>> groupedCounts(long seed, int groups) {
+        Random random = new Random(seed);
+        int n = groups * 6;
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Integer> row = counts.computeIfAbsent("p.C" + i, k -> new HashMap<>());
+            for (int j = i + 1; j < n; j++) {
+                boolean sameGroup = i / 6 == j / 6;
+                if (random.nextInt(sameGroup ? 2 : 25) == 0) {
+                    row.put("p.C" + j, sameGroup ? 2 + random.nextInt(6) : 1);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static String describe(List<ModuleIdentifier.Module> modules) {
+        StringBuilder sb = new StringBuilder();
+        for (ModuleIdentifier.Module module : modules) {
+            sb.append(module.getId()).append(new TreeSet<>(module.getClasses()))
+              .append(' ').append(module.getAverageCoupling()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void recutMatchesAFreshClustering() {
+        for (long seed = 0; seed < 5; seed++) {
+            Map<String, Map<String, Integer>> counts = groupedCounts(seed, 6);
+            CouplingMatrix matrix = CouplingMatrix.fromCounts(counts);
+            ClusteringService cached = new ClusteringService(matrix);
+            cached.performCompleteClustering(1.0);
+
+            int splitCuts = 0;
+            for (double cp : new double[] {0.0, 1e-4, 1e-3, 2e-3, 5e-3, 0.01, 0.05, 1.0}) {
+                ClusteringService.ClusteringResult recut = cached.recut(cp);
+                ClusteringService.ClusteringResult fresh = new ClusteringService(matrix).performCompleteClustering(cp);
+                assertEquals(describe(fresh.getModules()), describe(recut.getModules()), "cp = " + cp);
+                assertSame(cached.getDendrogram(), recut.getDendrogram());
+                if (recut.getModules().size() > 1) splitCuts++;
+            }
+            assertTrue(splitCuts > 0, "au moins une coupe en plusieurs modules");
+        }
+    }
+
+    @Test
+    void recutRequiresAClustering() {
+        ClusteringService service = new ClusteringService(CouplingMatrix.fromCounts(groupedCounts(1, 2)));
+        assertThrows(IllegalStateException.class, () -> service.recut(0.1));
+    }
+}
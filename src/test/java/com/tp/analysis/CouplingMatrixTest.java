@@ -0,0 +1,103 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class CouplingMatrixTest {
+
+    @Test
+    void bothDirectionsOfAPairAreSummed() {
+        Map<String, Map<String, Integer>> counts = Map.of(
+                "p.A", Map.of("p.B", 2, "p.C", 1),
+                "p.B", Map.of("p.A", 3, "p.B", 7));
+        Map<String, Map<String, Double>> weights = Map.of(
+                "p.A", Map.of("p.B", 0.25, "p.C", 0.125),
+                "p.B", Map.of("p.A", 0.5));
+        CouplingMatrix matrix = CouplingMatrix.fromMaps(counts, weights);
+
+        assertEquals(3, matrix.classCount());
+        assertEquals(5, matrix.count("p.A", "p.B"));
+        assertEquals(5, matrix.count("p.B", "p.A"));
+        assertEquals(0.75, matrix.weight("p.A", "p.B"));
+        assertEquals(0.75, matrix.weight("p.B", "p.A"));
+        assertEquals(1, matrix.count("p.C", "p.A"));
+        // Les appels internes comptent dans le total mais ne forment pas de paire
+        assertEquals(0, matrix.count("p.B", "p.B"));
+        assertEquals(13, matrix.totalCalls());
+        assertEquals(2, matrix.pairCount());
+        assertEquals(1, matrix.degree(matrix.idOf("p.C")));
+    }
+
+    @Test
+    void unknownClassesAreNotCoupled() {
+        CouplingMatrix matrix = CouplingMatrix.fromWeights(Map.of("p.A", Map.of("p.B", 0.5)));
+        assertEquals(-1, matrix.idOf("p.Z"));
+        assertEquals(0.0, matrix.weight("p.A", "p.Z"));
+        assertEquals(0, matrix.count("p.Z", "p.A"));
+        assertEquals(0.0, matrix.weight(-1, 0));
+    }
+
+    @Test
+    void lookupMatchesTheRowsOfARandomMatrix() {
+        Random random = new Random(11);
+        int n = 80;
+        Map<String, Map<String, Double>> weights = new HashMap<>();
+        Map<String, Double> expected = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Double> row = weights.computeIfAbsent("p.C" + i, k -> new HashMap<>());
+            for (int j = 0; j < n; j++) {
+                if (i != j && random.nextInt(6) == 0) {
+                    double weight = random.nextInt(100) / 100.0;
+                    row.put("p.C" + j, weight);
+                    expected.merge(pair("p.C" + i, "p.C" + j), weight, Double::sum);
+                }
+            }
+        }
+        CouplingMatrix matrix = CouplingMatrix.fromWeights(weights);
+
+        assertEquals(expected.size(), matrix.pairCount());
+        for (int i = 0; i < n; i++) {
+            int previous = -1;
+            for (int k = 0; k < matrix.degree(i); k++) {
+                int j = matrix.neighbor(i, k);
+                assertTrue(j > previous, "voisines triées par identifiant");
+                previous = j;
+            }
+            for (int j = 0; j < n; j++) {
+                double weight = expected.getOrDefault(pair(matrix.className(i), matrix.className(j)), 0.0);
+                assertEquals(weight, matrix.weight(i, j), 1e-12);
+                assertEquals(matrix.weight(i, j), matrix.weight(j, i));
+            }
+        }
+
+        long atLeastHalf = expected.values().stream().filter(w -> w >= 0.5).count();
+        assertEquals(atLeastHalf, matrix.pairCount(0.5));
+        assertEquals(expected.size(), matrix.pairCount(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    void mapViewsListEachPairOnceFromTheSmallerName() {
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        counts.put("p.B", Map.of("p.A", 2, "p.C", 1));
+        counts.put("p.C", Map.of("p.B", 1));
+        counts.put("p.D", Map.of());
+        CouplingMatrix matrix = CouplingMatrix.fromCounts(counts);
+
+        assertEquals(Map.of("p.A", Map.of("p.B", 2), "p.B", Map.of("p.C", 2)), matrix.toCountMap());
+        assertEquals(Map.of("p.A", Map.of("p.B", 0.5), "p.B", Map.of("p.C", 0.5)), matrix.toWeightMap());
+        assertEquals(-1, matrix.idOf("p.Z"));
+        assertTrue(matrix.idOf("p.D") >= 0);
+
+        ClusteringService.ClusteringResult result =
+                new ClusteringService.ClusteringResult(null, List.of(), counts, matrix.toWeightMap());
+        assertEquals(matrix.toCountMap(), result.getCouplingMatrix());
+        assertEquals(matrix.toWeightMap(), result.getCouplingWeights());
+        assertEquals(matrix.classNames(), result.getCoupling().classNames());
+    }
+
+    private static String pair(String a, String b) {
+        return a.compareTo(b) <= 0 ? a + " " + b : b + " " + a;
+    }
+}
@@ -0,0 +1,153 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tp.ParserAnalyzer;
+import com.tp.model.CallGraph;
+import com.tp.model.SymbolTable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CouplingServiceTest {
+
+  @Test
+  void calledClassWithoutCallsKeepsItsCouplingEdges(@TempDir Path project) throws Exception {
+    // util.Leaf est appelée mais n'appelle rien : son package doit tout de même être détecté
+    write(project, "app/Main.java", """
+        package app;
+        import util.Leaf;
+        public class Main {
+            private final Leaf leaf = new Leaf();
+            public int run() { return leaf.value() + leaf.twice(); }
+        }
+        """);
+    write(project, "util/Leaf.java", """
+        package util;
+        public class Leaf {
+            public int value() { return 1; }
+            public int twice() { return 2; }
+        }
+        """);
+    ParserAnalyzer analyzer = new ParserAnalyzer(project.toString());
+    analyzer.analyze();
+
+    CouplingService service = new CouplingService();
+    Map<String, Map<String, Integer>> counts = service.countInterClassCalls(analyzer.getCompactCallGraph());
+    assertEquals(Set.of("app", "util"), service.getDetectedPackages());
+    assertEquals(Map.of("app.Main", Map.of("util.Leaf", 2)), counts);
+
+    // Même résultat depuis la vue Map du graphe (les méthodes sans appel y sont des clés)
+    assertEquals(counts, new CouplingService().countInterClassCalls(analyzer.getCallGraph()));
+  }
+
+  @Test
+  void libraryCalleesAreNotProjectClasses() {
+    Map<String, Set<String>> callGraph = Map.of(
+        "app.Main.run", Set.of("java.util.List.add", "app.Store.save", "println"),
+        "app.Store.save", Set.of("java.util.Map.put"));
+    CouplingService service = new CouplingService();
+    Map<String, Map<String, Integer>> counts = service.countInterClassCalls(callGraph);
+    assertEquals(Set.of("app"), service.getDetectedPackages());
+    assertEquals(Map.of("app.Main", Map.of("app.Store", 1)), counts);
+  }
+
+  @Test
+  void simpleCalleeNamesResolveToTheUniqueProjectClass() {
+    Map<String, Set<String>> callGraph = Map.of(
+        "app.Main.run", Set.of("Store.save", "Store.load", "Cache.get"),
+        "app.Store.save", Set.of(),
+        "app.Store.load", Set.of(),
+        "app.Cache.get", Set.of(),
+        "lib.Cache.get", Set.of());
+    Map<String, Map<String, Integer>> counts = new CouplingService().countInterClassCalls(callGraph);
+    // "Cache" est ambigu (app.Cache, lib.Cache) : l'appel est ignoré
+    assertEquals(Map.of("app.Main", Map.of("app.Store", 2)), counts);
+  }
+
+  /**
+   * Graphe aléatoire assez grand pour le comptage parallèle : 1 500 classes de 10 méthodes,
+   * appels vers le projet (doublons et appels internes compris) et vers des bibliothèques.
+   */
+  private static CallGraph largeGraph() {
+    Random random = new Random(3);
+    SymbolTable symbols = new SymbolTable();
+    CallGraph.Builder builder = new CallGraph.Builder(symbols);
+    int classes = 1_500;
+    int methods = 10;
+    for (int c = 0; c < classes; c++) {
+      for (int m = 0; m < methods; m++) {
+        int node = builder.addCaller("p" + c % 12 + ".C" + c + ".m" + m);
+        for (int k = 0; k < 16; k++) {
+          int target = random.nextInt(10) < 3 ? c : random.nextInt(classes);
+          String callee = random.nextInt(20) == 0
+              ? "java.util.List.add"
+              : "p" + target % 12 + ".C" + target + ".m" + random.nextInt(methods);
+          builder.addCall(node, symbols.internMethod(callee));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /** Comptage de référence : un appel par (classe appelante, méthode appelée) entre classes du projet. */
+  private static Map<String, Map<String, Integer>> referenceCounts(CallGraph graph) {
+    Map<String, Set<String>> callGraph = graph.toMap();
+    Set<String> packages = new HashSet<>();
+    for (String caller : callGraph.keySet()) packages.add(caller.substring(0, caller.indexOf('.')));
+    Set<String> uniqueCalls = new HashSet<>();
+    Map<String, Map<String, Integer>> counts = new HashMap<>();
+    callGraph.forEach((caller, callees) -> {
+      String callerClass = caller.substring(0, caller.lastIndexOf('.'));
+      for (String callee : callees) {
+        String calleeClass = callee.substring(0, callee.lastIndexOf('.'));
+        if (!packages.contains(calleeClass.substring(0, calleeClass.indexOf('.')))) continue;
+        if (calleeClass.equals(callerClass) || !uniqueCalls.add(callerClass + " " + callee)) continue;
+        String a = callerClass.compareTo(calleeClass) <= 0 ? callerClass : calleeClass;
+        String b = callerClass.compareTo(calleeClass) <= 0 ? calleeClass : callerClass;
+        counts.computeIfAbsent(a, x -> new HashMap<>()).merge(b, 1, Integer::sum);
+      }
+    });
+    return counts;
+  }
+
+  @Test
+  void parallelCountingMatchesSequential() {
+    CallGraph graph = largeGraph();
+    assertTrue(graph.edgeCount() >= 200_000, "le comptage doit passer par le pool");
+
+    ForkJoinPool sequentialPool = new ForkJoinPool(1);
+    Map<String, Map<String, Integer>> sequential;
+    try {
+      sequential = new CouplingService(sequentialPool).countInterClassCalls(graph);
+    } finally {
+      sequentialPool.shutdown();
+    }
+    assertEquals(referenceCounts(graph), sequential);
+
+    for (int parallelism : new int[] {2, 4, 7}) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        Map<String, Map<String, Integer>> parallel = new CouplingService(pool).countInterClassCalls(graph);
+        assertEquals(sequential, parallel, "parallélisme " + parallelism);
+        // Même ordre d'itération (dont dépend le départage des égalités du clustering)
+        assertEquals(sequential.toString(), parallel.toString(), "parallélisme " + parallelism);
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private static void write(Path root, String file, String source) throws Exception {
+    Path path = root.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, source);
+  }
+}
@@ -0,0 +1,52 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphGeneratorTest {
+
+    @Test
+    void eachPairIsOneEdgeFromTheSmallerName() {
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        counts.put("p.Z", Map.of("p.A", 3, "p.M", 1));
+        counts.put("p.A", Map.of("p.Z", 1));
+        counts.put("p.M", Map.of("p.A", 4));
+        GraphGenerator generator = new GraphGenerator(CouplingMatrix.fromCounts(counts));
+
+        List<GraphGenerator.CouplingEdge> edges = generator.edges(Double.NEGATIVE_INFINITY);
+        Map<String, GraphGenerator.CouplingEdge> byPair = new HashMap<>();
+        for (GraphGenerator.CouplingEdge edge : edges) {
+            assertTrue(edge.source.compareTo(edge.target) < 0, edge.source + " -> " + edge.target);
+            assertNull(byPair.put(edge.source + " " + edge.target, edge), "paire en double");
+        }
+        assertEquals(Set.of("p.A p.Z", "p.M p.Z", "p.A p.M"), byPair.keySet());
+        assertEquals(4, byPair.get("p.A p.Z").count);
+        assertEquals(4 / 9.0, byPair.get("p.A p.Z").weight, 1e-12);
+        assertEquals(1, byPair.get("p.M p.Z").count);
+
+        List<GraphGenerator.CouplingEdge> heavy = generator.edges(0.4);
+        assertEquals(2, heavy.size());
+    }
+
+    @Test
+    void csvReportIsSortedByWeight(@TempDir Path dir) throws Exception {
+        Map<String, Map<String, Integer>> counts = Map.of(
+                "p.B", Map.of("p.A", 1, "p.C", 2),
+                "p.C", Map.of("p.D", 1));
+        Path csv = dir.resolve("coupling.csv");
+        new GraphGenerator(CouplingMatrix.fromCounts(counts)).generateCsvReport(csv.toString(), 0.0);
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("Source,Target,Weight,Count,Percentage", lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("p.B,p.C,"), lines.get(1));
+        // Égalité de poids : ordre des noms
+        assertTrue(lines.get(2).startsWith("p.A,p.B,"), lines.get(2));
+        assertTrue(lines.get(3).startsWith("p.C,p.D,"), lines.get(3));
+    }
+}
@@ -0,0 +1,50 @@
+package com.tp.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalClusteringTest {
+
+    @Test
+    void nodeSumsMatchPairwiseSums() {
+        for (HierarchicalClustering.Algorithm algorithm : List.of(
+                HierarchicalClustering.Algorithm.MATRIX, HierarchicalClustering.Algorithm.NN_CHAIN)) {
+            CouplingMatrix matrix = CouplingMatrix.fromCounts(ClusteringServiceTest.groupedCounts(4, 5));
+            DendrogramNode root = new HierarchicalClustering(matrix, algorithm).performClustering();
+            assertEquals(matrix.classCount(), root.getClassCount());
+
+            for (DendrogramNode node : BranchCouplingTest.nodes(root)) {
+                assertTrue(node.hasInternalCoupling(matrix), node::toString);
+                double expected = BranchCouplingTest.pairwiseAverage(matrix, node);
+                assertEquals(expected, node.getAverageInternalCoupling(), 1e-12, node::toString);
+                assertEquals(expected * node.getInternalPairCount(), node.getInternalCoupling(), 1e-12, node::toString);
+            }
+        }
+    }
+
+    @Test
+    void anotherMatrixFallsBackToBottomUpAverages() {
+        Map<String, Map<String, Integer>> counts = ClusteringServiceTest.groupedCounts(2, 4);
+        CouplingMatrix matrix = CouplingMatrix.fromCounts(counts);
+        DendrogramNode root = new HierarchicalClustering(matrix).performClustering();
+
+        // Mêmes classes, poids différents, autre instance : les sommes des nœuds ne s'appliquent pas
+        Map<String, Map<String, Double>> doubled = new HashMap<>();
+        matrix.toWeightMap().forEach((source, targets) -> {
+            Map<String, Double> row = doubled.computeIfAbsent(source, k -> new HashMap<>());
+            targets.forEach((target, weight) -> row.put(target, 2 * weight));
+        });
+        CouplingMatrix other = CouplingMatrix.fromWeights(doubled);
+        assertFalse(root.hasInternalCoupling(other));
+        assertFalse(root.hasInternalCoupling(CouplingMatrix.fromCounts(counts)));
+
+        BranchCoupling branchCoupling = new BranchCoupling(root, other);
+        for (DendrogramNode node : BranchCouplingTest.nodes(root)) {
+            double expected = BranchCouplingTest.pairwiseAverage(other, node);
+            assertEquals(expected, branchCoupling.average(node), 1e-12, node::toString);
+            assertEquals(2 * node.getAverageInternalCoupling(), branchCoupling.average(node), 1e-12, node::toString);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tp.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tp.synthetic.SyntheticProjectGenerator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalyzerCliTest {
+
+  @TempDir
+  static Path project;
+
+  @TempDir
+  Path output;
+
+  @BeforeAll
+  static void generateProject() throws Exception {
+    SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+    generator.setClassCount(20);
+    generator.setMethodsPerClass(3);
+    generator.generate(project);
+  }
+
+  private int run(String... options) {
+    String[] args = new String[options.length + 3];
+    args[0] = project.toString();
+    args[1] = "--output";
+    args[2] = output.toString();
+    System.arraycopy(options, 0, args, 3, options.length);
+    return AnalyzerCli.run(args);
+  }
+
+  @Test
+  void writesReportsWithoutThresholds() throws Exception {
+    assertEquals(AnalyzerCli.EXIT_OK, run("--min-coupling", "0"));
+    for (String report : new String[] {"stats.txt", "modules.txt", "modules.csv", "metrics.json"}) {
+      assertTrue(Files.isRegularFile(output.resolve(report)), report);
+    }
+    assertEquals("", Files.readString(output.resolve("violations.txt")));
+  }
+
+  @Test
+  void moduleThresholdsCanFail() throws Exception {
+    // 20 classes : au plus 10 modules (M/2)
+    assertEquals(AnalyzerCli.EXIT_THRESHOLD, run("--min-coupling", "0", "--min-modules", "11"));
+    assertTrue(Files.readString(output.resolve("violations.txt")).contains("modules identifiés"));
+    assertEquals(AnalyzerCli.EXIT_THRESHOLD, run("--min-coupling", "0", "--max-module-classes", "1"));
+    assertTrue(Files.readString(output.resolve("violations.txt")).contains("classes du module"));
+    assertEquals(AnalyzerCli.EXIT_OK, run("--min-coupling", "0", "--min-modules", "0", "--max-module-classes", "20"));
+  }
+
+  @Test
+  void integerOptionsAreValidated() {
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--max-nodes", "0"));
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--max-nodes", "2.5"));
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--max-class-calls", "-1"));
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--max-class-calls", "1e3"));
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--min-modules", "deux"));
+    assertEquals(AnalyzerCli.EXIT_USAGE, run("--check-modules"));
+  }
+}
@@ -0,0 +1,92 @@
+package com.tp.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class CallGraphTest {
+
+    private static int[] callees(CallGraph.Builder builder, int node) {
+        int[] result = new int[builder.degree(node)];
+        for (int k = 0; k < result.length; k++) result[k] = builder.callee(node, k);
+        return result;
+    }
+
+    @Test
+    void builderDeduplicatesCallsInInsertionOrder() {
+        SymbolTable symbols = new SymbolTable();
+        CallGraph.Builder builder = new CallGraph.Builder(symbols);
+        int node = builder.addCaller("app.Main.run");
+        int save = symbols.internMethod("app.Store.save");
+        int load = symbols.internMethod("app.Store.load");
+        builder.addCall(node, save);
+        builder.addCall(node, load);
+        builder.addCall(node, save);
+
+        assertEquals(node, builder.addCaller("app.Main.run"));
+        assertArrayEquals(new int[] {save, load}, callees(builder, node));
+        assertEquals(node, builder.nodeOf(symbols.findMethod("app.Main.run")));
+        assertEquals(-1, builder.nodeOf(save));
+    }
+
+    @Test
+    void replaceCallKeepsOrderWhenMerging() {
+        SymbolTable symbols = new SymbolTable();
+        CallGraph.Builder builder = new CallGraph.Builder(symbols);
+        int node = builder.addCaller("app.Main.run");
+        int a = symbols.internMethod("app.A.a");
+        int simple = symbols.internMethod("b");
+        int b = symbols.internMethod("app.B.b");
+        int c = symbols.internMethod("app.C.c");
+        int d = symbols.internMethod("app.D.d");
+        for (int callee : new int[] {a, b, simple, c, d}) builder.addCall(node, callee);
+
+        // "b" se résout en app.B.b, déjà présent : fusion, les appelés suivants remontent
+        assertFalse(builder.replaceCall(node, 2, b));
+        assertArrayEquals(new int[] {a, b, c, d}, callees(builder, node));
+        assertEquals(c, builder.callee(node, 2));
+
+        // Remplacement simple, puis l'ancien appelé peut être ajouté de nouveau
+        assertTrue(builder.replaceCall(node, 0, simple));
+        assertArrayEquals(new int[] {simple, b, c, d}, callees(builder, node));
+        builder.addCall(node, a);
+        builder.addCall(node, b);
+        assertArrayEquals(new int[] {simple, b, c, d, a}, callees(builder, node));
+    }
+
+    @Test
+    void buildProducesCsrAdjacency() {
+        CallGraph.Builder builder = new CallGraph.Builder(new SymbolTable());
+        int main = builder.addCaller("app.Main.run");
+        int store = builder.addCaller("app.Store.save");
+        int leaf = builder.addCaller("app.Leaf.value");
+        SymbolTable symbols = builder.getSymbols();
+        builder.addCall(main, symbols.findMethod("app.Store.save"));
+        builder.addCall(main, symbols.findMethod("app.Leaf.value"));
+        builder.addCall(store, symbols.internMethod("java.util.Map.put"));
+
+        CallGraph graph = builder.build();
+        assertEquals(3, graph.nodeCount());
+        assertEquals(3, graph.edgeCount());
+        assertEquals(2, graph.degree(main));
+        assertEquals(1, graph.degree(store));
+        assertEquals(0, graph.degree(leaf));
+        assertEquals(symbols.findMethod("app.Leaf.value"), graph.callee(main, 1));
+        assertEquals(leaf, graph.nodeOf(symbols.findMethod("app.Leaf.value")));
+        assertEquals(-1, graph.nodeOf(symbols.findMethod("java.util.Map.put")));
+        assertEquals(Map.of(
+                "app.Main.run", Set.of("app.Store.save", "app.Leaf.value"),
+                "app.Store.save", Set.of("java.util.Map.put"),
+                "app.Leaf.value", Set.of()), graph.toMap());
+    }
+
+    @Test
+    void fromMapRoundTrips() {
+        Map<String, Set<String>> map = Map.of(
+                "app.Main.run", Set.of("app.Store.save", "println"),
+                "app.Store.save", Set.of());
+        assertEquals(map, CallGraph.fromMap(map).toMap());
+    }
+}
@@ -0,0 +1,63 @@
+package com.tp.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putIfAbsentKeepsTheFirstValue() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(-1, map.putIfAbsent(42L, 7));
+        assertEquals(7, map.putIfAbsent(42L, 9));
+        assertEquals(7, map.get(42L));
+        assertEquals(-1, map.get(43L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeShiftsCollidingEntriesBack() {
+        // Petite table : les clés partagent des séquences de sondage et la table grandit
+        LongIntHashMap map = new LongIntHashMap(2);
+        for (int i = 0; i < 100; i++) {
+            map.putIfAbsent(i, i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(map.remove(i));
+            assertFalse(map.remove(i));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i, map.get(i), "clé " + i);
+        }
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(1);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // Clés dans un petit intervalle (beaucoup de collisions et de suppressions effectives),
+            // avec des bits de poids fort pour couvrir les clés (nœud << 32 | appelé)
+            long key = ((long) random.nextInt(64) << 32) | random.nextInt(512);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    int value = random.nextInt(1000);
+                    Integer previous = reference.putIfAbsent(key, value);
+                    assertEquals(previous != null ? previous : -1, map.putIfAbsent(key, value));
+                }
+                case 1 -> assertEquals(reference.remove(key) != null, map.remove(key));
+                default -> assertEquals(reference.getOrDefault(key, -1), map.get(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}